@@ -0,0 +1,11 @@
+#!/bin/sh
+# Builds CJO and its benchmarks, and runs the benchmarks with the GC profiler.
+# Any arguments are passed on to JMH, for example to run just the ping pong benchmark on one channel:
+#   benchmarks/run-benchmarks.sh PingPong -p channel=OneOne
+# The results are written as JSON to $RESULTS (benchmarks/target/results.json by default).
+set -e
+cd "$(dirname "$0")/.."
+RESULTS=${RESULTS:-benchmarks/target/results.json}
+mvn -B -q install -DskipTests
+mvn -B -q -f benchmarks/pom.xml package
+java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff "$RESULTS" "$@"
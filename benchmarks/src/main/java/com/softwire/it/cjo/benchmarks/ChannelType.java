@@ -0,0 +1,83 @@
+package com.softwire.it.cjo.benchmarks;
+
+import mjb.dev.cjo.channels.AsyncManyChannel;
+import mjb.dev.cjo.channels.AsyncOneChannel;
+import mjb.dev.cjo.channels.BufferManyChannel;
+import mjb.dev.cjo.channels.BufferOneChannel;
+import mjb.dev.cjo.channels.ManyManyChannel;
+import mjb.dev.cjo.channels.ManyOneChannel;
+import mjb.dev.cjo.channels.OneManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.operators.Channel;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The channels the benchmarks measure, by name (so they can be picked with JMH's -p channel=...), along with
+ * how many writers and readers each allows.
+ *
+ */
+public enum ChannelType {
+	OneOne(false,false),
+	OneMany(false,true),
+	ManyOne(true,false),
+	ManyMany(true,true),
+	AsyncOne(true,false),
+	AsyncMany(true,true),
+	BufferOne(true,false),
+	BufferMany(true,true);
+
+	/**
+	 * The capacity of the buffered channels
+	 */
+	public static final int BUFFER_CAPACITY = 16;
+	private final boolean allowsManyWriters;
+	private final boolean allowsManyReaders;
+
+	private ChannelType(boolean allowsManyWriters, boolean allowsManyReaders) {
+		this.allowsManyWriters = allowsManyWriters;
+		this.allowsManyReaders = allowsManyReaders;
+	}
+
+	/**
+	 * @return - a new channel of this type (the asynchronous channels have no capacity, and the buffered channels
+	 * have a capacity of {@link #BUFFER_CAPACITY})
+	 */
+	public Channel<Integer> make() {
+		switch (this) {
+		case OneOne:
+			return new OneOneChannel<Integer>();
+		case OneMany:
+			return new OneManyChannel<Integer>();
+		case ManyOne:
+			return new ManyOneChannel<Integer>();
+		case ManyMany:
+			return new ManyManyChannel<Integer>();
+		case AsyncOne:
+			return new AsyncOneChannel<Integer>();
+		case AsyncMany:
+			return new AsyncManyChannel<Integer>();
+		case BufferOne:
+			return new BufferOneChannel<Integer>(BUFFER_CAPACITY);
+		default:
+			return new BufferManyChannel<Integer>(BUFFER_CAPACITY);
+		}
+	}
+
+	/**
+	 * @return - true iff the channel allows more than one writer at once
+	 */
+	public boolean allowsManyWriters() {
+		return allowsManyWriters;
+	}
+
+	/**
+	 * @return - true iff the channel allows more than one reader at once
+	 */
+	public boolean allowsManyReaders() {
+		return allowsManyReaders;
+	}
+}
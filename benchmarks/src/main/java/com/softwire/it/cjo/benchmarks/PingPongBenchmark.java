@@ -0,0 +1,82 @@
+package com.softwire.it.cjo.benchmarks;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.Channel;
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Measures the round trip latency of a channel: the benchmark writes a message down one channel to an echo process,
+ * which writes it straight back down another channel of the same type. Each round trip is two rendezvous (for the
+ * synchronous channels), each of which may have to wake a sleeping thread.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend={"-Dlog4j.configuration=benchmark-log4j.properties"})
+@State(Scope.Benchmark)
+public class PingPongBenchmark {
+	@Param({"OneOne","OneMany","ManyOne","ManyMany","AsyncOne","AsyncMany","BufferOne","BufferMany"})
+	public ChannelType channel;
+	//There and back again
+	private Channel<Integer> ping;
+	private Channel<Integer> pong;
+	//The echo process
+	private Task echo;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ping = channel.make();
+		pong = channel.make();
+		final Channel<Integer> in = ping;
+		final Channel<Integer> out = pong;
+		echo = ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			try {
+				while (true) {
+					write(out,read(in));
+				}
+			} catch (ChannelClosed e) {
+				//Done
+			}
+		}},true);
+		ThreadScheduler.INSTANCE.schedule(echo);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		close(ping);
+		close(pong);
+		ThreadScheduler.INSTANCE.deschedule(echo);
+	}
+
+	@Benchmark
+	public Integer roundTrip() {
+		write(ping,1);
+		return read(pong);
+	}
+}
@@ -0,0 +1,236 @@
+package com.softwire.it.cjo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.parallelresources.Resource;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Drives the resource graph directly, with several threads at once, in the shapes the channels and alts give it:
+ * <ul>
+ * <li>disjoint - each thread acquires a resource of its own (so nothing should contend)</li>
+ * <li>giant - every resource is in one connected component, so every acquisition contends</li>
+ * <li>stars - like an alt: acquire a few random resources at once, tie a new resource to them, let go, and then
+ * take it all apart again (two acquisitions per operation)</li>
+ * <li>churn - join two random resources and split them again, as fast as possible (two acquisitions per operation)</li>
+ * </ul>
+ * The score is operations per second. Alongside it, the benchmark reports the acquisitions made, the restarts
+ * (times a process had to let go and try again because the graph changed underneath it), the restarts per
+ * acquisition, and how often the old process gate shut and how many acquisitions had to wait at it.
+ * Use -t to change the number of threads.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend={"-Dlog4j.configuration=benchmark-log4j.properties"})
+@Threads(4)
+public class ResourceGraphBenchmark {
+	/**
+	 * The number of shared resources
+	 */
+	public static final int RESOURCES = 64;
+	/**
+	 * The number of resources in each star
+	 */
+	public static final int STAR_SIZE = 3;
+	private static final ResourceGraph GRAPH = ResourceGraph.INSTANCE;
+
+	/**
+	 * The resources everyone shares
+	 */
+	@State(Scope.Benchmark)
+	public static class Graph {
+		@Param({"disjoint","giant","stars","churn"})
+		public String shape;
+		private Resource[] resources;
+		//Everyone's counters, so one of them can report the totals
+		private final List<Counters> counters = new CopyOnWriteArrayList<Counters>();
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			if (!shape.equals("disjoint") && !shape.equals("giant") && !shape.equals("stars") && !shape.equals("churn")) {
+				throw new IllegalArgumentException("Cannot benchmark the shape: " + shape);
+			}
+			ResourceManipulator manipulator = GRAPH.getManipulator();
+			resources = new Resource[RESOURCES];
+			for (int i=0; i<RESOURCES; i++) {
+				resources[i] = manipulator.addResource();
+			}
+			if (shape.equals("giant")) {
+				//A chain through all of them
+				for (int i=1; i<RESOURCES; i++) {
+					manipulator.addDependency(resources[i-1],resources[i]);
+				}
+			}
+			manipulator.releaseResources();
+		}
+	}
+
+	/**
+	 * What each thread counts, and reports alongside the score. The graph's statistics are shared, so only the first
+	 * thread reports them.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		/**
+		 * The acquisitions made by this thread
+		 */
+		public long acquisitions;
+		private boolean isReporter;
+		private Graph graph;
+		//The graph's statistics when the iteration began
+		private long startRestarts;
+		private long startGateEngagements;
+		private long startGateWaits;
+		//This thread's own resource (for the disjoint shape) and its own random numbers
+		private Resource own;
+		private SplittableRandom random;
+
+		@Setup(Level.Trial)
+		public void setUp(Graph graph, ThreadParams threadParams) {
+			this.graph = graph;
+			isReporter = threadParams.getThreadIndex()==0;
+			random = new SplittableRandom(threadParams.getThreadIndex());
+			ResourceManipulator manipulator = GRAPH.getManipulator();
+			own = manipulator.addResource();
+			manipulator.releaseResources();
+			graph.counters.add(this);
+		}
+
+		@Setup(Level.Iteration)
+		public void startIteration() {
+			acquisitions = 0;
+			startRestarts = GRAPH.getRestarts();
+			startGateEngagements = GRAPH.getGateEngagements();
+			startGateWaits = GRAPH.getGateWaits();
+		}
+
+		/**
+		 * @return - the restarts this iteration (all threads)
+		 */
+		public long restarts() {
+			return isReporter ? GRAPH.getRestarts()-startRestarts : 0;
+		}
+
+		/**
+		 * @return - the restarts per acquisition this iteration (all threads)
+		 */
+		public double restartsPerAcquisition() {
+			if (!isReporter) {
+				return 0;
+			}
+			long total = 0;
+			for (Counters threadCounters : graph.counters) {
+				total += threadCounters.acquisitions;
+			}
+			return total==0 ? 0 : (double)restarts()/total;
+		}
+
+		/**
+		 * @return - the times the old process gate shut this iteration
+		 */
+		public long gateEngagements() {
+			return isReporter ? GRAPH.getGateEngagements()-startGateEngagements : 0;
+		}
+
+		/**
+		 * @return - the acquisitions which waited at the old process gate this iteration
+		 */
+		public long gateWaits() {
+			return isReporter ? GRAPH.getGateWaits()-startGateWaits : 0;
+		}
+	}
+
+	@Benchmark
+	public void acquire(Graph graph, Counters counters) {
+		Resource[] resources = graph.resources;
+		SplittableRandom random = counters.random;
+		ResourceManipulator manipulator;
+		switch (graph.shape) {
+		case "disjoint":
+			manipulator = GRAPH.acquireResource(counters.own);
+			manipulator.releaseResources();
+			counters.acquisitions++;
+			break;
+		case "giant":
+			manipulator = GRAPH.acquireResource(resources[random.nextInt(RESOURCES)]);
+			manipulator.releaseResources();
+			counters.acquisitions++;
+			break;
+		case "stars":
+			List<Resource> points = new ArrayList<Resource>(STAR_SIZE);
+			while (points.size()<STAR_SIZE) {
+				Resource point = resources[random.nextInt(RESOURCES)];
+				if (!points.contains(point)) {
+					points.add(point);
+				}
+			}
+			manipulator = GRAPH.acquireResources(new HashSet<Resource>(points));
+			Resource centre = manipulator.addResource();
+			for (Resource point : points) {
+				manipulator.addDependency(centre,point);
+			}
+			manipulator.releaseResources();
+			manipulator = GRAPH.acquireResource(centre);
+			for (Resource point : points) {
+				manipulator.removeDependency(centre,point);
+			}
+			manipulator.removeResource(centre);
+			manipulator.releaseResources();
+			counters.acquisitions += 2;
+			break;
+		default:
+			Resource first = resources[random.nextInt(RESOURCES)];
+			Resource second = resources[random.nextInt(RESOURCES)];
+			while (second==first) {
+				second = resources[random.nextInt(RESOURCES)];
+			}
+			Set<Resource> pair = new HashSet<Resource>();
+			pair.add(first);
+			pair.add(second);
+			manipulator = GRAPH.acquireResources(pair);
+			manipulator.addDependency(first,second);
+			manipulator.releaseResources();
+			//(Someone else may have split the same pair in the meantime, so acquire both again)
+			pair = new HashSet<Resource>();
+			pair.add(first);
+			pair.add(second);
+			manipulator = GRAPH.acquireResources(pair);
+			manipulator.removeDependency(first,second);
+			manipulator.releaseResources();
+			counters.acquisitions += 2;
+			break;
+		}
+	}
+}
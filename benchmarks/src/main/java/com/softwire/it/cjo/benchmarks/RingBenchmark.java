@@ -0,0 +1,84 @@
+package com.softwire.it.cjo.benchmarks;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Spawns a ring of processes, each reading from its neighbour on one side and writing to its neighbour on the other,
+ * and passes a token around it. This is not a JMH benchmark - run it by hand with the scheduler you want to measure, for example:<br>
+ * <br>
+ * java -Dmjb.dev.cjo.threads.scheduler=virtual -cp benchmarks/target/benchmarks.jar com.softwire.it.cjo.benchmarks.RingBenchmark 1000000 3<br>
+ * <br>
+ * for a million processes (on Java 21 or later) and three laps of the ring. It reports how long it took to spawn the
+ * processes, to pass the token around and to shut the ring down.
+ *
+ */
+public class RingBenchmark {
+	/**
+	 * Hide the constructor
+	 */
+	private RingBenchmark() {};
+
+	/**
+	 * Run the benchmark
+	 * @param args - the number of processes (default one million) and the number of laps (default one)
+	 */
+	public static void main(String[] args) {
+		final int processes = args.length>0 ? Integer.parseInt(args[0]) : 1000000;
+		final int laps = args.length>1 ? Integer.parseInt(args[1]) : 1;
+		ThreadScheduler scheduler = ThreadScheduler.INSTANCE;
+		System.out.println("Ring of " + processes + " processes, " + laps + " laps, on " + scheduler.getClass().getSimpleName());
+		long start = System.nanoTime();
+		@SuppressWarnings("unchecked")
+		final OneOneChannel<Integer>[] channels = (OneOneChannel<Integer>[])new OneOneChannel<?>[processes];
+		for (int i=0; i<processes; i++) {
+			channels[i] = new OneOneChannel<Integer>();
+		}
+		final Semaphore stoppedSemaphore = new Semaphore(0);
+		//Process i passes the token from channel i to channel i+1, one hop closer to the end
+		for (int i=1; i<processes; i++) {
+			final OneOneChannel<Integer> in = channels[i];
+			final OneOneChannel<Integer> out = channels[(i+1)%processes];
+			Task task = scheduler.makeTask(new Runnable() {public void run() {
+				try {
+					while (true) {
+						write(out,read(in)-1);
+					}
+				} catch (ChannelClosed e) {
+					stoppedSemaphore.release();
+				}
+			}},true);
+			scheduler.schedule(task);
+		}
+		long spawned = System.nanoTime();
+		System.out.println("Spawned in " + (spawned-start)/1000000 + "ms");
+		//This thread is process 0
+		long hops = (long)processes*laps;
+		write(channels[1],(int)Math.min(hops-1,Integer.MAX_VALUE));
+		int token = read(channels[0]);
+		while (token>0) {
+			write(channels[1],token-1);
+			token = read(channels[0]);
+		}
+		long passed = System.nanoTime();
+		System.out.println("Passed the token " + hops + " hops in " + (passed-spawned)/1000000 + "ms (" +
+				(passed-spawned)/hops + "ns per hop)");
+		for (int i=0; i<processes; i++) {
+			close(channels[i]);
+		}
+		stoppedSemaphore.acquireUninterruptibly(processes-1);
+		long stopped = System.nanoTime();
+		System.out.println("Shut down in " + (stopped-passed)/1000000 + "ms");
+	}
+}
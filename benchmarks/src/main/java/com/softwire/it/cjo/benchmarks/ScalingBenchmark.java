@@ -0,0 +1,150 @@
+package com.softwire.it.cjo.benchmarks;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.Channel;
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Measures how a channel's throughput scales with N producers and M consumers sharing it. Each invocation moves
+ * {@link #MESSAGES} messages from the producers (an equal share each) to the consumers (an equal share each), and
+ * waits for all of them to finish.<br>
+ * The setup is given as channel:NxM, for example -p setup=ManyMany:8x8. The channel must allow that many writers and readers.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend={"-Dlog4j.configuration=benchmark-log4j.properties"})
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+	/**
+	 * The number of messages moved per invocation (divisible by every number of producers and consumers up to 8)
+	 */
+	public static final int MESSAGES = 840;
+	@Param({"OneMany:1x4","ManyOne:4x1","ManyMany:1x1","ManyMany:2x2","ManyMany:4x4","AsyncOne:4x1","AsyncMany:4x4",
+		"BufferOne:4x1","BufferMany:4x4"})
+	public String setup;
+	private Channel<Integer> messages;
+	//Each worker waits on its own semaphore for the next round
+	private Semaphore[] go;
+	//Released by each worker when it has done its share of a round
+	private Semaphore done;
+	private Task[] workers;
+	//Set once the benchmark is over
+	private volatile boolean isStopping;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		String[] parts = setup.split("[:x]");
+		if (parts.length!=3) {
+			throw new IllegalArgumentException("Cannot understand the setup: " + setup + " (expected channel:NxM)");
+		}
+		ChannelType type = ChannelType.valueOf(parts[0]);
+		int producers = Integer.parseInt(parts[1]);
+		int consumers = Integer.parseInt(parts[2]);
+		if (producers<1 || consumers<1 || MESSAGES%producers!=0 || MESSAGES%consumers!=0) {
+			throw new IllegalArgumentException("Cannot share " + MESSAGES + " messages between " + producers + " producers and " +
+					consumers + " consumers");
+		}
+		if ((producers>1 && !type.allowsManyWriters()) || (consumers>1 && !type.allowsManyReaders())) {
+			throw new IllegalArgumentException("A " + type + " channel cannot have " + producers + " producers and " + consumers + " consumers");
+		}
+		messages = type.make();
+		done = new Semaphore(0);
+		isStopping = false;
+		go = new Semaphore[producers+consumers];
+		workers = new Task[producers+consumers];
+		for (int i=0; i<producers+consumers; i++) {
+			go[i] = new Semaphore(0);
+			workers[i] = ThreadScheduler.INSTANCE.makeTask(i<producers ? producer(go[i],MESSAGES/producers) :
+				consumer(go[i],MESSAGES/consumers),true);
+			ThreadScheduler.INSTANCE.schedule(workers[i]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		isStopping = true;
+		close(messages);
+		for (int i=0; i<workers.length; i++) {
+			go[i].release();
+		}
+		for (Task worker : workers) {
+			ThreadScheduler.INSTANCE.deschedule(worker);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public void transfer() {
+		for (Semaphore worker : go) {
+			worker.release();
+		}
+		done.acquireUninterruptibly(go.length);
+	}
+
+	private Runnable producer(final Semaphore start, final int share) {
+		return new Runnable() {public void run() {
+			try {
+				while (true) {
+					start.acquireUninterruptibly();
+					if (isStopping) {
+						return;
+					}
+					for (int i=0; i<share; i++) {
+						write(messages,i);
+					}
+					done.release();
+				}
+			} catch (ChannelClosed e) {
+				//Done
+			}
+		}};
+	}
+
+	private Runnable consumer(final Semaphore start, final int share) {
+		return new Runnable() {public void run() {
+			try {
+				while (true) {
+					start.acquireUninterruptibly();
+					if (isStopping) {
+						return;
+					}
+					for (int i=0; i<share; i++) {
+						read(messages);
+					}
+					done.release();
+				}
+			} catch (ChannelClosed e) {
+				//Done
+			}
+		}};
+	}
+}
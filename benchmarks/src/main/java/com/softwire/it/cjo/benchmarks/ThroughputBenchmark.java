@@ -0,0 +1,93 @@
+package com.softwire.it.cjo.benchmarks;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.Channel;
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Measures the one way throughput of a channel: the benchmark writes a batch of messages as fast as it can to a
+ * consumer process, and then waits for the consumer to have read the whole batch. Waiting for the batch means the
+ * asynchronous channels are measured end to end, rather than just how fast their buffers can grow.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend={"-Dlog4j.configuration=benchmark-log4j.properties"})
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+	/**
+	 * The number of messages in a batch
+	 */
+	public static final int BATCH = 1000;
+	@Param({"OneOne","OneMany","ManyOne","ManyMany","AsyncOne","AsyncMany","BufferOne","BufferMany"})
+	public ChannelType channel;
+	private Channel<Integer> messages;
+	//Released once per batch read
+	private Semaphore batchRead;
+	//The consumer process
+	private Task consumer;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		messages = channel.make();
+		batchRead = new Semaphore(0);
+		final Channel<Integer> in = messages;
+		final Semaphore done = batchRead;
+		consumer = ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			try {
+				while (true) {
+					for (int i=0; i<BATCH; i++) {
+						read(in);
+					}
+					done.release();
+				}
+			} catch (ChannelClosed e) {
+				//Done
+			}
+		}},true);
+		ThreadScheduler.INSTANCE.schedule(consumer);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		close(messages);
+		ThreadScheduler.INSTANCE.deschedule(consumer);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void oneWay() {
+		for (int i=0; i<BATCH; i++) {
+			write(messages,i);
+		}
+		batchRead.acquireUninterruptibly();
+	}
+}
@@ -0,0 +1,201 @@
+package mjb.dev.cjo.channels;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.ChannelFullException;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This abstract class holds the logic shared by the asynchronous channels.<br>
+ * An asynchronous channel may be given a capacity (the high water mark for its buffer) and an overflow
+ * policy which decides what happens to writers once the buffer is full. Without a capacity, the buffer is unbounded
+ * and writers never wait.<br>
+ * The channel counts how many messages have been dropped, how many writers had to wait, and how many writers were refused,
+ * so you can tell when your readers are falling behind.
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public abstract class AbstractAsyncChannel<Message> extends AbstractChannel<Message> {
+	/*
+	 * Notes to self:
+	 *
+	 * Like the buffered channels, the super classes list of writers is the actual buffer, holding
+	 * dummy writers. Real writers wait in our own queue until the overflow policy decides their fate.
+	 */
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers that need to be told to leave, since it is asynchronous...
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//The most messages that can be held by this channel
+	private final int capacity;
+	//What to do when the buffer is full
+	private final OverflowPolicy policy;
+	//The counters (only written while the lock is held, but read by anyone)
+	private volatile long droppedMessages;
+	private volatile long blockedWriters;
+	private volatile long rejectedWriters;
+
+	/**
+	 * Construct a new asynchronous channel with an unbounded buffer
+	 */
+	public AbstractAsyncChannel() {
+		this(Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Construct a new asynchronous channel with a bounded buffer
+	 * @param capacity - the most messages that can be held in the buffer before the overflow policy applies
+	 * @param policy - what to do with a new message when the buffer is full
+	 * @throws IllegalArgumentException - if the capacity is less than one or the policy is null
+	 */
+	public AbstractAsyncChannel(int capacity, OverflowPolicy policy) {
+		super();
+		if (capacity<1) {
+			throw new IllegalArgumentException("Cannot construct an asynchronous channel with a capacity: " + capacity + " (less than one)");
+		}
+		if (policy==null) {
+			throw new IllegalArgumentException("Cannot construct an asynchronous channel without an overflow policy");
+		}
+		this.capacity = capacity;
+		this.policy = policy;
+		hasClosed = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		droppedMessages = 0;
+		blockedWriters = 0;
+		rejectedWriters = 0;
+	}
+
+	/**
+	 * @throws ChannelFullException - if the buffer is full and the overflow policy is to fail
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Will this writer find a full buffer? (If there is a reader, the buffer must be empty)
+		if (!super.hasReader() && super.getNumberOfWriters()+waitingWriters.size()>=capacity) {
+			if (policy==OverflowPolicy.FAIL) {
+				rejectedWriters++;
+				throw new ChannelFullException(this, capacity);
+			} else if (policy==OverflowPolicy.BLOCK) {
+				blockedWriters++;
+			}
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(writer);
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		//Remove it from the asynchronous queue too.
+		waitingWriters.remove(writer);
+		//It is impossible for a real writer to have entered the super classes queue.
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		//Firstly, flush out the readers with the buffer as much as possible...
+		super.completeWriterReaderInteractions(manipulator);
+		//Either there are no readers left, or the buffer is empty... Perform our interactions with fresh writers
+		while (super.hasReader() && !waitingWriters.isEmpty()) {
+			WaitingReader<Message> reader = super.getNextReader();
+			WaitingWriter<Message> writer = waitingWriters.dequeue();
+			reader.writerArrived(writer.getMessage(), manipulator);
+			writer.readerArrived(manipulator);
+		}
+		//Now fill the buffer, respecting the overflow policy
+		while (!waitingWriters.isEmpty()) {
+			if (super.getNumberOfWriters()<capacity) {
+				WaitingWriter<Message> writer = waitingWriters.dequeue();
+				super.registerWriter(new DummyWaitingWriter<Message>(writer.getMessage()));
+				writer.readerArrived(manipulator); //a bit of a lie...
+			} else if (policy==OverflowPolicy.DROP_NEWEST) {
+				waitingWriters.dequeue().readerArrived(manipulator); //the message is lost
+				droppedMessages++;
+			} else if (policy==OverflowPolicy.DROP_OLDEST) {
+				super.getNextWriter(); //make room
+				droppedMessages++;
+			} else {
+				//Blocked writers (or anyone who slipped past a fail fast check) wait for room
+				break;
+			}
+		}
+		//Nothing may have happened above, but that's OK!
+		if (hasClosed) {
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			//Clear out our own blocked writers..
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return super.getNumberOfWriters();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the most messages this channel will buffer (Integer.MAX_VALUE if unbounded)
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return - what this channel does with a new message when its buffer is full
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return - the number of messages thrown away by this channel because its buffer was full
+	 */
+	public long getDroppedMessages() {
+		return droppedMessages;
+	}
+
+	/**
+	 * @return - the number of writers who had to wait because the buffer was full
+	 */
+	public long getBlockedWriters() {
+		return blockedWriters;
+	}
+
+	/**
+	 * @return - the number of writers refused with a ChannelFullException
+	 */
+	public long getRejectedWriters() {
+		return rejectedWriters;
+	}
+}
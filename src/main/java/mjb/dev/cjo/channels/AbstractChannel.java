@@ -1,6 +1,7 @@
 package mjb.dev.cjo.channels;
 
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.metrics.ChannelMetrics;
 import mjb.dev.cjo.operators.Channel;
 import mjb.dev.cjo.parallelresources.ResourceManipulator;
 
@@ -33,19 +34,33 @@ public abstract class AbstractChannel<Message> extends Channel<Message> {
 	
 	@Override
 	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		ChannelMetrics metrics = getMetricsProtected();
+		if (metrics!=null) {
+			metrics.queued(reader);
+		}
 		return readers.enqueue(reader);
 	}
 	
 	@Override
 	protected void deregisterReader(Crate<WaitingReader<Message>> reader) {
-		readers.remove(reader);
+		if (readers.remove(reader)) {
+			ChannelMetrics metrics = getMetricsProtected();
+			if (metrics!=null) {
+				metrics.readerDequeued(reader.getObject());
+			}
+		}
 	}
 	
 	/**
 	 * @return - the reader to read the next message from the channel, which has been deregistered automatically
 	 */
 	protected WaitingReader<Message> getNextReader() {
-		return readers.dequeue();
+		WaitingReader<Message> reader = readers.dequeue();
+		ChannelMetrics metrics = getMetricsProtected();
+		if (metrics!=null) {
+			metrics.readerDequeued(reader);
+		}
+		return reader;
 	}
 	
 	/**
@@ -64,19 +79,33 @@ public abstract class AbstractChannel<Message> extends Channel<Message> {
 	
 	@Override
 	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		ChannelMetrics metrics = getMetricsProtected();
+		if (metrics!=null) {
+			metrics.queued(writer);
+		}
 		return writers.enqueue(writer);
 	}
 	
 	@Override
 	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
-		writers.remove(writer);
+		if (writers.remove(writer)) {
+			ChannelMetrics metrics = getMetricsProtected();
+			if (metrics!=null) {
+				metrics.writerDequeued(writer.getObject());
+			}
+		}
 	}
 	
 	/**
 	 * @return - the writer to pass the next message down the channel, which has been deregistered automatically
 	 */
 	protected WaitingWriter<Message> getNextWriter() {
-		return writers.dequeue();
+		WaitingWriter<Message> writer = writers.dequeue();
+		ChannelMetrics metrics = getMetricsProtected();
+		if (metrics!=null) {
+			metrics.writerDequeued(writer);
+		}
+		return writer;
 	}
 	
 	/**
@@ -94,6 +123,23 @@ public abstract class AbstractChannel<Message> extends Channel<Message> {
 		return writers.size()!=0;
 	}
 	
+	/**
+	 * @return - the number of readers in this channel's queue
+	 */
+	@Override
+	protected int getWaitingReadersForMetrics() {
+		return readers.size();
+	}
+	
+	/**
+	 * @return - the number of writers in this channel's queue (channels which keep their buffer in this queue
+	 * should override this and {@link #getBufferedMessagesForMetrics()})
+	 */
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return writers.size();
+	}
+	
 	/**
 	 * Tell all waiting readers and writers that they are to leave because the channel
 	 * has closed. This empties the readers and writers queue
@@ -3,7 +3,6 @@ package mjb.dev.cjo.channels;
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.channels.exceptions.RegistrationException;
-import mjb.dev.cjo.parallelresources.ResourceManipulator;
 /**
  * ****************<br>
  * Date: 18/03/2014<br>
@@ -13,40 +12,29 @@ import mjb.dev.cjo.parallelresources.ResourceManipulator;
  * An asynchronous one channel allows for one reader but many writers at a time. If any more than this are detected,
  * it will throw an exception.<br>
  * Reading and writing on an asynchronous one channel is asynchronous - that is, writers will never have to wait on the channel.<br>
- * Beware of filling a channel, as it will eat all of your memory...<br>
+ * Beware of filling a channel, as it will eat all of your memory... unless you give it a capacity and an
+ * {@link OverflowPolicy}.<br>
  * Fairness guaranteed!
  * 
  * @param <Message> - the type of message sent down this channel
  */
-public class AsyncOneChannel<Message> extends AbstractChannel<Message> {
-	//Store how much the channel has been closed
-	private boolean hasClosed;
-	//Store the writers that need to be told to leave, since it is asynchronous...
-	private ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+public class AsyncOneChannel<Message> extends AbstractAsyncChannel<Message> {
 	
 	/**
-	 * Construct a new asynchronous one channel
+	 * Construct a new asynchronous one channel with an unbounded buffer
 	 */
 	public AsyncOneChannel() {
 		super();
-		hasClosed = false;
-		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
 	}
 	
-	@Override
-	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
-		if (hasClosed) {
-			throw new ChannelClosed(this);
-		}
-		//Remember to release this writer.
-		return waitingWriters.enqueue(writer);
-	}
-	
-	@Override
-	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
-		//Remove it from the asynchronous queue too.
-		waitingWriters.remove(writer);
-		//It is impossible for a real writer to have entered the super classes queue.
+	/**
+	 * Construct a new asynchronous one channel with a bounded buffer
+	 * @param capacity - the most messages that can be held in the buffer before the overflow policy applies
+	 * @param policy - what to do with a new message when the buffer is full
+	 * @throws IllegalArgumentException - if the capacity is less than one or the policy is null
+	 */
+	public AsyncOneChannel(int capacity, OverflowPolicy policy) {
+		super(capacity,policy);
 	}
 	
 	/**
@@ -55,7 +43,7 @@ public class AsyncOneChannel<Message> extends AbstractChannel<Message> {
 	 */
 	@Override
 	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
-		if (hasClosed) {
+		if (isClosed()) {
 			throw new ChannelClosed(this);
 		}
 		if (super.hasReader()) {
@@ -77,29 +65,4 @@ public class AsyncOneChannel<Message> extends AbstractChannel<Message> {
 	protected void closeReadEndProtected() {
 		closeProtected();
 	}
-
-	@Override
-	protected void closeProtected() {
-		hasClosed = true;
-	}
-
-	@Override
-	protected void update(ResourceManipulator manipulator) {
-		//Firstly, flush the asynchronous pool...
-		while (waitingWriters.size()>0) {
-			WaitingWriter<Message> writer = waitingWriters.dequeue();
-			super.registerWriter(new DummyWaitingWriter<Message>(writer.getMessage()));
-			writer.readerArrived(manipulator); //a bit of a lie...
-		}
-		//Complete the interactions...
-		super.completeWriterReaderInteractions(manipulator);
-		if (hasClosed) {
-			super.clearOutWaitingReadersAndWriters(manipulator);
-		}
-	}
-	
-	@Override
-	public boolean isClosed() {
-		return hasClosed;
-	}
 }
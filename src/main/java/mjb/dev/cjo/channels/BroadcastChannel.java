@@ -0,0 +1,338 @@
+package mjb.dev.cjo.channels;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.parallelresources.Resource;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A broadcast channel delivers every message written to it to every subscriber.<br>
+ * You write to the broadcast channel itself (any number of writers), and read from a {@link Subscription} made by
+ * {@link #subscribe()} (any number of readers on each subscription, with each message read once per subscription).
+ * Reading from the broadcast channel directly will throw a registration exception.<br>
+ * <br>
+ * Messages are kept once in a ring shared by all of the subscriptions, and each subscription has its own cursor
+ * into the ring, so a write costs the same however many subscribers there are. Writing is asynchronous until the slowest
+ * subscription is a whole ring behind, at which point writers wait for it.<br>
+ * Subscriptions can come and go at any time. A new subscription sees messages written after it subscribed. Closing a subscription
+ * leaves the broadcast (so remember to close subscriptions you no longer read from, or they will hold up the writers!).
+ * Closing the broadcast channel closes every subscription. Messages written with no subscribers go nowhere.<br>
+ * Fairness guaranteed!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class BroadcastChannel<Message> extends AbstractChannel<Message> {
+	/*
+	 * Notes to self:
+	 *
+	 * The broadcast and all its subscriptions are tied together in the resource graph, so holding
+	 * any one of them holds them all. Everything happens in updateAll, whoever called it.
+	 */
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers waiting for room in the ring
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//The ring
+	private final Object[] ring;
+	//The sequence number of the next message written, and of the oldest message still in the ring
+	private long writeSequence;
+	private long oldestSequence;
+	//Everyone listening
+	private final List<Subscription<Message>> subscriptions;
+
+	/**
+	 * Construct a new broadcast channel
+	 * @param capacity - the number of messages the slowest subscription may fall behind before writers must wait
+	 * @throws IllegalArgumentException - if the capacity is less than one
+	 */
+	public BroadcastChannel(int capacity) {
+		super();
+		if (capacity<1) {
+			throw new IllegalArgumentException("Cannot construct a broadcast channel with a capacity: " + capacity + " (less than one)");
+		}
+		ring = new Object[capacity];
+		writeSequence = 0;
+		oldestSequence = 0;
+		hasClosed = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		subscriptions = new ArrayList<Subscription<Message>>();
+	}
+
+	/**
+	 * Join the broadcast
+	 * @return - a new subscription, which will receive every message written from now on
+	 * @throws ChannelClosed - if the broadcast channel has been closed
+	 */
+	public Subscription<Message> subscribe() {
+		Subscription<Message> subscription = new Subscription<Message>(this);
+		Set<Resource> resources = new HashSet<Resource>();
+		resources.add(getResource());
+		resources.add(subscription.resource());
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResources(resources);
+		try {
+			if (hasClosed) {
+				throw new ChannelClosed(this);
+			}
+			manipulator.addDependency(getResource(),subscription.resource());
+			subscription.cursor = writeSequence;
+			subscriptions.add(subscription);
+		} finally {
+			manipulator.releaseResources();
+		}
+		return subscription;
+	}
+
+	/**
+	 * @throws RegistrationException - always. Read from a subscription instead!
+	 */
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		throw new RegistrationException("Cannot read from a broadcast channel directly - subscribe to it first");
+	}
+
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(writer);
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		waitingWriters.remove(writer);
+	}
+
+	/**
+	 * Completely closes a broadcast channel (and all of its subscriptions)
+	 */
+	@Override
+	protected void closeWriteEndProtected() {
+		closeProtected();
+	}
+
+	/**
+	 * Completely closes a broadcast channel (and all of its subscriptions)
+	 */
+	@Override
+	protected void closeReadEndProtected() {
+		closeProtected();
+	}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		updateAll(manipulator);
+	}
+
+	/*
+	 * Bring the broadcast and every subscription up to date
+	 */
+	@SuppressWarnings("unchecked")
+	private void updateAll(ResourceManipulator manipulator) {
+		//Let go of anyone leaving
+		Iterator<Subscription<Message>> iterator = subscriptions.iterator();
+		while (iterator.hasNext()) {
+			Subscription<Message> subscription = iterator.next();
+			if (hasClosed || subscription.hasLeft) {
+				iterator.remove();
+				subscription.hasLeft = true;
+				subscription.isDetached = true;
+				manipulator.removeDependency(getResource(),subscription.resource());
+				subscription.clearOut(manipulator);
+			}
+		}
+		boolean progress = true;
+		while (progress && !hasClosed) {
+			progress = false;
+			//Deliver what we have
+			long slowest = writeSequence;
+			for (Subscription<Message> subscription : subscriptions) {
+				while (subscription.hasReader() && subscription.cursor<writeSequence) {
+					Message message = (Message)ring[(int)(subscription.cursor % ring.length)];
+					subscription.cursor++;
+					subscription.getNextReader().writerArrived(message,manipulator);
+				}
+				slowest = Math.min(slowest,subscription.cursor);
+			}
+			//Forget what everyone has read
+			while (oldestSequence<slowest) {
+				ring[(int)(oldestSequence % ring.length)] = null;
+				oldestSequence++;
+			}
+			//Write whatever will fit
+			while (!waitingWriters.isEmpty() && writeSequence-oldestSequence<ring.length) {
+				WaitingWriter<Message> writer = waitingWriters.dequeue();
+				if (!subscriptions.isEmpty()) {
+					ring[(int)(writeSequence % ring.length)] = writer.getMessage();
+					writeSequence++;
+					progress = true;
+				} else {
+					//No one to hear it
+					writeSequence++;
+					oldestSequence++;
+				}
+				writer.readerArrived(manipulator); //a bit of a lie...
+			}
+		}
+		if (hasClosed) {
+			for (int i=0; i<ring.length; i++) {
+				ring[i] = null;
+			}
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return (int)(writeSequence-oldestSequence);
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the number of messages the slowest subscription may fall behind before writers must wait
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * A subscription to a broadcast channel, with its own place in the broadcast. Read from it like any other channel
+	 * (but don't write to it). Close it to leave the broadcast.
+	 *
+	 * @param <Message> - the type of message sent down this channel
+	 */
+	public static final class Subscription<Message> extends AbstractChannel<Message> {
+		private final BroadcastChannel<Message> broadcast;
+		//The sequence number of the next message to read
+		private long cursor;
+		//True once the subscription has been closed
+		private boolean hasLeft;
+		//True once the broadcast has let go of this subscription (after which its lock no longer covers the broadcast)
+		private boolean isDetached;
+
+		private Subscription(BroadcastChannel<Message> broadcast) {
+			super();
+			this.broadcast = broadcast;
+			cursor = 0;
+			hasLeft = false;
+			isDetached = false;
+		}
+
+		@Override
+		protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+			if (isClosed()) {
+				throw new ChannelClosed(this);
+			}
+			return super.registerReader(reader);
+		}
+
+		/**
+		 * @throws RegistrationException - always. Write to the broadcast channel instead!
+		 */
+		@Override
+		protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+			if (isClosed()) {
+				throw new ChannelClosed(this);
+			}
+			throw new RegistrationException("Cannot write to a subscription - write to the broadcast channel instead");
+		}
+
+		/**
+		 * Leaves the broadcast
+		 */
+		@Override
+		protected void closeWriteEndProtected() {
+			closeProtected();
+		}
+
+		/**
+		 * Leaves the broadcast
+		 */
+		@Override
+		protected void closeReadEndProtected() {
+			closeProtected();
+		}
+
+		@Override
+		protected void closeProtected() {
+			hasLeft = true;
+		}
+
+		@Override
+		protected void update(ResourceManipulator manipulator) {
+			if (!isDetached) {
+				broadcast.updateAll(manipulator);
+			} else {
+				clearOut(manipulator);
+			}
+		}
+
+		@Override
+		public boolean isClosed() {
+			return hasLeft || broadcast.hasClosed;
+		}
+
+		/**
+		 * @return - the number of messages written to the broadcast which this subscription has not read yet
+		 * (only accurate while no one is using the channel)
+		 */
+		public long getLag() {
+			return hasLeft ? 0 : broadcast.writeSequence-cursor;
+		}
+
+		/**
+		 * @return - the broadcast channel this subscription belongs to
+		 */
+		public BroadcastChannel<Message> getBroadcast() {
+			return broadcast;
+		}
+
+		//For the broadcast channel, which cannot reach these protected methods itself
+		private Resource resource() {
+			return getResource();
+		}
+
+		private void clearOut(ResourceManipulator manipulator) {
+			clearOutWaitingReadersAndWriters(manipulator);
+		}
+	}
+}
@@ -116,7 +116,7 @@ public class BufferManyChannel<Message> extends AbstractChannel<Message> {
 		}
 		//Nothing may have happened above, but that's OK!
 		if (hasClosed) {
-			super.clearOutWaitingReadersAndWriters(manipulator);
+			clearOutWaitingReadersAndWriters(manipulator);
 			//Clear out our own buffered writers..
 			while (!waitingWriters.isEmpty()) {
 				waitingWriters.dequeue().channelClosed(manipulator); //go!!
@@ -124,8 +124,25 @@ public class BufferManyChannel<Message> extends AbstractChannel<Message> {
 		}
 	}
 	
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return super.getNumberOfWriters();
+	}
+
 	@Override
 	public boolean isClosed() {
 		return hasClosed;
 	}
+	
+	/**
+	 * @return - the number of messages that can be asynchronously written to this channel
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
 }
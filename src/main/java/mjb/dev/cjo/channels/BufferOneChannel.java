@@ -137,8 +137,25 @@ public class BufferOneChannel<Message> extends AbstractChannel<Message> {
 		}
 	}
 	
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return super.getNumberOfWriters();
+	}
+
 	@Override
 	public boolean isClosed() {
 		return hasClosed;
 	}
+	
+	/**
+	 * @return - the number of messages that can be asynchronously written to this channel
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
 }
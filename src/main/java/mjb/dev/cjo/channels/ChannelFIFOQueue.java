@@ -28,15 +28,20 @@ public final class ChannelFIFOQueue<T> {
      * (We need the extra structure to manage O(1) removal)<br>
      * Externally, you can only pass these around or view the object held inside
      * <br>
-     * The crate uses reference equality.
+     * The crate uses reference equality.<br>
+     * <br>
+     * An object can also be its own crate, by extending this class with the protected constructor. The queue then
+     * links the object in directly when it is enqueued, rather than allocating a new crate for it.
+     * Such a crate can only be in one queue at a time. If it is enqueued while it is already in a queue, the queue
+     * falls back to allocating an ordinary crate (so nothing breaks, it is just slower).
 	 *
 	 */
-	public static final class Crate<T> {
+	public static class Crate<T> {
 		private Crate<T> previous,next;
 		private final T heldObj;
 		private boolean removed;
-		//Which queue this crate is a part of
-		private final ChannelFIFOQueue<T> owner;
+		//Which queue this crate is a part of (null if an intrusive crate that is not in any queue)
+		private ChannelFIFOQueue<T> owner;
 		/*
 		 * Note to self:
 		 * 
@@ -52,6 +57,26 @@ public final class ChannelFIFOQueue<T> {
 			this.owner = owner;
 		}
 		
+		/**
+		 * Construct an intrusive crate, which holds itself. Only use this when extending the crate with a class that is
+		 * also a T!
+		 */
+		@SuppressWarnings("unchecked")
+		protected Crate() {
+			this.heldObj = (T)this;
+			this.previous = null;
+			this.next = null;
+			removed = true;
+			this.owner = null;
+		}
+		
+		/**
+		 * @return - true iff this crate is currently in a queue (useful for intrusive crates deciding if they can be reused)
+		 */
+		protected final boolean isQueued() {
+			return owner!=null && !removed;
+		}
+		
 		/**
 		 * @return - get the object held within this crate
 		 */
@@ -60,6 +85,10 @@ public final class ChannelFIFOQueue<T> {
 		}
 		
 		public String toString() {
+			if (heldObj==this) {
+				//Don't recurse if the object didn't override toString itself...
+				return "Crate:[" + getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(this)) + "]";
+			}
 			return "Crate:[" + heldObj.toString() + "]";
 		}
 	}
@@ -89,7 +118,15 @@ public final class ChannelFIFOQueue<T> {
 	 * @return - the crate the object has been put in.
 	 */
 	public Crate<T> enqueue(T object) {
-		Crate<T> crate = new Crate<T>(dummyHead,dummyHead.next,object,this);
+		Crate<T> crate = freeIntrusiveCrate(object);
+		if (crate!=null) {
+			crate.previous = dummyHead;
+			crate.next = dummyHead.next;
+			crate.removed = false;
+			crate.owner = this;
+		} else {
+			crate = new Crate<T>(dummyHead,dummyHead.next,object,this);
+		}
 		//Correct the head...
 		dummyHead.next.previous = crate;
 		dummyHead.next = crate;
@@ -109,11 +146,22 @@ public final class ChannelFIFOQueue<T> {
 		Crate<T> crate = dummyTail.previous;
 		dummyTail.previous.previous.next = dummyTail;
 		dummyTail.previous = dummyTail.previous.previous;
-		crate.removed = true;
+		unlinked(crate);
 		size--;
 		return crate.getObject();
 	}
 	
+	/**
+	 * @return - the item at the front of the FIFO queue, without removing it
+	 * @throws EmptyFIFOQueueException - if the queue was empty
+	 */
+	public T peek() {
+		if (isEmpty()) {
+			throw new EmptyFIFOQueueException();
+		}
+		return dummyTail.previous.getObject();
+	}
+	
 	/**
 	 * @param crate - the crate to remove from the FIFO queue... (if it does not exist in the queue, this has no effect)
 	 * @return true iff the crate was removed
@@ -124,7 +172,7 @@ public final class ChannelFIFOQueue<T> {
 		}
 		crate.next.previous = crate.previous;
 		crate.previous.next = crate.next;
-		crate.removed = true;
+		unlinked(crate);
 		size--;
 		//That should be it...
 		return true;
@@ -151,5 +199,31 @@ public final class ChannelFIFOQueue<T> {
 	public boolean isEmpty() {
 		return size==0;
 	}
+	
+	/*
+	 * If the object is an intrusive crate which is not in any queue, return it (otherwise null)
+	 */
+	@SuppressWarnings("unchecked")
+	private Crate<T> freeIntrusiveCrate(T object) {
+		if (object instanceof Crate) {
+			Crate<?> crate = (Crate<?>)object;
+			if (crate.heldObj==crate && crate.owner==null) {
+				return (Crate<T>)crate; //it holds itself, so it really is a crate of T
+			}
+		}
+		return null;
+	}
+	
+	/*
+	 * Mark a crate as no longer in this queue (and let go of the links so intrusive crates can be reused)
+	 */
+	private void unlinked(Crate<T> crate) {
+		crate.removed = true;
+		if (crate.heldObj==crate) {
+			crate.previous = null;
+			crate.next = null;
+			crate.owner = null;
+		}
+	}
 
 }
@@ -0,0 +1,190 @@
+package mjb.dev.cjo.channels;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.utilities.Function;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A conflating channel allows for many readers and many writers at a time, and only cares about the latest value.<br>
+ * Writers never wait. Each message written replaces the one still waiting to be read (if any), so a reader always
+ * receives the freshest value and a slow reader never falls behind.<br>
+ * Given a key function, messages only replace waiting messages with the same key, so you get the latest value for each key.
+ * Keys are read in the order they first started waiting (a key keeps its place in line when its value is replaced).<br>
+ * The number of messages replaced before anyone read them is counted in {@link #getConflatedMessages()}.<br>
+ * Fairness guaranteed (for readers)!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class ConflatingChannel<Message> extends AbstractChannel<Message> {
+	//Used as the key for every message when there is no key function
+	private static final Object ONLY_KEY = new Object();
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers that need to be told to leave, since it is asynchronous...
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//Works out the key of each message (or null if there are no keys)
+	private final Function<Message,?> keyFunction;
+	//The latest message for each key
+	private final LinkedHashMap<Object,Message> latest;
+	//The number of messages replaced (only written while the lock is held)
+	private volatile long conflatedMessages;
+
+	/**
+	 * Construct a new conflating channel holding a single latest value
+	 */
+	public ConflatingChannel() {
+		this(null);
+	}
+
+	/**
+	 * Construct a new conflating channel holding the latest value for each key
+	 * @param keyFunction - works out the key of a message. It is evaluated while the channel is locked, so keep it simple
+	 * (and don't use any channels in it!). If it throws, the writer is refused with a {@link RegistrationException} (with
+	 * the problem as the cause). If null, all messages share a single key.
+	 */
+	public ConflatingChannel(Function<Message,?> keyFunction) {
+		super();
+		this.keyFunction = keyFunction;
+		hasClosed = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		latest = new LinkedHashMap<Object,Message>();
+		conflatedMessages = 0;
+	}
+
+	/**
+	 * @throws RegistrationException - if the key function fails on the message
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Work out the key now, so a bad message can't be stranded in the queue
+		Object key;
+		try {
+			key = keyFunction==null ? ONLY_KEY : keyFunction.eval(writer.getMessage());
+		} catch (RuntimeException e) {
+			RegistrationException exception = new RegistrationException("The key function failed on a message written to a conflating channel");
+			exception.initCause(e);
+			throw exception;
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(new KeyedWaitingWriter<Message>(writer,key));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		waitingWriters.remove(writer);
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Has no effect on a conflating channel
+	 */
+	@Override
+	protected void closeWriteEndProtected() {}
+
+	/**
+	 * Has no effect on a conflating channel
+	 */
+	@Override
+	protected void closeReadEndProtected() {}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		//Take in the fresh writers
+		while (!hasClosed && !waitingWriters.isEmpty()) {
+			KeyedWaitingWriter<Message> writer = (KeyedWaitingWriter<Message>)waitingWriters.dequeue();
+			Message message = writer.getMessage();
+			if (super.hasReader() && latest.isEmpty()) {
+				//Straight through
+				super.getNextReader().writerArrived(message,manipulator);
+			} else {
+				Object key = writer.key;
+				if (latest.containsKey(key)) {
+					conflatedMessages++;
+				}
+				latest.put(key,message); //keeps its place if already there
+			}
+			writer.readerArrived(manipulator);
+		}
+		//Hand out the latest values
+		Iterator<Map.Entry<Object,Message>> iterator = latest.entrySet().iterator();
+		while (!hasClosed && super.hasReader() && iterator.hasNext()) {
+			Message message = iterator.next().getValue();
+			iterator.remove();
+			super.getNextReader().writerArrived(message,manipulator);
+		}
+		if (hasClosed) {
+			latest.clear();
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return latest.size();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the number of messages replaced by a newer message before anyone read them
+	 */
+	public long getConflatedMessages() {
+		return conflatedMessages;
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * A writer together with the key of its message.
+	 *
+	 * @param <Message> - the types of messages being written by this writer
+	 */
+	private static final class KeyedWaitingWriter<Message> extends ForwardingWaitingWriter<Message> {
+		private final Object key;
+
+		public KeyedWaitingWriter(WaitingWriter<Message> writer, Object key) {
+			super(writer);
+			this.key = key;
+		}
+	}
+}
@@ -9,12 +9,12 @@ import mjb.dev.cjo.parallelresources.ResourceManipulator;
  * ****************<br>
  * <br>
  * This class represents writer who just holds a message, and doesn't really care about anything else...<br>
- * It is used by asynchronous channels.<br>
+ * It is used by asynchronous channels. It is its own crate, so buffering a message only allocates this writer.<br>
  * 
  * @param <Message> - the types of messages being written by this writer
  *
  */
-class DummyWaitingWriter<Message> implements WaitingWriter<Message> {
+class DummyWaitingWriter<Message> extends ChannelFIFOQueue.Crate<WaitingWriter<Message>> implements WaitingWriter<Message> {
 	private Message message;
 	/**
 	 * @param message - the message to return (as an implementor, try to get this at the time a writer would normally
@@ -0,0 +1,195 @@
+package mjb.dev.cjo.channels;
+
+import java.io.File;
+import java.io.IOException;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.ChannelStorageException;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.channels.storage.SegmentLog;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A durable channel allows for any number of readers and writers at a time, and keeps its buffer in a
+ * {@link SegmentLog} of memory mapped files rather than in the heap.<br>
+ * Writing is asynchronous, but a writer is only released once its message has been stored in the log, so anything
+ * written survives the process dying. Opening a new durable channel on the same directory will replay every message
+ * that was not read.<br>
+ * A message counts as read as soon as it is handed to a reader. If a reader is already waiting when a message is written
+ * (and nothing is stored), the message is handed over directly without touching the disk.<br>
+ * <br>
+ * Messages are stored with a {@link MessageSerializer}. If a message cannot be serialized, the writer is refused
+ * with a {@link ChannelStorageException}. If a stored message cannot be deserialized, it is logged and skipped.
+ * If the log itself fails, the channel closes.<br>
+ * Closing the channel closes the log, but the messages stored are kept for next time.<br>
+ * Fairness guaranteed!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class DurableChannel<Message> extends AbstractChannel<Message> {
+	private static final Logger logger = Logger.getLogger(DurableChannel.class);
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers that need to be told to leave, since it is asynchronous...
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//Where the messages really live
+	private final SegmentLog log;
+	private final MessageSerializer<Message> serializer;
+
+	/**
+	 * Construct a new durable channel, recovering any messages left in the directory
+	 * @param directory - the directory to keep the messages in
+	 * @param serializer - the serializer used to store messages
+	 * @param segmentSize - the size of each segment file in bytes
+	 * @param force - true iff each message should be forced to the disk before its writer is released (protects against
+	 * the machine failing as well as the process, but is much slower)
+	 * @throws IOException - if the log could not be opened (for example, if another channel is using the directory)
+	 * @throws IllegalArgumentException - if the serializer is null or the segment size is too small
+	 */
+	public DurableChannel(File directory, MessageSerializer<Message> serializer, int segmentSize, boolean force) throws IOException {
+		super();
+		if (serializer==null) {
+			throw new IllegalArgumentException("Cannot construct a durable channel without a serializer");
+		}
+		this.serializer = serializer;
+		this.log = new SegmentLog(directory,segmentSize,force);
+		hasClosed = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+	}
+
+	/**
+	 * Construct a new durable channel with the default segment size and without forced writes,
+	 * recovering any messages left in the directory
+	 * @param directory - the directory to keep the messages in
+	 * @param serializer - the serializer used to store messages
+	 * @throws IOException - if the log could not be opened (for example, if another channel is using the directory)
+	 * @throws IllegalArgumentException - if the serializer is null
+	 */
+	public DurableChannel(File directory, MessageSerializer<Message> serializer) throws IOException {
+		this(directory,serializer,SegmentLog.DEFAULT_SEGMENT_SIZE,false);
+	}
+
+	/**
+	 * @throws ChannelStorageException - if the message could not be serialized
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Serialize now, so a bad message is refused to the writer's face
+		byte[] bytes;
+		try {
+			bytes = serializer.serialize(writer.getMessage());
+		} catch (IOException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a durable channel",e);
+		} catch (RuntimeException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a durable channel",e);
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(new SerializedWaitingWriter<Message>(writer,bytes));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		//Remove it from the asynchronous queue too.
+		waitingWriters.remove(writer);
+		//It is impossible for a real writer to have entered the super classes queue.
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Has no effect on a durable channel
+	 */
+	@Override
+	protected void closeWriteEndProtected() {}
+
+	/**
+	 * Has no effect on a durable channel
+	 */
+	@Override
+	protected void closeReadEndProtected() {}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		//Firstly, store the fresh writers (or hand them straight over if nothing is stored)
+		while (!hasClosed && !waitingWriters.isEmpty()) {
+			SerializedWaitingWriter<Message> writer = (SerializedWaitingWriter<Message>)waitingWriters.dequeue();
+			if (super.hasReader() && !log.hasNext()) {
+				super.getNextReader().writerArrived(writer.getMessage(),manipulator);
+				writer.readerArrived(manipulator);
+				continue;
+			}
+			try {
+				log.append(writer.getBytes());
+			} catch (IOException e) {
+				logger.error("update: could not store a message in " + log.getDirectory() + " so the channel will close",e);
+				hasClosed = true;
+				writer.channelClosed(manipulator);
+				break;
+			}
+			writer.readerArrived(manipulator); //a bit of a lie...
+		}
+		//Now hand out the stored messages
+		while (!hasClosed && super.hasReader() && log.hasNext()) {
+			byte[] bytes;
+			try {
+				bytes = log.next();
+			} catch (IOException e) {
+				logger.error("update: could not read a message from " + log.getDirectory() + " so the channel will close",e);
+				hasClosed = true;
+				break;
+			}
+			Message message;
+			try {
+				message = serializer.deserialize(bytes);
+			} catch (Exception e) {
+				logger.error("update: could not deserialize a message from " + log.getDirectory() + " so it has been skipped",e);
+				continue;
+			}
+			super.getNextReader().writerArrived(message,manipulator);
+		}
+		if (hasClosed) {
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+			log.close(); //the messages are kept for next time
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return (int)Math.min(log.size(),Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+}
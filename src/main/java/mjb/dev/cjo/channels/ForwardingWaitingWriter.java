@@ -0,0 +1,40 @@
+package mjb.dev.cjo.channels;
+
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class wraps a real writer and passes everything on to it. Channels extend it to keep their own notes about
+ * a waiting writer (its serialized message, its key, and so on) alongside the writer in their queues.
+ *
+ * @param <Message> - the types of messages being written by this writer
+ */
+abstract class ForwardingWaitingWriter<Message> implements WaitingWriter<Message> {
+	private final WaitingWriter<Message> writer;
+
+	/**
+	 * @param writer - the real writer
+	 */
+	protected ForwardingWaitingWriter(WaitingWriter<Message> writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void channelClosed(ResourceManipulator manipulator) {
+		writer.channelClosed(manipulator);
+	}
+
+	@Override
+	public void readerArrived(ResourceManipulator manipulator) {
+		writer.readerArrived(manipulator);
+	}
+
+	@Override
+	public Message getMessage() {
+		return writer.getMessage();
+	}
+}
@@ -0,0 +1,147 @@
+package mjb.dev.cjo.channels;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The network selector owns the single thread that does all of the socket work for remote channels.<br>
+ * Anything that needs to touch a selection key must be given to {@link #execute(Runnable)}, which runs it on the
+ * selector thread. Handlers run on the selector thread too, so they must not wait on channels for long (taking a channel's
+ * lock is fine).
+ *
+ */
+final class NetworkSelector {
+	private static final Logger logger = Logger.getLogger(NetworkSelector.class);
+	//The one and only selector (made when first needed)
+	private static NetworkSelector instance = null;
+	private final Selector selector;
+	//Jobs for the selector thread
+	private final ConcurrentLinkedQueue<Runnable> tasks;
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Anything attached to a selection key registered with this selector.
+	 */
+	interface Handler {
+		/**
+		 * Called on the selector thread when the key is ready
+		 * @param key - the key which is ready
+		 */
+		public void ready(SelectionKey key);
+	}
+
+	/**
+	 * @return - the network selector, starting it if necessary
+	 * @throws IOException - if the selector could not be opened
+	 */
+	static synchronized NetworkSelector getInstance() throws IOException {
+		if (instance==null) {
+			instance = new NetworkSelector();
+		}
+		return instance;
+	}
+
+	private NetworkSelector() throws IOException {
+		selector = Selector.open();
+		tasks = new ConcurrentLinkedQueue<Runnable>();
+		ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			loop();
+		}},true));
+	}
+
+	/**
+	 * @return - the selector to register keys with (only on the selector thread!)
+	 */
+	Selector getSelector() {
+		return selector;
+	}
+
+	/**
+	 * Run a job on the selector thread as soon as possible
+	 * @param task - the job
+	 */
+	void execute(Runnable task) {
+		tasks.add(task);
+		selector.wakeup();
+	}
+
+	/*
+	 * Wait for the selector as a managed block, so a fork join scheduler is not left a thread short
+	 */
+	private void select() throws IOException {
+		final Box<IOException> failure = new Box<IOException>(null);
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+				//Set once selected
+				private boolean hasSelected = false;
+				public boolean isReleasable() {
+					return hasSelected;
+				}
+				public boolean block() {
+					try {
+						selector.select();
+					} catch (IOException e) {
+						failure.setItem(e);
+					}
+					hasSelected = true;
+					return true;
+				}
+			});
+		} catch (InterruptedException e) {
+			//Never thrown, as the blocker never throws it
+			Thread.currentThread().interrupt();
+		}
+		if (failure.getItem()!=null) {
+			throw failure.getItem();
+		}
+	}
+
+	private void loop() {
+		while (true) {
+			try {
+				select();
+			} catch (IOException e) {
+				logger.error("loop: the selector failed, so remote channels will stop working",e);
+				return;
+			}
+			Runnable task;
+			while ((task = tasks.poll())!=null) {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					logger.error("loop: a network task failed",e);
+				}
+			}
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				try {
+					if (key.isValid()) {
+						((Handler)key.attachment()).ready(key);
+					}
+				} catch (RuntimeException e) {
+					logger.error("loop: a network handler failed",e);
+				}
+			}
+		}
+	}
+}
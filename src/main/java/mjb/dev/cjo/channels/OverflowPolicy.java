@@ -0,0 +1,32 @@
+package mjb.dev.cjo.channels;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * An overflow policy decides what an asynchronous channel does with a new message once its buffer has reached
+ * its capacity (the high water mark).<br>
+ * Without a bounded buffer, a slow reader lets writers fill memory until the application dies, so choose the policy
+ * which hurts your algorithm the least!
+ *
+ */
+public enum OverflowPolicy {
+	/**
+	 * The writer waits until a reader has made room in the buffer (just like a buffered channel)
+	 */
+	BLOCK,
+	/**
+	 * The writer goes through, but its message is thrown away
+	 */
+	DROP_NEWEST,
+	/**
+	 * The writer goes through, and the oldest message in the buffer is thrown away to make room for its message
+	 */
+	DROP_OLDEST,
+	/**
+	 * The writer is refused immediately with a ChannelFullException
+	 */
+	FAIL
+}
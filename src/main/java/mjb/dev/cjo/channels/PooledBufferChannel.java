@@ -0,0 +1,57 @@
+package mjb.dev.cjo.channels;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.utilities.BufferPool;
+import mjb.dev.cjo.utilities.PooledBuffer;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A pooled buffer channel is a buffer many channel for passing {@link PooledBuffer}s (direct byte buffers borrowed from
+ * a {@link BufferPool}) between processes without copying them.<br>
+ * Writing a pooled buffer gives it to the channel, and reading it gives it to the reader, who must release it (or pass it on)
+ * when done. A writer told the channel has closed still owns its buffer.<br>
+ * Released buffers are refused, and any buffers still held by the channel when it closes are released back to their pools,
+ * so closing a channel never leaks.<br>
+ * Fairness guaranteed!
+ *
+ */
+public class PooledBufferChannel extends BufferManyChannel<PooledBuffer> {
+
+	/**
+	 * Construct a new pooled buffer channel
+	 * @param capacity - the number of buffers that can be asynchronously written to this channel
+	 * @throws IllegalArgumentException - if the capacity is negative
+	 */
+	public PooledBufferChannel(int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * @throws RegistrationException - if the buffer written has been released, or is null
+	 */
+	@Override
+	protected Crate<WaitingWriter<PooledBuffer>> registerWriter(WaitingWriter<PooledBuffer> writer) {
+		PooledBuffer buffer = writer.getMessage();
+		if (buffer==null || buffer.isReleased()) {
+			throw new RegistrationException("Cannot write a released (or null) buffer to a pooled buffer channel");
+		}
+		return super.registerWriter(writer);
+	}
+
+	/**
+	 * The buffers still in the buffer belong to no one once the channel closes, so this gives them back to their pools
+	 */
+	@Override
+	protected void clearOutWaitingReadersAndWriters(ResourceManipulator manipulator) {
+		while (hasWriter()) {
+			getNextWriter().getMessage().release();
+		}
+		super.clearOutWaitingReadersAndWriters(manipulator);
+	}
+}
@@ -0,0 +1,269 @@
+package mjb.dev.cjo.channels;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.utilities.Function;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A priority channel allows for many readers and many writers at a time.<br>
+ * It is a buffered channel which hands out its buffered messages by priority rather than in the order they were written,
+ * so urgent messages can overtake a backlog of less important ones. Messages of equal priority are read in the order
+ * they were written.<br>
+ * Writing is asynchronous until the buffer is full (as with a buffer many channel). A writer waiting for room in the buffer
+ * does not compete on priority until its message is buffered, so with a capacity of zero the channel is an ordinary
+ * synchronous FIFO channel.<br>
+ * Priorities are evaluated while the channel is locked, so keep them simple (and don't use any channels in them!).
+ * A priority function is evaluated once, when the message is written, and a message it fails on (or gives no priority) is
+ * refused with a {@link RegistrationException}. A comparator is tried on each message against itself when it is written, and
+ * the message is refused in the same way if that fails. If it later fails comparing two messages, they are treated as
+ * equals.<br>
+ * Fairness guaranteed (amongst equals)!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class PriorityChannel<Message> extends AbstractChannel<Message> {
+	private static final Logger logger = Logger.getLogger(PriorityChannel.class);
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers waiting for room in the buffer
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//The buffer
+	private final PriorityQueue<Entry<Message>> buffer;
+	//The capacity of this buffer
+	private final int capacity;
+	//Numbers the messages to keep equal priorities in order
+	private long nextSequence;
+	//Orders the messages (null when ordered by priority)
+	private final Comparator<? super Message> comparator;
+	//Works out the priority of a message (null when ordered by a comparator)
+	private final Function<? super Message,Integer> priority;
+
+	/**
+	 * Construct a new priority channel ordered by a comparator
+	 * @param comparator - orders the messages. As with a priority queue, the smallest message is read first
+	 * @param capacity - the number of messages that can be asynchronously written to this channel (use Integer.MAX_VALUE for
+	 * no limit)
+	 * @throws IllegalArgumentException - if the capacity is negative or the comparator is null
+	 */
+	public PriorityChannel(Comparator<? super Message> comparator, int capacity) {
+		this(comparator,null,capacity);
+		if (comparator==null) {
+			throw new IllegalArgumentException("Cannot construct a priority channel without a comparator");
+		}
+	}
+
+	/**
+	 * Construct a new priority channel ordered by a priority function
+	 * @param priority - works out the priority of a message. Messages with a higher priority are read first
+	 * @param capacity - the number of messages that can be asynchronously written to this channel (use Integer.MAX_VALUE for
+	 * no limit)
+	 * @throws IllegalArgumentException - if the capacity is negative or the priority function is null
+	 */
+	public PriorityChannel(Function<? super Message,Integer> priority, int capacity) {
+		this(null,priority,capacity);
+		if (priority==null) {
+			throw new IllegalArgumentException("Cannot construct a priority channel without a priority function");
+		}
+	}
+
+	private PriorityChannel(Comparator<? super Message> comparator, Function<? super Message,Integer> priority, int capacity) {
+		super();
+		if (capacity<0) {
+			throw new IllegalArgumentException("Cannot construct a priority channel with a capacity: " + capacity + " (less than zero)");
+		}
+		this.capacity = capacity;
+		this.comparator = comparator;
+		this.priority = priority;
+		hasClosed = false;
+		nextSequence = 0;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		buffer = new PriorityQueue<Entry<Message>>(11,new Comparator<Entry<Message>>() {
+			public int compare(Entry<Message> first, Entry<Message> second) {
+				int result = compareMessages(first,second);
+				if (result!=0) {
+					return result;
+				}
+				return first.sequence<second.sequence ? -1 : (first.sequence==second.sequence ? 0 : 1);
+			}
+		});
+	}
+
+	/*
+	 * Order two buffered messages (0 if they are equally important). This never throws, as the buffer must stay in one piece.
+	 */
+	private int compareMessages(Entry<Message> first, Entry<Message> second) {
+		if (comparator==null) {
+			return first.priority>second.priority ? -1 : (first.priority==second.priority ? 0 : 1);
+		}
+		try {
+			return comparator.compare(first.message,second.message);
+		} catch (RuntimeException e) {
+			logger.warn("compareMessages: the comparator failed, so the messages are treated as equals",e);
+			return 0;
+		}
+	}
+
+	/**
+	 * @throws RegistrationException - if the priority function or comparator fails on the message, or the priority is null
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Work out the priority now, so a bad message is refused to the writer's face
+		Message message = writer.getMessage();
+		int messagePriority = 0;
+		try {
+			if (comparator!=null) {
+				comparator.compare(message,message);
+			} else {
+				Integer result = priority.eval(message);
+				if (result==null) {
+					throw new RegistrationException("The priority function gave no priority for a message written to a priority channel");
+				}
+				messagePriority = result;
+			}
+		} catch (RegistrationException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			RegistrationException exception = new RegistrationException("Could not work out the priority of a message written to a priority channel");
+			exception.initCause(e);
+			throw exception;
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(new PrioritisedWaitingWriter<Message>(writer,messagePriority));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		waitingWriters.remove(writer);
+		//Impossible for a real writer to have entered the buffer...
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Has no effect on a priority channel
+	 */
+	@Override
+	protected void closeWriteEndProtected() {}
+
+	/**
+	 * Has no effect on a priority channel
+	 */
+	@Override
+	protected void closeReadEndProtected() {}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		while (!hasClosed) {
+			//Fill the buffer as much as possible
+			while (buffer.size()<capacity && !waitingWriters.isEmpty()) {
+				PrioritisedWaitingWriter<Message> writer = (PrioritisedWaitingWriter<Message>)waitingWriters.dequeue();
+				buffer.add(new Entry<Message>(writer.getMessage(),writer.priority,nextSequence++));
+				writer.readerArrived(manipulator); //a bit of a lie...
+			}
+			if (!super.hasReader()) {
+				break;
+			}
+			if (!buffer.isEmpty()) {
+				//The most important message first
+				super.getNextReader().writerArrived(buffer.poll().message,manipulator);
+			} else if (!waitingWriters.isEmpty()) {
+				//No buffer to speak of, so straight through
+				WaitingWriter<Message> writer = waitingWriters.dequeue();
+				super.getNextReader().writerArrived(writer.getMessage(),manipulator);
+				writer.readerArrived(manipulator);
+			} else {
+				break;
+			}
+		}
+		if (hasClosed) {
+			buffer.clear();
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return buffer.size();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the number of messages that can be asynchronously written to this channel
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/*
+	 * A buffered message with its priority (if ordered by priority) and place in line
+	 */
+	private static final class Entry<Message> {
+		private final Message message;
+		private final int priority;
+		private final long sequence;
+
+		private Entry(Message message, int priority, long sequence) {
+			this.message = message;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * A writer together with the priority of its message (if ordered by priority).
+	 *
+	 * @param <Message> - the types of messages being written by this writer
+	 */
+	private static final class PrioritisedWaitingWriter<Message> extends ForwardingWaitingWriter<Message> {
+		private final int priority;
+
+		public PrioritisedWaitingWriter(WaitingWriter<Message> writer, int priority) {
+			super(writer);
+			this.priority = priority;
+		}
+	}
+}
@@ -0,0 +1,535 @@
+package mjb.dev.cjo.channels;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.ChannelStorageException;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A remote channel has its read end in one JVM and its write end in another, connected over TCP. Any number of readers
+ * may wait on the read end, and any number of writers on the write end (use the other end and you'll get a registration exception).<br>
+ * {@link #listen(InetSocketAddress, MessageSerializer, int)} makes the read end, which waits for one write end to
+ * {@link #connect(InetSocketAddress, MessageSerializer)} to it.<br>
+ * <br>
+ * The read end grants the write end credits - one for each message it is prepared to take. With a capacity of zero, credits
+ * are only granted for readers actually waiting, and a writer is only released once a reader has its message, just like
+ * an ordinary synchronous channel. With a capacity, the read end also buffers up to that many messages, and writers are
+ * released as soon as their messages are buffered.<br>
+ * Messages sent at the same time are batched into one frame. All of the socket work happens on a single selector thread
+ * shared by every remote channel.<br>
+ * <br>
+ * Closing either end (or losing the connection) closes both. If a reader gives up waiting (is interrupted) after asking for a
+ * message, the message may still arrive, in which case it is held until another reader comes along. Once a writer's message
+ * has been sent it cannot be taken back, so a timed write (or try write) that runs out of time after that reports the message
+ * as written, and cancelling an asynchronous write fails.<br>
+ * Fairness guaranteed (within each end)!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class RemoteChannel<Message> extends AbstractChannel<Message> implements RemoteConnection.Listener {
+	/*
+	 * Notes to self:
+	 *
+	 * Frames from the write end: MESSAGES [int count]([int length][bytes])*
+	 * Frames from the read end: CREDIT [int count], ACK [int count]
+	 * Either: CLOSE
+	 * The write end numbers its messages, so acknowledgements can release writers in order even if some
+	 * writers were deregistered after their messages were sent.
+	 * On the read end, the super classes list of writers is the buffer (of dummy writers), as usual.
+	 */
+	private static final Logger logger = Logger.getLogger(RemoteChannel.class);
+	private static final byte MESSAGES = 1, CREDIT = 2, ACK = 3, CLOSE = 4;
+	//The most a MESSAGES frame can carry (the frame length also counts the type), and so the biggest message
+	private static final int MAX_MESSAGES_PAYLOAD = RemoteConnection.MAX_FRAME_SIZE-1;
+	private static final int MAX_MESSAGE_SIZE = MAX_MESSAGES_PAYLOAD-8;
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	private boolean hasSentClose;
+	private final boolean isReadEnd;
+	private final MessageSerializer<Message> serializer;
+	private final NetworkSelector networkSelector;
+	//Null until connected
+	private RemoteConnection connection;
+	private InetSocketAddress localAddress;
+	//The write end
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	private final ChannelFIFOQueue<WaitingWriter<Message>> sentWriters;
+	private int credits;
+	private long nextSequence;
+	private long acknowledged;
+	//The read end
+	private final int capacity;
+	private ServerSocketChannel server;
+	private int outstandingCredits;
+	private int unacknowledged;
+	private int acknowledgementsToSend;
+
+	private RemoteChannel(boolean isReadEnd, MessageSerializer<Message> serializer, int capacity) throws IOException {
+		super();
+		if (serializer==null) {
+			throw new IllegalArgumentException("Cannot construct a remote channel without a serializer");
+		}
+		if (capacity<0) {
+			throw new IllegalArgumentException("Cannot construct a remote channel with a capacity: " + capacity + " (less than zero)");
+		}
+		this.isReadEnd = isReadEnd;
+		this.serializer = serializer;
+		this.capacity = capacity;
+		this.networkSelector = NetworkSelector.getInstance();
+		hasClosed = false;
+		hasSentClose = false;
+		connection = null;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		sentWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		credits = 0;
+		nextSequence = 0;
+		acknowledged = 0;
+		outstandingCredits = 0;
+		unacknowledged = 0;
+		acknowledgementsToSend = 0;
+	}
+
+	/**
+	 * Make the read end of a remote channel, which waits for a write end to connect to it. Readers may start waiting
+	 * straight away.
+	 * @param address - the address to listen on (use port 0 to pick any free port, and see {@link #getLocalAddress()})
+	 * @param serializer - the serializer used to pass messages over the network
+	 * @param capacity - the number of messages to buffer at the read end (0 for synchronous behaviour)
+	 * @return - the read end of the channel
+	 * @throws IOException - if the address could not be listened on
+	 * @throws IllegalArgumentException - if the capacity is negative or the serializer is null
+	 */
+	public static <Message> RemoteChannel<Message> listen(InetSocketAddress address, MessageSerializer<Message> serializer, int capacity) throws IOException {
+		final RemoteChannel<Message> channel = new RemoteChannel<Message>(true,serializer,capacity);
+		final ServerSocketChannel server = ServerSocketChannel.open();
+		server.socket().bind(address);
+		server.configureBlocking(false);
+		channel.server = server;
+		channel.localAddress = (InetSocketAddress)server.socket().getLocalSocketAddress();
+		final NetworkSelector networkSelector = channel.networkSelector;
+		networkSelector.execute(new Runnable() {public void run() {
+			try {
+				server.register(networkSelector.getSelector(),SelectionKey.OP_ACCEPT,new NetworkSelector.Handler() {
+					public void ready(SelectionKey key) {
+						channel.accept(key);
+					}
+				});
+			} catch (ClosedChannelException e) {
+				//The channel was closed before anyone connected
+			}
+		}});
+		return channel;
+	}
+
+	/**
+	 * Make the write end of a remote channel, by connecting to a read end
+	 * @param address - the address of the read end
+	 * @param serializer - the serializer used to pass messages over the network
+	 * @return - the write end of the channel
+	 * @throws IOException - if the connection could not be made
+	 * @throws IllegalArgumentException - if the serializer is null
+	 */
+	public static <Message> RemoteChannel<Message> connect(InetSocketAddress address, MessageSerializer<Message> serializer) throws IOException {
+		RemoteChannel<Message> channel = new RemoteChannel<Message>(false,serializer,0);
+		SocketChannel socket = SocketChannel.open(address);
+		channel.localAddress = (InetSocketAddress)socket.socket().getLocalSocketAddress();
+		//Hold the channel while connecting, so no frame can arrive before the connection is set
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			channel.connection = new RemoteConnection(channel.networkSelector,socket,channel);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		} finally {
+			manipulator.releaseResources();
+		}
+		return channel;
+	}
+
+	/*
+	 * Accept the write end (on the selector thread)
+	 */
+	private void accept(SelectionKey key) {
+		SocketChannel socket;
+		try {
+			socket = server.accept();
+		} catch (IOException e) {
+			logger.error("accept: could not accept a connection, so the channel will close",e);
+			socket = null;
+		}
+		if (socket==null && key.isValid()) {
+			return; //try again later
+		}
+		//Point to point - stop listening
+		key.cancel();
+		try {
+			server.close();
+		} catch (IOException e) {
+			//Nothing to do
+		}
+		RemoteConnection newConnection = null;
+		if (socket!=null) {
+			try {
+				newConnection = new RemoteConnection(networkSelector,socket,this);
+			} catch (IOException e) {
+				logger.error("accept: could not set up a connection, so the channel will close",e);
+			}
+		}
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(getResource());
+		if (newConnection==null) {
+			hasClosed = true;
+		} else if (hasClosed) {
+			newConnection.close();
+		} else {
+			connection = newConnection;
+		}
+		refresh(manipulator);
+		manipulator.releaseResources();
+	}
+
+	/**
+	 * @throws ChannelStorageException - if the message could not be serialized
+	 * @throws RegistrationException - if this is the read end, or the serialized message is too big to send
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		if (isReadEnd) {
+			throw new RegistrationException("Cannot write to the read end of a remote channel");
+		}
+		byte[] bytes;
+		try {
+			bytes = serializer.serialize(writer.getMessage());
+		} catch (IOException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a remote channel",e);
+		} catch (RuntimeException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a remote channel",e);
+		}
+		if (bytes.length>MAX_MESSAGE_SIZE) {
+			throw new RegistrationException("A message of " + bytes.length + " bytes is too big to send (the limit is " + MAX_MESSAGE_SIZE + " bytes)");
+		}
+		return waitingWriters.enqueue(new RemoteWaitingWriter<Message>(writer,bytes));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		RemoteWaitingWriter<Message> remoteWriter = (RemoteWaitingWriter<Message>)writer.getObject();
+		if (!waitingWriters.remove(writer) && remoteWriter.sentCrate!=null) {
+			//Already sent - the acknowledgement will just skip it
+			sentWriters.remove(remoteWriter.sentCrate);
+		}
+	}
+
+	/**
+	 * A writer whose message has already been sent cannot be withdrawn - its message is on its way (and will be delivered
+	 * unless the connection goes), so it is forgotten and treated as written.
+	 */
+	@Override
+	protected boolean withdrawWriter(Crate<WaitingWriter<Message>> writer) {
+		boolean wasSent = ((RemoteWaitingWriter<Message>)writer.getObject()).sentCrate!=null;
+		deregisterWriter(writer);
+		return !wasSent;
+	}
+
+	/**
+	 * @throws RegistrationException - if this is the write end
+	 */
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		if (!isReadEnd) {
+			throw new RegistrationException("Cannot read from the write end of a remote channel");
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Completely closes a remote channel (at both ends)
+	 */
+	@Override
+	protected void closeWriteEndProtected() {
+		closeProtected();
+	}
+
+	/**
+	 * Completely closes a remote channel (at both ends)
+	 */
+	@Override
+	protected void closeReadEndProtected() {
+		closeProtected();
+	}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		if (isReadEnd) {
+			updateReadEnd(manipulator);
+		} else {
+			updateWriteEnd(manipulator);
+		}
+		if (hasClosed) {
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+			while (!sentWriters.isEmpty()) {
+				sentWriters.dequeue().channelClosed(manipulator);
+			}
+			if (!hasSentClose) {
+				hasSentClose = true;
+				if (connection!=null) {
+					connection.send(RemoteConnection.makeFrame(CLOSE,0));
+					connection.close();
+				}
+				if (server!=null) {
+					final ServerSocketChannel closingServer = server;
+					networkSelector.execute(new Runnable() {public void run() {
+						try {
+							closingServer.close();
+						} catch (IOException e) {
+							//Nothing to do
+						}
+					}});
+				}
+			}
+		}
+	}
+
+	private void updateWriteEnd(ResourceManipulator manipulator) {
+		//Release the writers whose messages have been taken
+		while (!sentWriters.isEmpty() && ((RemoteWaitingWriter<Message>)sentWriters.peek()).sequence<acknowledged) {
+			sentWriters.dequeue().readerArrived(manipulator);
+		}
+		//Send what we have credit for, all together (as long as it fits in a frame)
+		if (hasClosed || connection==null) {
+			return;
+		}
+		while (credits>0 && !waitingWriters.isEmpty()) {
+			List<byte[]> batch = new ArrayList<byte[]>();
+			int size = 4;
+			while (credits>0 && !waitingWriters.isEmpty() &&
+					size+4+((RemoteWaitingWriter<Message>)waitingWriters.peek()).getBytes().length<=MAX_MESSAGES_PAYLOAD) {
+				RemoteWaitingWriter<Message> writer = (RemoteWaitingWriter<Message>)waitingWriters.dequeue();
+				writer.sequence = nextSequence++;
+				writer.sentCrate = sentWriters.enqueue(writer);
+				credits--;
+				batch.add(writer.getBytes());
+				size += 4 + writer.getBytes().length;
+			}
+			ByteBuffer frame = RemoteConnection.makeFrame(MESSAGES,size);
+			frame.putInt(batch.size());
+			for (byte[] bytes : batch) {
+				frame.putInt(bytes.length);
+				frame.put(bytes);
+			}
+			connection.send(frame);
+		}
+	}
+
+	private void updateReadEnd(ResourceManipulator manipulator) {
+		//Empty the buffer into the readers
+		super.completeWriterReaderInteractions(manipulator);
+		//Anything that has left the buffer has been taken, and anything now within capacity has been buffered
+		if (unacknowledged>super.getNumberOfWriters()) {
+			acknowledgementsToSend += unacknowledged-super.getNumberOfWriters();
+			unacknowledged = super.getNumberOfWriters();
+		}
+		while (unacknowledged>0 && super.getNumberOfWriters()-unacknowledged<capacity) {
+			unacknowledged--;
+			acknowledgementsToSend++;
+		}
+		if (hasClosed || connection==null) {
+			return;
+		}
+		if (acknowledgementsToSend>0) {
+			ByteBuffer frame = RemoteConnection.makeFrame(ACK,4);
+			frame.putInt(acknowledgementsToSend);
+			connection.send(frame);
+			acknowledgementsToSend = 0;
+		}
+		//Ask for as many messages as we have room for, plus one for each waiting reader
+		int wanted = capacity + super.getNumberOfReaders() - super.getNumberOfWriters();
+		if (wanted>outstandingCredits) {
+			ByteBuffer frame = RemoteConnection.makeFrame(CREDIT,4);
+			frame.putInt(wanted-outstandingCredits);
+			connection.send(frame);
+			outstandingCredits = wanted;
+		}
+	}
+
+	/**
+	 * Not for you! Called on the selector thread with each frame received.
+	 */
+	@Override
+	public void frameReceived(byte type, ByteBuffer payload) {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(getResource());
+		try {
+			if (hasClosed) {
+				return;
+			}
+			switch (type) {
+			case MESSAGES:
+				int count = payload.getInt();
+				for (int i=0; i<count; i++) {
+					byte[] bytes = new byte[payload.getInt()];
+					payload.get(bytes);
+					messageReceived(bytes,manipulator);
+				}
+				break;
+			case CREDIT:
+				credits += payload.getInt();
+				break;
+			case ACK:
+				acknowledged += payload.getInt();
+				break;
+			case CLOSE:
+				hasClosed = true;
+				hasSentClose = true; //no need to reply
+				connection.close();
+				break;
+			default:
+				logger.error("frameReceived: unknown frame type " + type + ", so the channel will close");
+				hasClosed = true;
+			}
+			refresh(manipulator);
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+
+	/*
+	 * Hand a message to a reader, or buffer it
+	 */
+	private void messageReceived(byte[] bytes, ResourceManipulator manipulator) {
+		outstandingCredits--;
+		Message message;
+		try {
+			message = serializer.deserialize(bytes);
+		} catch (Exception e) {
+			logger.error("messageReceived: could not deserialize a message, so it has been skipped",e);
+			acknowledgementsToSend++;
+			return;
+		}
+		if (super.hasReader() && !super.hasWriter()) {
+			super.getNextReader().writerArrived(message,manipulator);
+			acknowledgementsToSend++;
+		} else {
+			super.registerWriter(new DummyWaitingWriter<Message>(message));
+			if (super.getNumberOfWriters()<=capacity) {
+				acknowledgementsToSend++;
+			} else {
+				unacknowledged++; //only acknowledge once it's taken
+			}
+		}
+	}
+
+	/**
+	 * Not for you! Called on the selector thread when the connection goes.
+	 */
+	@Override
+	public void connectionLost(IOException cause) {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(getResource());
+		if (!hasClosed) {
+			if (cause!=null) {
+				logger.error("connectionLost: the connection failed, so the channel will close",cause);
+			}
+			hasClosed = true;
+			hasSentClose = true;
+		}
+		refresh(manipulator);
+		manipulator.releaseResources();
+	}
+
+	/**
+	 * @return - the writers waiting to send their messages, or for them to be taken
+	 */
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size()+sentWriters.size();
+	}
+
+	/**
+	 * @return - the messages buffered at the read end
+	 */
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return super.getNumberOfWriters();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the local address of this end of the channel (for the read end, the address being listened on)
+	 */
+	public InetSocketAddress getLocalAddress() {
+		return localAddress;
+	}
+
+	/**
+	 * @return - true iff this is the read end of the channel
+	 */
+	public boolean isReadEnd() {
+		return isReadEnd;
+	}
+
+	/**
+	 * @return - the number of messages buffered at the read end
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * A serialized writer which remembers where its message went.
+	 *
+	 * @param <Message> - the types of messages being written by this writer
+	 */
+	private static final class RemoteWaitingWriter<Message> extends SerializedWaitingWriter<Message> {
+		//The number of the message once sent
+		private long sequence;
+		//The crate in the sent writers queue once sent
+		private Crate<WaitingWriter<Message>> sentCrate;
+
+		public RemoteWaitingWriter(WaitingWriter<Message> writer, byte[] bytes) {
+			super(writer,bytes);
+			sequence = -1;
+			sentCrate = null;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package mjb.dev.cjo.channels;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A remote connection is one end of a TCP connection carrying frames for a remote channel.<br>
+ * A frame is [int length][byte type][payload], where the length counts the type and payload.
+ * Frames can be sent from any thread - they are queued and written by the selector thread, several at once if they
+ * have piled up. Frames received are passed to the listener on the selector thread.
+ *
+ */
+final class RemoteConnection implements NetworkSelector.Handler {
+	//The biggest frame we will accept
+	static final int MAX_FRAME_SIZE = 64*1024*1024;
+	private static final int INITIAL_BUFFER_SIZE = 64*1024;
+	private final NetworkSelector networkSelector;
+	private final SocketChannel socket;
+	private final Listener listener;
+	//Only touched on the selector thread
+	private SelectionKey key;
+	private ByteBuffer input;
+	//Guarded by itself
+	private final ArrayDeque<ByteBuffer> output;
+	private boolean closing;
+	private boolean closed;
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Whoever wants to know what arrives on the connection. Called on the selector thread.
+	 */
+	interface Listener {
+		/**
+		 * @param type - the type of the frame
+		 * @param payload - the payload of the frame (only valid during this call)
+		 */
+		public void frameReceived(byte type, ByteBuffer payload);
+
+		/**
+		 * The connection has gone, and no more frames will arrive
+		 * @param cause - the problem, or null if the other end closed the connection
+		 */
+		public void connectionLost(IOException cause);
+	}
+
+	/**
+	 * Construct a new connection over a connected socket, and start reading from it
+	 * @param networkSelector - the selector to use
+	 * @param socket - a connected socket
+	 * @param listener - told about the frames received
+	 * @throws IOException - if the socket could not be set up
+	 */
+	RemoteConnection(NetworkSelector networkSelector, SocketChannel socket, Listener listener) throws IOException {
+		this.networkSelector = networkSelector;
+		this.socket = socket;
+		this.listener = listener;
+		this.input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+		this.output = new ArrayDeque<ByteBuffer>();
+		this.closing = false;
+		this.closed = false;
+		socket.configureBlocking(false);
+		socket.socket().setTcpNoDelay(true);
+		final RemoteConnection me = this;
+		networkSelector.execute(new Runnable() {public void run() {
+			try {
+				key = me.socket.register(me.networkSelector.getSelector(),SelectionKey.OP_READ,me);
+				flush(); //anything sent already
+			} catch (ClosedChannelException e) {
+				lost(e);
+			}
+		}});
+	}
+
+	/**
+	 * Build a frame ready to send
+	 * @param type - the type of frame
+	 * @param payloadSize - the size of the payload which will be put in the frame
+	 * @return - a buffer positioned at the start of the payload
+	 */
+	static ByteBuffer makeFrame(byte type, int payloadSize) {
+		ByteBuffer frame = ByteBuffer.allocate(5+payloadSize);
+		frame.putInt(1+payloadSize);
+		frame.put(type);
+		return frame;
+	}
+
+	/**
+	 * Send a frame made by {@link #makeFrame(byte, int)} and filled up (from any thread). Does nothing once the connection is closing.
+	 * @param frame - the frame to send
+	 */
+	void send(ByteBuffer frame) {
+		frame.flip();
+		synchronized (output) {
+			if (closing) {
+				return;
+			}
+			output.add(frame);
+		}
+		networkSelector.execute(new Runnable() {public void run() {
+			flush();
+		}});
+	}
+
+	/**
+	 * Close the connection once everything sent so far has been written (from any thread)
+	 */
+	void close() {
+		synchronized (output) {
+			closing = true;
+		}
+		networkSelector.execute(new Runnable() {public void run() {
+			flush();
+		}});
+	}
+
+	@Override
+	public void ready(SelectionKey key) {
+		if (key.isReadable()) {
+			read();
+		}
+		if (key.isValid() && key.isWritable()) {
+			flush();
+		}
+	}
+
+	private void read() {
+		int count;
+		try {
+			count = socket.read(input);
+		} catch (IOException e) {
+			lost(e);
+			return;
+		}
+		if (count<0) {
+			lost(null);
+			return;
+		}
+		input.flip();
+		while (!closed && input.remaining()>=4) {
+			int length = input.getInt(input.position());
+			if (length<1 || length>MAX_FRAME_SIZE) {
+				lost(new IOException("Received a frame of impossible length: " + length));
+				return;
+			}
+			if (input.remaining()<4+length) {
+				if (4+length>input.capacity()) {
+					//Make room for the big frame
+					ByteBuffer bigger = ByteBuffer.allocate(4+length);
+					bigger.put(input);
+					input = bigger;
+					return;
+				}
+				break;
+			}
+			input.getInt();
+			byte type = input.get();
+			ByteBuffer payload = input.slice();
+			payload.limit(length-1);
+			input.position(input.position()+length-1);
+			listener.frameReceived(type,payload);
+		}
+		input.compact();
+	}
+
+	private void flush() {
+		if (closed || key==null) {
+			return;
+		}
+		boolean finished;
+		boolean done;
+		IOException failure = null;
+		//(Never tell the listener anything while holding the output lock - it may be sending)
+		synchronized (output) {
+			if (!output.isEmpty()) {
+				try {
+					socket.write(output.toArray(new ByteBuffer[output.size()]));
+				} catch (IOException e) {
+					output.clear();
+					closing = true;
+					failure = e;
+				}
+				while (!output.isEmpty() && !output.peek().hasRemaining()) {
+					output.poll();
+				}
+			}
+			finished = output.isEmpty();
+			done = finished && closing;
+		}
+		if (done) {
+			lost(failure);
+			return;
+		}
+		key.interestOps(finished ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	}
+
+	private void lost(IOException cause) {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (key!=null) {
+			key.cancel();
+		}
+		try {
+			socket.close();
+		} catch (IOException e) {
+			//Nothing to do
+		}
+		listener.connectionLost(cause);
+	}
+}
@@ -0,0 +1,32 @@
+package mjb.dev.cjo.channels;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class wraps a real writer together with its message already serialized, so that channels which store
+ * messages as bytes only need to serialize each message once (and can refuse bad messages when the writer registers).
+ *
+ * @param <Message> - the types of messages being written by this writer
+ */
+class SerializedWaitingWriter<Message> extends ForwardingWaitingWriter<Message> {
+	private final byte[] bytes;
+
+	/**
+	 * @param writer - the real writer
+	 * @param bytes - the writer's message, serialized
+	 */
+	public SerializedWaitingWriter(WaitingWriter<Message> writer, byte[] bytes) {
+		super(writer);
+		this.bytes = bytes;
+	}
+
+	/**
+	 * @return - the writer's message, serialized
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,349 @@
+package mjb.dev.cjo.channels;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.ChannelStorageException;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.threads.ManagedWaits;
+import mjb.dev.cjo.threads.ThreadScheduler;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A shared memory channel connects processes in different JVMs on the same machine. Construct one in each JVM on the
+ * same file, and the messages written in one JVM can be read in the other - use the readers and writers as you would
+ * with any other channel.<br>
+ * <br>
+ * The file holds a ring of fixed size slots, and a header with the sequence numbers of the next slot to write and
+ * to read. Writing is asynchronous until the ring is full, after which writers wait. Messages must fit in a slot
+ * once serialized, or the writer is refused with a {@link RegistrationException}.<br>
+ * While readers or writers are waiting on the other JVM, a pump task polls the ring: it spins for a little while, then
+ * yields, then sleeps for gradually longer (up to a millisecond), so an idle link costs almost nothing and a busy one
+ * responds in microseconds. The pump watches the ring's sequence numbers without locking the channel, and only locks it
+ * when the other side has done something (or to check whether anyone is still waiting while it sleeps), so it doesn't
+ * hold up the readers and writers in this JVM.<br>
+ * <br>
+ * Only one JVM should write to the channel and only one JVM should read from it (they can be the same JVM).
+ * Any number of readers and writers may wait within those JVMs. Closing the channel in either JVM closes it in both.
+ * The file is left behind after the channel closes, and a closed file cannot be opened again, so delete it when you are done.<br>
+ * Fairness guaranteed (within each JVM)!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class SharedMemoryChannel<Message> extends AbstractChannel<Message> {
+	private static final Logger logger = Logger.getLogger(SharedMemoryChannel.class);
+	/*
+	 * Notes to self:
+	 *
+	 * The header is laid out so the counters written by each side sit on their own cache line:
+	 * 0 - magic, 4 - slots, 8 - slot size, 12 - closed flag, 64 - write sequence, 128 - read sequence.
+	 * A slot is [int length][payload], and is published by writing the payload, then the length, then the write sequence.
+	 * The sequences are only ever written with release and read with acquire (through SEQUENCE), so a reader that sees
+	 * a new write sequence also sees the slot behind it, and a writer that sees a new read sequence knows the slot is free.
+	 */
+	private static final int MAGIC = 0x434A4F52; //"CJOR"
+	private static final int MAGIC_OFFSET = 0, SLOTS_OFFSET = 4, SLOT_SIZE_OFFSET = 8, CLOSED_OFFSET = 12;
+	private static final int WRITE_SEQUENCE_OFFSET = 64, READ_SEQUENCE_OFFSET = 128;
+	private static final int HEADER_SIZE = 192;
+	private static final int LENGTH_SIZE = 4;
+	//Accesses the sequences in the ring (the offsets are 8 byte aligned, as these access modes require)
+	private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class,ByteOrder.BIG_ENDIAN);
+	//How long the pump polls in each style before backing off
+	private static final int SPINS = 1000, YIELDS = 100;
+	private static final long MAX_SLEEP_NANOSECONDS = 1000000;
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers waiting for room in the ring
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	private final MessageSerializer<Message> serializer;
+	private final MappedByteBuffer ring;
+	private final int slots;
+	private final int slotSize;
+	private final File file;
+	//True while the pump is running
+	private boolean isPumping;
+
+	/**
+	 * Construct a new shared memory channel on the given file. If the file does not exist, it is created with the given
+	 * number of slots and slot size. Otherwise, these must match what the file was created with.
+	 * @param file - the file shared between the JVMs
+	 * @param serializer - the serializer used to pass messages through the file
+	 * @param slots - the number of messages the ring can hold
+	 * @param slotSize - the most bytes a serialized message may take up
+	 * @throws IOException - if the file could not be opened, does not match, or has already been closed
+	 * @throws IllegalArgumentException - if the slots or slot size are not positive, or the serializer is null
+	 */
+	public SharedMemoryChannel(File file, MessageSerializer<Message> serializer, int slots, int slotSize) throws IOException {
+		super();
+		if (slots<=0 || slotSize<=0) {
+			throw new IllegalArgumentException("Cannot construct a shared memory channel with " + slots + " slots of size " + slotSize + " (not positive)");
+		}
+		if (serializer==null) {
+			throw new IllegalArgumentException("Cannot construct a shared memory channel without a serializer");
+		}
+		this.file = file;
+		this.serializer = serializer;
+		this.slots = slots;
+		this.slotSize = slotSize;
+		long size = HEADER_SIZE + (long)slots*(LENGTH_SIZE+slotSize);
+		if (size>Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Cannot construct a shared memory channel with " + slots + " slots of size " + slotSize + " (too big to map)");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file,"rw");
+		try {
+			//Stop both JVMs setting up the file at once
+			FileLock lock = raf.getChannel().lock();
+			try {
+				if (raf.length()<size) {
+					raf.setLength(size);
+				}
+				ring = raf.getChannel().map(MapMode.READ_WRITE,0,size);
+				if (ring.getInt(MAGIC_OFFSET)!=MAGIC) {
+					ring.putInt(SLOTS_OFFSET,slots);
+					ring.putInt(SLOT_SIZE_OFFSET,slotSize);
+					ring.putInt(CLOSED_OFFSET,0);
+					ring.putLong(WRITE_SEQUENCE_OFFSET,0);
+					ring.putLong(READ_SEQUENCE_OFFSET,0);
+					ring.putInt(MAGIC_OFFSET,MAGIC);
+				} else if (ring.getInt(SLOTS_OFFSET)!=slots || ring.getInt(SLOT_SIZE_OFFSET)!=slotSize) {
+					throw new IOException("The shared memory file " + file + " was created with " + ring.getInt(SLOTS_OFFSET) +
+							" slots of size " + ring.getInt(SLOT_SIZE_OFFSET));
+				} else if (ring.getInt(CLOSED_OFFSET)!=0) {
+					throw new IOException("The shared memory file " + file + " belongs to a channel that has been closed");
+				}
+			} finally {
+				lock.release();
+			}
+		} finally {
+			raf.close(); //the mapping stays
+		}
+		hasClosed = false;
+		isPumping = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+	}
+
+	/**
+	 * @throws ChannelStorageException - if the message could not be serialized
+	 * @throws RegistrationException - if the serialized message is too big for a slot
+	 */
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		byte[] bytes;
+		try {
+			bytes = serializer.serialize(writer.getMessage());
+		} catch (IOException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a shared memory channel",e);
+		} catch (RuntimeException e) {
+			throw new ChannelStorageException("Could not serialize a message written to a shared memory channel",e);
+		}
+		if (bytes.length>slotSize) {
+			throw new RegistrationException("A message of " + bytes.length + " bytes will not fit in a slot of " + slotSize + " bytes");
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(new SerializedWaitingWriter<Message>(writer,bytes));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		waitingWriters.remove(writer);
+		//It is impossible for a real writer to have entered the super classes queue.
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Completely closes a shared memory channel (in both JVMs)
+	 */
+	@Override
+	protected void closeWriteEndProtected() {
+		closeProtected();
+	}
+
+	/**
+	 * Completely closes a shared memory channel (in both JVMs)
+	 */
+	@Override
+	protected void closeReadEndProtected() {
+		closeProtected();
+	}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		if (!hasClosed && ring.getInt(CLOSED_OFFSET)!=0) {
+			hasClosed = true; //closed by the other side
+		}
+		//Publish as many messages as will fit
+		long writeSequence = getSequence(WRITE_SEQUENCE_OFFSET);
+		while (!hasClosed && !waitingWriters.isEmpty() && writeSequence-getSequence(READ_SEQUENCE_OFFSET)<slots) {
+			SerializedWaitingWriter<Message> writer = (SerializedWaitingWriter<Message>)waitingWriters.dequeue();
+			byte[] bytes = writer.getBytes();
+			int slot = slotOffset(writeSequence);
+			ByteBuffer payload = ring.duplicate();
+			payload.position(slot+LENGTH_SIZE);
+			payload.put(bytes);
+			ring.putInt(slot,bytes.length);
+			writeSequence++;
+			setSequence(WRITE_SEQUENCE_OFFSET,writeSequence);
+			writer.readerArrived(manipulator); //a bit of a lie...
+		}
+		//Hand out as many messages as we have readers for
+		long readSequence = getSequence(READ_SEQUENCE_OFFSET);
+		while (!hasClosed && super.hasReader() && readSequence<getSequence(WRITE_SEQUENCE_OFFSET)) {
+			int slot = slotOffset(readSequence);
+			byte[] bytes = new byte[ring.getInt(slot)];
+			ByteBuffer payload = ring.duplicate();
+			payload.position(slot+LENGTH_SIZE);
+			payload.get(bytes);
+			readSequence++;
+			setSequence(READ_SEQUENCE_OFFSET,readSequence);
+			try {
+				super.getNextReader().writerArrived(serializer.deserialize(bytes),manipulator);
+			} catch (Exception e) {
+				logger.error("update: could not deserialize a message from " + file + " so it has been skipped",e);
+			}
+		}
+		if (hasClosed) {
+			ring.putInt(CLOSED_OFFSET,1); //tell the other side
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator);
+			}
+		} else if (!isPumping && isWaiting()) {
+			//Someone is waiting on the other JVM, so start polling
+			isPumping = true;
+			ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+				pump();
+			}},true));
+		}
+	}
+
+	/*
+	 * True iff someone in this JVM is waiting on the other JVM
+	 */
+	private boolean isWaiting() {
+		return super.hasReader() || !waitingWriters.isEmpty();
+	}
+
+	/*
+	 * Read a sequence, seeing everything the other side wrote before publishing it
+	 */
+	private long getSequence(int offset) {
+		return (long)SEQUENCE.getAcquire(ring,offset);
+	}
+
+	/*
+	 * Publish a sequence, after everything written to the ring before it
+	 */
+	private void setSequence(int offset, long sequence) {
+		SEQUENCE.setRelease(ring,offset,sequence);
+	}
+
+	private int slotOffset(long sequence) {
+		return HEADER_SIZE + (int)(sequence % slots)*(LENGTH_SIZE+slotSize);
+	}
+
+	/*
+	 * Poll the ring until no one is waiting any more
+	 */
+	private void pump() {
+		int idle = 0;
+		long sleep = 1000;
+		long lastWriteSequence = -1;
+		long lastReadSequence = -1;
+		while (true) {
+			//Look for the other side's progress without the lock
+			boolean hasMoved = getSequence(WRITE_SEQUENCE_OFFSET)!=lastWriteSequence || getSequence(READ_SEQUENCE_OFFSET)!=lastReadSequence ||
+					ring.getInt(CLOSED_OFFSET)!=0;
+			//Only take the channel to hand the progress over, or (once sleeping) to see if we can stop
+			if (hasMoved || idle>=SPINS+YIELDS) {
+				ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(getResource());
+				refresh(manipulator);
+				if (hasClosed || !isWaiting()) {
+					isPumping = false;
+					manipulator.releaseResources();
+					return;
+				}
+				//(Including whatever this side just did)
+				lastWriteSequence = getSequence(WRITE_SEQUENCE_OFFSET);
+				lastReadSequence = getSequence(READ_SEQUENCE_OFFSET);
+				manipulator.releaseResources();
+			}
+			//Back off
+			if (hasMoved) {
+				idle = 0;
+				sleep = 1000;
+			} else if (idle<SPINS) {
+				idle++;
+				Thread.onSpinWait();
+			} else if (idle<SPINS+YIELDS) {
+				idle++;
+				Thread.yield();
+			} else {
+				ManagedWaits.parkNanos(sleep);
+				sleep = Math.min(sleep*2,MAX_SLEEP_NANOSECONDS);
+			}
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return (int)(getSequence(WRITE_SEQUENCE_OFFSET)-getSequence(READ_SEQUENCE_OFFSET));
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the number of messages the ring can hold
+	 */
+	public int getSlots() {
+		return slots;
+	}
+
+	/**
+	 * @return - the most bytes a serialized message may take up
+	 */
+	public int getSlotSize() {
+		return slotSize;
+	}
+}
@@ -0,0 +1,364 @@
+package mjb.dev.cjo.channels;
+
+import java.io.File;
+import java.io.IOException;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.channels.storage.SegmentLog;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A spilling buffer channel allows for many readers and many writers at a time.<br>
+ * It is a buffered channel whose buffer is mostly on disk: the oldest messages (up to the memory capacity) are held in memory,
+ * and anything more is serialized into temporary files and read back in order as the readers catch up. Writers only wait
+ * once the disk capacity (in bytes) has been used up.<br>
+ * So, the head of the queue stays hot, but a burst of messages costs disk rather than heap.<br>
+ * <br>
+ * If a message cannot be spilled (it fails to serialize, or the disk is full), the writer simply waits until there is room
+ * in memory, just like a writer on a full buffered channel. If spilled messages cannot be read back, the channel closes.<br>
+ * The temporary files are only created once the channel first spills, and are deleted when the channel is closed, so
+ * remember to close it!<br>
+ * Fairness guaranteed!
+ *
+ * @param <Message> - the type of message sent down this channel
+ */
+public class SpillingBufferChannel<Message> extends AbstractChannel<Message> {
+	/*
+	 * Notes to self:
+	 *
+	 * As in the buffered channels, the super classes list of writers is the memory part of the buffer.
+	 * A fresh writer can only enter memory if nothing is on disk, or we'd break the order.
+	 * Messages are moved back from the disk into memory whenever the readers make room.
+	 */
+	private static final Logger logger = Logger.getLogger(SpillingBufferChannel.class);
+	//The size of the spill files
+	private static final int SEGMENT_SIZE = 4*1024*1024;
+	//Store how much the channel has been closed
+	private boolean hasClosed;
+	//Store the writers that need to be told to leave, since it is asynchronous...
+	private final ChannelFIFOQueue<WaitingWriter<Message>> waitingWriters;
+	//How many messages to keep in memory
+	private final int memoryCapacity;
+	//How many bytes to keep on disk
+	private final long diskCapacity;
+	//Where to create the spill files (null for the default temporary directory)
+	private final File spillDirectory;
+	//The spilled messages (null until the first spill)
+	private SegmentLog log;
+	//True if the spill files could not be created, so nothing will be spilled
+	private boolean hasLogFailed;
+	private final MessageSerializer<Message> serializer;
+	//The accounting (only written while the lock is held, but read by anyone)
+	private volatile long bytesOnDisk;
+	private volatile long messagesOnDisk;
+	private volatile long totalSpilledBytes;
+	private volatile long totalSpilledMessages;
+
+	/**
+	 * Construct a new spilling buffer channel
+	 * @param memoryCapacity - the number of messages to hold in memory before spilling to disk
+	 * @param diskCapacity - the number of bytes of spilled messages to hold on disk before writers must wait
+	 * @param serializer - the serializer used to write messages to disk
+	 * @param spillDirectory - the directory to create temporary files in (when the channel first spills), or null for the
+	 * default temporary directory
+	 * @throws IOException - if the spill directory is not a writable directory
+	 * @throws IllegalArgumentException - if a capacity is negative or the serializer is null
+	 */
+	public SpillingBufferChannel(int memoryCapacity, long diskCapacity, MessageSerializer<Message> serializer, File spillDirectory) throws IOException {
+		super();
+		if (memoryCapacity<0) {
+			throw new IllegalArgumentException("Cannot construct a spilling buffer channel with a memory capacity: " + memoryCapacity + " (less than zero)");
+		}
+		if (diskCapacity<0) {
+			throw new IllegalArgumentException("Cannot construct a spilling buffer channel with a disk capacity: " + diskCapacity + " (less than zero)");
+		}
+		if (serializer==null) {
+			throw new IllegalArgumentException("Cannot construct a spilling buffer channel without a serializer");
+		}
+		this.memoryCapacity = memoryCapacity;
+		this.diskCapacity = diskCapacity;
+		this.serializer = serializer;
+		if (spillDirectory!=null && !(spillDirectory.isDirectory() && spillDirectory.canWrite())) {
+			throw new IOException("Cannot spill into: " + spillDirectory + " (not a writable directory)");
+		}
+		this.spillDirectory = spillDirectory;
+		log = null;
+		hasLogFailed = false;
+		hasClosed = false;
+		waitingWriters = new ChannelFIFOQueue<WaitingWriter<Message>>();
+		bytesOnDisk = 0;
+		messagesOnDisk = 0;
+		totalSpilledBytes = 0;
+		totalSpilledMessages = 0;
+	}
+
+	/**
+	 * Construct a new spilling buffer channel which spills into the default temporary directory, with no limit on the disk used
+	 * @param memoryCapacity - the number of messages to hold in memory before spilling to disk
+	 * @param serializer - the serializer used to write messages to disk
+	 * @throws IOException - never, as the default temporary directory is used (the files are created when the channel first spills)
+	 * @throws IllegalArgumentException - if the capacity is negative or the serializer is null
+	 */
+	public SpillingBufferChannel(int memoryCapacity, MessageSerializer<Message> serializer) throws IOException {
+		this(memoryCapacity,Long.MAX_VALUE,serializer,null);
+	}
+
+	@Override
+	protected Crate<WaitingWriter<Message>> registerWriter(WaitingWriter<Message> writer) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		//Remember to release this writer.
+		return waitingWriters.enqueue(new SpillingWaitingWriter<Message>(writer));
+	}
+
+	@Override
+	protected void deregisterWriter(Crate<WaitingWriter<Message>> writer) {
+		//Remove it from the asynchronous queue too.
+		waitingWriters.remove(writer);
+		//Impossible for a real writer to have entered this...
+	}
+
+	@Override
+	protected Crate<WaitingReader<Message>> registerReader(WaitingReader<Message> reader) {
+		if (hasClosed) {
+			throw new ChannelClosed(this);
+		}
+		return super.registerReader(reader);
+	}
+
+	/**
+	 * Has no effect on a spilling buffer channel
+	 */
+	@Override
+	protected void closeWriteEndProtected() {}
+
+	/**
+	 * Has no effect on a spilling buffer channel
+	 */
+	@Override
+	protected void closeReadEndProtected() {}
+
+	@Override
+	protected void closeProtected() {
+		hasClosed = true;
+	}
+
+	@Override
+	protected void update(ResourceManipulator manipulator) {
+		//Firstly, flush out the readers as much as possible, pulling messages back off the disk as room appears
+		super.completeWriterReaderInteractions(manipulator);
+		//(A reader waiting on an empty memory buffer may take a message straight off the disk, even with no memory capacity)
+		while (!hasClosed && hasSpilled() && (super.getNumberOfWriters()<memoryCapacity || (super.hasReader() && !super.hasWriter()))) {
+			unspill();
+			super.completeWriterReaderInteractions(manipulator);
+		}
+		//Either there are no readers left, or the whole buffer is empty... Perform our interactions with fresh writers
+		while (!hasClosed && super.hasReader() && !waitingWriters.isEmpty()) {
+			WaitingReader<Message> reader = super.getNextReader();
+			WaitingWriter<Message> writer = waitingWriters.dequeue();
+			reader.writerArrived(writer.getMessage(), manipulator);
+			writer.readerArrived(manipulator);
+		}
+		//Now fill the buffer - memory first (if nothing is on disk), and then the disk
+		while (!hasClosed && !waitingWriters.isEmpty()) {
+			if (!hasSpilled() && super.getNumberOfWriters()<memoryCapacity) {
+				WaitingWriter<Message> writer = waitingWriters.dequeue();
+				super.registerWriter(new DummyWaitingWriter<Message>(writer.getMessage()));
+				writer.readerArrived(manipulator); //a bit of a lie...
+			} else if (spill((SpillingWaitingWriter<Message>)waitingWriters.peek())) {
+				waitingWriters.dequeue().readerArrived(manipulator);
+			} else {
+				break; //the writers will have to wait
+			}
+		}
+		//Nothing may have happened above, but that's OK!
+		if (hasClosed) {
+			super.clearOutWaitingReadersAndWriters(manipulator);
+			//Clear out our own buffered writers..
+			while (!waitingWriters.isEmpty()) {
+				waitingWriters.dequeue().channelClosed(manipulator); //go!!
+			}
+			if (log!=null) {
+				log.destroy();
+			}
+			bytesOnDisk = 0;
+			messagesOnDisk = 0;
+		}
+	}
+
+	/*
+	 * Try to write a writer's message to the disk, returning false if it didn't fit or couldn't be stored.
+	 * The message is serialized at most once, however often this is tried.
+	 */
+	private boolean spill(SpillingWaitingWriter<Message> writer) {
+		if (writer.hasFailed) {
+			return false;
+		}
+		if (writer.bytes==null) {
+			try {
+				writer.bytes = serializer.serialize(writer.getMessage());
+			} catch (Exception e) {
+				logger.warn("spill: could not serialize a message, so it will wait for room in memory",e);
+				writer.hasFailed = true;
+				return false;
+			}
+		}
+		byte[] bytes = writer.bytes;
+		if (bytes.length>diskCapacity-bytesOnDisk) {
+			return false; //full
+		}
+		if (log==null && !createLog()) {
+			return false;
+		}
+		try {
+			log.append(bytes);
+		} catch (IOException e) {
+			logger.warn("spill: could not write to " + log.getDirectory() + ", so the message will wait for room in memory",e);
+			return false;
+		}
+		bytesOnDisk += bytes.length;
+		messagesOnDisk++;
+		totalSpilledBytes += bytes.length;
+		totalSpilledMessages++;
+		return true;
+	}
+
+	/*
+	 * Create the spill files, returning false if they could not be (in which case we never try again)
+	 */
+	private boolean createLog() {
+		if (hasLogFailed) {
+			return false;
+		}
+		try {
+			File directory = File.createTempFile("cjo-spill",null,spillDirectory);
+			if (!directory.delete() || !directory.mkdir()) {
+				throw new IOException("Could not create a spill directory in: " + spillDirectory);
+			}
+			log = new SegmentLog(directory,SEGMENT_SIZE,false);
+			return true;
+		} catch (IOException e) {
+			logger.warn("createLog: could not create the spill files, so messages will wait for room in memory",e);
+			hasLogFailed = true;
+			return false;
+		}
+	}
+
+	/*
+	 * True iff there are messages on disk
+	 */
+	private boolean hasSpilled() {
+		return log!=null && log.hasNext();
+	}
+
+	/*
+	 * Move the oldest message on disk into memory. Closes the channel if the disk fails.
+	 */
+	private void unspill() {
+		byte[] bytes;
+		try {
+			bytes = log.next();
+		} catch (IOException e) {
+			logger.error("unspill: could not read from " + log.getDirectory() + " so the channel will close",e);
+			hasClosed = true;
+			return;
+		}
+		bytesOnDisk -= bytes.length;
+		messagesOnDisk--;
+		try {
+			super.registerWriter(new DummyWaitingWriter<Message>(serializer.deserialize(bytes)));
+		} catch (Exception e) {
+			logger.error("unspill: could not deserialize a message from " + log.getDirectory() + " so it has been skipped",e);
+		}
+	}
+
+	@Override
+	protected int getWaitingWritersForMetrics() {
+		return waitingWriters.size();
+	}
+
+	@Override
+	protected int getBufferedMessagesForMetrics() {
+		return (int)Math.min(super.getNumberOfWriters()+messagesOnDisk,Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean isClosed() {
+		return hasClosed;
+	}
+
+	/**
+	 * @return - the number of messages held in memory before spilling
+	 */
+	public int getMemoryCapacity() {
+		return memoryCapacity;
+	}
+
+	/**
+	 * @return - the number of bytes of spilled messages that can be held on disk
+	 */
+	public long getDiskCapacity() {
+		return diskCapacity;
+	}
+
+	/**
+	 * @return - the number of bytes of messages currently on disk
+	 */
+	public long getBytesOnDisk() {
+		return bytesOnDisk;
+	}
+
+	/**
+	 * @return - the number of messages currently on disk
+	 */
+	public long getMessagesOnDisk() {
+		return messagesOnDisk;
+	}
+
+	/**
+	 * @return - the total number of bytes ever written to disk by this channel
+	 */
+	public long getTotalSpilledBytes() {
+		return totalSpilledBytes;
+	}
+
+	/**
+	 * @return - the total number of messages ever written to disk by this channel
+	 */
+	public long getTotalSpilledMessages() {
+		return totalSpilledMessages;
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * A writer waiting to enter the buffer, which remembers its message once serialized (or that it could not be).
+	 *
+	 * @param <Message> - the types of messages being written by this writer
+	 */
+	private static final class SpillingWaitingWriter<Message> extends ForwardingWaitingWriter<Message> {
+		//The message serialized, or null if not tried yet
+		private byte[] bytes;
+		//True if the message could not be serialized
+		private boolean hasFailed;
+
+		public SpillingWaitingWriter(WaitingWriter<Message> writer) {
+			super(writer);
+			bytes = null;
+			hasFailed = false;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package mjb.dev.cjo.channels.exceptions;
+
+import mjb.dev.cjo.operators.Channel;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This exception is thrown when a writer tries to write to a bounded channel whose buffer is full, and the channel
+ * has been told to fail rather than wait or drop messages.<br>
+ * It is a registration exception so that operators release the channel properly before it reaches you.
+ *
+ */
+public class ChannelFullException extends RegistrationException {
+	private static final long serialVersionUID = 2961740153878146542L;
+	private final Channel<?> channel;
+
+	/**
+	 * Construct a new channel full exception
+	 * @param channel - the channel whose buffer was full
+	 * @param capacity - the capacity of the channel's buffer
+	 */
+	public ChannelFullException(Channel<?> channel, int capacity) {
+		super("The channel's buffer is full (capacity: " + capacity + ")");
+		this.channel = channel;
+	}
+
+	/**
+	 * @return - the channel which refused the message
+	 */
+	public Channel<?> getChannel() {
+		return channel;
+	}
+}
@@ -0,0 +1,26 @@
+package mjb.dev.cjo.channels.exceptions;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This exception is thrown when a channel which keeps its messages outside of the heap could not store a message,
+ * for example because the message could not be serialized or the disk is full.<br>
+ * The original problem is available as the cause.
+ *
+ */
+public class ChannelStorageException extends RegistrationException {
+	private static final long serialVersionUID = -5179280719541693270L;
+
+	/**
+	 * Construct a new channel storage exception
+	 * @param explanation - what the channel was trying to do
+	 * @param cause - the problem that stopped it
+	 */
+	public ChannelStorageException(String explanation, Throwable cause) {
+		super(explanation);
+		initCause(cause);
+	}
+}
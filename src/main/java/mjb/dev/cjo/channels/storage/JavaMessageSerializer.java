@@ -0,0 +1,46 @@
+package mjb.dev.cjo.channels.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A message serializer which uses ordinary Java serialization. This is the simplest choice, but not
+ * the fastest or smallest. Messages which are not serializable will be refused.
+ *
+ * @param <Message> - the type of message this serializer understands
+ */
+public class JavaMessageSerializer<Message> implements MessageSerializer<Message> {
+
+	@Override
+	public byte[] serialize(Message message) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(bytes);
+		try {
+			output.writeObject(message);
+		} finally {
+			output.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Message deserialize(byte[] bytes) throws IOException {
+		ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return (Message)input.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Could not find the class of a stored message: " + e.getMessage());
+		} finally {
+			input.close();
+		}
+	}
+}
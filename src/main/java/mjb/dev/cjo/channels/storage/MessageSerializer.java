@@ -0,0 +1,31 @@
+package mjb.dev.cjo.channels.storage;
+
+import java.io.IOException;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A message serializer turns messages into bytes and back again, so that a channel can store them outside of the heap.<br>
+ * Serializers are only ever called while the channel is locked, so they should be quick and must not use any channels
+ * themselves!
+ *
+ * @param <Message> - the type of message this serializer understands
+ */
+public interface MessageSerializer<Message> {
+	/**
+	 * @param message - the message to encode
+	 * @return - the bytes representing the message
+	 * @throws IOException - if the message could not be encoded
+	 */
+	public byte[] serialize(Message message) throws IOException;
+
+	/**
+	 * @param bytes - bytes produced by {@link #serialize(Object)} (possibly in another process)
+	 * @return - the message the bytes represent
+	 * @throws IOException - if the bytes could not be decoded
+	 */
+	public Message deserialize(byte[] bytes) throws IOException;
+}
@@ -0,0 +1,401 @@
+package mjb.dev.cjo.channels.storage;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A segment log is an append only queue of byte records, kept in a directory of memory mapped segment files.
+ * Everything written to the log survives the process dying, and is found again when a new log is opened on the
+ * same directory.<br>
+ * <br>
+ * Each segment is a file holding records of the form [int size][payload], where the size includes its own header.
+ * The header is written after the payload, so a record is only visible once it is complete. A header of zero means
+ * there are no more records (yet), and a header of -1 means the rest of the segment is unused, so move on to the next one.<br>
+ * The position of the consumer is kept in a small index file (as a single long, so it can never be torn), and segments are
+ * deleted once they have been consumed.<br>
+ * <br>
+ * Only one log may be open on a directory at once (enforced by a file lock). This class is not thread safe - the channel
+ * using it is expected to hold its lock.<br>
+ * By default, the operating system decides when to write pages to the disk, which protects against the process dying but
+ * not the machine. Ask for forced writes if you need the latter (and can afford it).
+ *
+ */
+public class SegmentLog {
+	/**
+	 * The default size of a segment file in bytes (a record larger than this gets its own bigger segment)
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 16*1024*1024;
+	//Names of things in the directory
+	private static final String SEGMENT_SUFFIX = ".segment";
+	private static final String INDEX_FILE = "consumer.index";
+	private static final String LOCK_FILE = "log.lock";
+	//Record headers
+	private static final int HEADER_SIZE = 4;
+	private static final int NO_RECORD = 0;
+	private static final int END_OF_SEGMENT = -1;
+
+	private final File directory;
+	private final int segmentSize;
+	private final boolean force;
+	//The lock on the directory
+	private final RandomAccessFile lockFile;
+	private final FileLock lock;
+	//The consumer position
+	private final MappedByteBuffer index;
+	//The segments currently mapped, by number
+	private final Map<Integer,MappedByteBuffer> segments;
+	//Where the next record will be read from and written to
+	private int readSegment, readPosition;
+	private int writeSegment, writePosition;
+	//The number of records not yet read
+	private long unread;
+	private boolean closed;
+
+	/**
+	 * Open a segment log in the given directory, recovering anything left there by a previous log
+	 * @param directory - the directory to keep the log in (created if it doesn't exist)
+	 * @param segmentSize - the size of each segment file in bytes
+	 * @param force - true iff every record should be forced to the disk before append returns
+	 * @throws IOException - if the log could not be opened, or is already open somewhere else
+	 * @throws IllegalArgumentException - if the segment size is too small to be useful
+	 */
+	public SegmentLog(File directory, int segmentSize, boolean force) throws IOException {
+		if (segmentSize<HEADER_SIZE*2) {
+			throw new IllegalArgumentException("Cannot construct a segment log with a segment size: " + segmentSize + " (less than " + HEADER_SIZE*2 + ")");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.force = force;
+		this.segments = new HashMap<Integer,MappedByteBuffer>();
+		this.closed = false;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create the log directory: " + directory);
+		}
+		//Claim the directory
+		lockFile = new RandomAccessFile(new File(directory,LOCK_FILE),"rw");
+		FileLock fileLock;
+		try {
+			fileLock = lockFile.getChannel().tryLock();
+		} catch (OverlappingFileLockException e) {
+			fileLock = null;
+		}
+		if (fileLock==null) {
+			lockFile.close();
+			throw new IOException("The log directory is already in use: " + directory);
+		}
+		lock = fileLock;
+		try {
+			index = map(new File(directory,INDEX_FILE),8);
+			recover();
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open a segment log with the default segment size and without forced writes
+	 * @param directory - the directory to keep the log in (created if it doesn't exist)
+	 * @throws IOException - if the log could not be opened, or is already open somewhere else
+	 */
+	public SegmentLog(File directory) throws IOException {
+		this(directory,DEFAULT_SEGMENT_SIZE,false);
+	}
+
+	/*
+	 * Work out where to read and write from the files in the directory
+	 */
+	private void recover() throws IOException {
+		long position = index.getLong(0);
+		readSegment = (int)(position >>> 32);
+		readPosition = (int)position;
+		int[] existing = listSegments();
+		//Anything before the reader has been consumed
+		for (int segment : existing) {
+			if (segment<readSegment) {
+				segmentFile(segment).delete();
+			}
+		}
+		int first = -1, last = -1;
+		for (int segment : existing) {
+			if (segment>=readSegment) {
+				if (first==-1) {
+					first = segment;
+				}
+				last = segment;
+			}
+		}
+		if (last==-1) {
+			//Nothing to recover
+			readPosition = 0;
+			writeSegment = readSegment;
+			writePosition = 0;
+			createSegment(writeSegment,segmentSize);
+			unread = 0;
+			saveIndex();
+			return;
+		}
+		if (first>readSegment) {
+			//The reader's segment is gone, so it must have been finished
+			readSegment = first;
+			readPosition = 0;
+			saveIndex();
+		}
+		//Find the end of the last segment
+		writeSegment = last;
+		writePosition = scan(last,0,null);
+		MappedByteBuffer lastBuffer = segment(last);
+		if (writePosition+HEADER_SIZE>lastBuffer.capacity() || lastBuffer.getInt(writePosition)==END_OF_SEGMENT) {
+			writeSegment++;
+			writePosition = 0;
+			createSegment(writeSegment,segmentSize);
+		}
+		//Count what is left to read
+		long[] count = new long[]{0};
+		for (int segment=readSegment; segment<=last; segment++) {
+			if (segmentFile(segment).exists()) {
+				scan(segment,segment==readSegment ? readPosition : 0,count);
+			}
+		}
+		unread = count[0];
+	}
+
+	/*
+	 * Walk through the records of a segment, returning the position of the first header that isn't a record
+	 */
+	private int scan(int segment, int position, long[] count) throws IOException {
+		MappedByteBuffer buffer = segment(segment);
+		while (position+HEADER_SIZE<=buffer.capacity()) {
+			int size = buffer.getInt(position);
+			if (size<HEADER_SIZE || position+size>buffer.capacity()) {
+				//No record (or the end marker)
+				return position;
+			}
+			if (count!=null) {
+				count[0]++;
+			}
+			position += size;
+		}
+		return position;
+	}
+
+	/**
+	 * Add a record to the end of the log. Once this returns, the record will survive the process dying.
+	 * @param record - the bytes to store
+	 * @throws IOException - if the record could not be stored
+	 */
+	public void append(byte[] record) throws IOException {
+		checkOpen();
+		int size = HEADER_SIZE + record.length;
+		MappedByteBuffer buffer = segment(writeSegment);
+		//Always leave room for an end of segment marker
+		if (writePosition+size+HEADER_SIZE>buffer.capacity()) {
+			//Move on to a new segment
+			int nextSegment = writeSegment+1;
+			createSegment(nextSegment,Math.max(segmentSize,size+HEADER_SIZE));
+			buffer.putInt(writePosition,END_OF_SEGMENT);
+			if (force) {
+				buffer.force();
+			}
+			if (writeSegment!=readSegment) {
+				segments.remove(writeSegment); //no need to keep it mapped
+			}
+			writeSegment = nextSegment;
+			writePosition = 0;
+			buffer = segment(writeSegment);
+		}
+		//Write the payload, and then commit it with the header
+		ByteBuffer payload = buffer.duplicate();
+		payload.position(writePosition+HEADER_SIZE);
+		payload.put(record);
+		buffer.putInt(writePosition,size);
+		if (force) {
+			buffer.force();
+		}
+		writePosition += size;
+		unread++;
+	}
+
+	/**
+	 * @return - true iff there is at least one record waiting to be read
+	 */
+	public boolean hasNext() {
+		return unread>0;
+	}
+
+	/**
+	 * @return - the number of records waiting to be read
+	 */
+	public long size() {
+		return unread;
+	}
+
+	/**
+	 * Read the oldest record in the log and mark it as consumed (so it will not be seen again, even after a restart)
+	 * @return - the bytes of the record
+	 * @throws IOException - if the record could not be read
+	 * @throws IllegalStateException - if there are no records to read
+	 */
+	public byte[] next() throws IOException {
+		checkOpen();
+		if (unread==0) {
+			throw new IllegalStateException("There are no records left in the log");
+		}
+		while (true) {
+			MappedByteBuffer buffer = segment(readSegment);
+			int size = buffer.getInt(readPosition);
+			if (size==END_OF_SEGMENT || size==NO_RECORD) {
+				//This segment is finished. Move on and throw it away.
+				segments.remove(readSegment);
+				File finished = segmentFile(readSegment);
+				readSegment++;
+				readPosition = 0;
+				saveIndex();
+				finished.delete();
+				continue;
+			}
+			byte[] record = new byte[size-HEADER_SIZE];
+			ByteBuffer payload = buffer.duplicate();
+			payload.position(readPosition+HEADER_SIZE);
+			payload.get(record);
+			readPosition += size;
+			unread--;
+			saveIndex();
+			return record;
+		}
+	}
+
+	/**
+	 * Close this log, releasing the directory. Records still in the log are kept for the next log opened on the directory.
+	 * Does nothing if the log was already closed.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		segments.clear();
+		try {
+			lock.release();
+		} catch (IOException e) {
+			//Closing the file will release it anyway
+		}
+		try {
+			lockFile.close();
+		} catch (IOException e) {
+			//Nothing we can do
+		}
+	}
+
+	/**
+	 * Close this log and delete everything in its directory, including the directory itself.
+	 * Use this for logs which are only temporary.
+	 */
+	public void destroy() {
+		close();
+		File[] files = directory.listFiles();
+		if (files!=null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * @return - the directory holding this log
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	private void checkOpen() throws IOException {
+		if (closed) {
+			throw new IOException("The segment log has been closed");
+		}
+	}
+
+	private void saveIndex() {
+		index.putLong(0,((long)readSegment << 32) | (readPosition & 0xFFFFFFFFL));
+		if (force) {
+			index.force();
+		}
+	}
+
+	private File segmentFile(int segment) {
+		return new File(directory,String.format("%010d",segment) + SEGMENT_SUFFIX);
+	}
+
+	private void createSegment(int segment, int size) throws IOException {
+		segments.put(segment,map(segmentFile(segment),size));
+	}
+
+	private MappedByteBuffer segment(int segment) throws IOException {
+		MappedByteBuffer buffer = segments.get(segment);
+		if (buffer==null) {
+			File file = segmentFile(segment);
+			if (!file.exists()) {
+				throw new IOException("A segment of the log is missing: " + file);
+			}
+			buffer = map(file,0);
+			segments.put(segment,buffer);
+		}
+		return buffer;
+	}
+
+	/*
+	 * Map a file, making it at least the given size (pass 0 to map it as it is)
+	 */
+	private static MappedByteBuffer map(File file, int size) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file,"rw");
+		try {
+			if (raf.length()<size) {
+				raf.setLength(size);
+			}
+			//The mapping outlives the file being closed
+			return raf.getChannel().map(MapMode.READ_WRITE,0,raf.length());
+		} finally {
+			raf.close();
+		}
+	}
+
+	private int[] listSegments() {
+		String[] names = directory.list(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		if (names==null) {
+			return new int[0];
+		}
+		int[] numbers = new int[names.length];
+		int count = 0;
+		for (String name : names) {
+			try {
+				numbers[count] = Integer.parseInt(name.substring(0,name.length()-SEGMENT_SUFFIX.length()));
+				count++;
+			} catch (NumberFormatException e) {
+				//Not one of ours
+			}
+		}
+		numbers = Arrays.copyOf(numbers,count);
+		Arrays.sort(numbers);
+		return numbers;
+	}
+}
@@ -0,0 +1,13 @@
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This package contains the pieces channels use to keep their messages outside of the heap.<br>
+ * Messages are turned into bytes by a {@link mjb.dev.cjo.channels.storage.MessageSerializer}, and the bytes are kept
+ * in an append only {@link mjb.dev.cjo.channels.storage.SegmentLog} of memory mapped files so that they survive
+ * the process dying.
+ *
+ */
+package mjb.dev.cjo.channels.storage;
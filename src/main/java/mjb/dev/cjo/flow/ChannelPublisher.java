@@ -0,0 +1,212 @@
+package mjb.dev.cjo.flow;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.ChannelFuture;
+import mjb.dev.cjo.operators.ChannelReader;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A publisher which reads its messages from a channel.<br>
+ * Nothing is read until a subscriber asks for it. When it does, the publisher waits for one message with an asynchronous
+ * read, and then takes as many more as are ready (up to the demand) without waiting, so a busy channel is drained in batches.
+ * Messages are delivered on the executor, and no thread is held up while the channel is empty.<br>
+ * Each message is delivered to one subscriber only - several subscribers compete for the channel like any other readers.
+ * Subscribers are completed when the channel closes, and cancelling a subscription stops reading (the channel is left open).
+ *
+ * @param <Message> - the type of message read from the channel
+ */
+public class ChannelPublisher<Message> implements Flow.Publisher<Message> {
+	//The logger for publishers
+	private static final Logger logger = Logger.getLogger(ChannelPublisher.class);
+	private final ChannelReader<Message> channel;
+	private final Executor executor;
+
+	/**
+	 * Construct a new publisher which delivers messages on the common fork join pool
+	 * @param channel - the channel to read from
+	 */
+	public ChannelPublisher(ChannelReader<Message> channel) {
+		this(channel,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a new publisher
+	 * @param channel - the channel to read from
+	 * @param executor - delivers the messages. It must not run tasks in the calling thread
+	 */
+	public ChannelPublisher(ChannelReader<Message> channel, Executor executor) {
+		this.channel = channel;
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super Message> subscriber) {
+		if (subscriber==null) {
+			throw new NullPointerException("Cannot subscribe a null subscriber");
+		}
+		subscriber.onSubscribe(new ChannelSubscription(subscriber));
+	}
+
+	/*
+	 * One subscriber's view of the channel. Only one read is outstanding at a time, so the subscriber
+	 * hears from one thread at a time.
+	 */
+	private final class ChannelSubscription implements Flow.Subscription {
+		private final Flow.Subscriber<? super Message> subscriber;
+		//How many more messages the subscriber asked for
+		private long demand;
+		//True while a read is outstanding
+		private boolean isReading;
+		//True once the subscriber has cancelled or been completed
+		private boolean isFinished;
+		//The outstanding read
+		private ChannelFuture<Message> pending;
+
+		private ChannelSubscription(Flow.Subscriber<? super Message> subscriber) {
+			this.subscriber = subscriber;
+			demand = 0;
+			isReading = false;
+			isFinished = false;
+			pending = null;
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (isFinished) {
+					return;
+				}
+				if (n<=0) {
+					isFinished = true;
+				} else {
+					demand = demand+n<0 ? Long.MAX_VALUE : demand+n;
+				}
+			}
+			if (n<=0) {
+				cancelPending();
+				subscriber.onError(new IllegalArgumentException("Requested " + n + " messages (must be positive)"));
+				return;
+			}
+			readNext();
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				isFinished = true;
+			}
+			cancelPending();
+		}
+
+		private void cancelPending() {
+			ChannelFuture<Message> future;
+			synchronized (this) {
+				future = pending;
+			}
+			if (future!=null) {
+				future.cancel(false);
+			}
+		}
+
+		/*
+		 * Start waiting for the next message if someone wants it
+		 */
+		private void readNext() {
+			ChannelFuture<Message> future;
+			synchronized (this) {
+				if (isFinished || isReading || demand==0) {
+					return;
+				}
+				isReading = true;
+				future = readAsync(channel,executor);
+				pending = future;
+			}
+			//Always hop onto the executor, so a subscriber requesting more from onNext never recurses
+			future.whenCompleteAsync(new BiConsumer<Message,Throwable>() {
+				public void accept(Message message, Throwable error) {
+					if (error!=null) {
+						failed(error);
+					} else {
+						delivered(message);
+					}
+				}
+			},executor);
+		}
+
+		private void delivered(Message message) {
+			//Delivered even if cancelled in the mean time - it has left the channel
+			subscriber.onNext(message);
+			while (true) {
+				synchronized (this) {
+					demand--; //for the message just delivered
+					if (isFinished || demand==0) {
+						break;
+					}
+				}
+				//Take whatever else is ready
+				Box<Message> next;
+				try {
+					next = tryRead(channel);
+				} catch (ChannelClosed closed) {
+					finish(null);
+					return;
+				}
+				if (next==null) {
+					break;
+				}
+				subscriber.onNext(next.getItem());
+			}
+			synchronized (this) {
+				isReading = false;
+				pending = null;
+			}
+			readNext();
+		}
+
+		private void failed(Throwable error) {
+			if (error instanceof CompletionException && error.getCause()!=null) {
+				error = error.getCause();
+			}
+			if (error instanceof CancellationException) {
+				return; //we cancelled it
+			}
+			finish(error instanceof ChannelClosed ? null : error);
+		}
+
+		/*
+		 * Complete the subscriber (or fail it if there was an error)
+		 */
+		private void finish(Throwable error) {
+			synchronized (this) {
+				if (isFinished) {
+					return;
+				}
+				isFinished = true;
+				isReading = false;
+				pending = null;
+			}
+			if (error==null) {
+				subscriber.onComplete();
+			} else {
+				logger.debug("finish: reading failed: " + error);
+				subscriber.onError(error);
+			}
+		}
+	}
+}
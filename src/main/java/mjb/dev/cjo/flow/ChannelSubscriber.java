@@ -0,0 +1,199 @@
+package mjb.dev.cjo.flow;
+
+import static mjb.dev.cjo.operators.Ops.*;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+import mjb.dev.cjo.channels.BufferManyChannel;
+import mjb.dev.cjo.channels.BufferOneChannel;
+import mjb.dev.cjo.operators.ChannelWriter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A subscriber which writes the messages it receives into a channel.<br>
+ * It asks for as many messages as it is allowed to have in flight, and asks for another each time the channel takes one.
+ * Given a buffered channel, the demand comes from its capacity (plus one, for the writer waiting on a full buffer), so the
+ * publisher is held back exactly when the buffer is full. Otherwise, choose the demand yourself (one by default).
+ * Messages are written with asynchronous writes, so no thread is held up while the channel is full, and they enter the
+ * channel in the order they were received.<br>
+ * When the publisher completes (or fails), the write end of the channel is closed once every message has been written.
+ * If the channel closes first, the subscription is cancelled.
+ *
+ * @param <Message> - the type of message written to the channel
+ */
+public class ChannelSubscriber<Message> implements Flow.Subscriber<Message> {
+	//The logger for subscribers
+	private static final Logger logger = Logger.getLogger(ChannelSubscriber.class);
+	private final ChannelWriter<Message> channel;
+	private final int demand;
+	private final Executor executor;
+	//The subscription (null until subscribed)
+	private Flow.Subscription subscription;
+	//The number of writes still waiting in the channel
+	private int inFlight;
+	//True once the publisher has finished
+	private boolean isFinished;
+	//True once the subscription has been cancelled
+	private boolean isCancelled;
+
+	/**
+	 * Construct a new subscriber which writes one message at a time, finishing writes on the common fork join pool
+	 * @param channel - the channel to write into
+	 */
+	public ChannelSubscriber(ChannelWriter<Message> channel) {
+		this(channel,1);
+	}
+
+	/**
+	 * Construct a new subscriber for a buffered channel, which finishes writes on the common fork join pool
+	 * @param channel - the channel to write into (its capacity decides the demand)
+	 */
+	public ChannelSubscriber(BufferOneChannel<Message> channel) {
+		this(channel,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a new subscriber for a buffered channel
+	 * @param channel - the channel to write into (its capacity decides the demand)
+	 * @param executor - finishes the writes (and so asks the publisher for more). It must not run tasks in the calling thread
+	 */
+	public ChannelSubscriber(BufferOneChannel<Message> channel, Executor executor) {
+		this(channel.getWriter(),getDemand(channel.getCapacity()),executor);
+	}
+
+	/**
+	 * Construct a new subscriber for a buffered channel, which finishes writes on the common fork join pool
+	 * @param channel - the channel to write into (its capacity decides the demand)
+	 */
+	public ChannelSubscriber(BufferManyChannel<Message> channel) {
+		this(channel,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a new subscriber for a buffered channel
+	 * @param channel - the channel to write into (its capacity decides the demand)
+	 * @param executor - finishes the writes (and so asks the publisher for more). It must not run tasks in the calling thread
+	 */
+	public ChannelSubscriber(BufferManyChannel<Message> channel, Executor executor) {
+		this(channel.getWriter(),getDemand(channel.getCapacity()),executor);
+	}
+
+	/**
+	 * Construct a new subscriber which finishes writes on the common fork join pool (for a buffered channel, pass the channel
+	 * itself instead)
+	 * @param channel - the channel to write into
+	 * @param demand - the number of messages which may be waiting to enter the channel at once
+	 * @throws IllegalArgumentException - if the demand is less than one
+	 */
+	public ChannelSubscriber(ChannelWriter<Message> channel, int demand) {
+		this(channel,demand,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a new subscriber (for a buffered channel, pass the channel itself instead)
+	 * @param channel - the channel to write into
+	 * @param demand - the number of messages which may be waiting to enter the channel at once
+	 * @param executor - finishes the writes (and so asks the publisher for more). It must not run tasks in the calling thread
+	 * @throws IllegalArgumentException - if the demand is less than one
+	 */
+	public ChannelSubscriber(ChannelWriter<Message> channel, int demand, Executor executor) {
+		if (demand<1) {
+			throw new IllegalArgumentException("Cannot construct a channel subscriber with a demand: " + demand + " (less than one)");
+		}
+		this.channel = channel;
+		this.demand = demand;
+		this.executor = executor;
+		subscription = null;
+		inFlight = 0;
+		isFinished = false;
+		isCancelled = false;
+	}
+
+	/*
+	 * The demand which fills a buffer of the given capacity, with one writer waiting
+	 */
+	private static int getDemand(int capacity) {
+		return capacity==Integer.MAX_VALUE ? capacity : capacity+1;
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		synchronized (this) {
+			if (this.subscription!=null) {
+				subscription.cancel(); //only one publisher at a time
+				return;
+			}
+			this.subscription = subscription;
+		}
+		subscription.request(demand);
+	}
+
+	@Override
+	public void onNext(Message message) {
+		synchronized (this) {
+			if (isCancelled) {
+				return;
+			}
+			inFlight++;
+		}
+		writeAsync(channel,message,executor).whenComplete(new BiConsumer<Void,Throwable>() {
+			public void accept(Void result, Throwable error) {
+				written(error);
+			}
+		});
+	}
+
+	@Override
+	public void onError(Throwable error) {
+		logger.warn("onError: the publisher failed: " + error);
+		finish();
+	}
+
+	@Override
+	public void onComplete() {
+		finish();
+	}
+
+	private void written(Throwable error) {
+		boolean close;
+		boolean cancel = false;
+		synchronized (this) {
+			inFlight--;
+			if (error!=null && !isCancelled) {
+				//The channel is no good any more
+				isCancelled = true;
+				cancel = true;
+			}
+			close = isFinished && inFlight==0;
+		}
+		if (cancel) {
+			logger.debug("written: cancelling after a failed write: " + error);
+			subscription.cancel();
+		} else if (!close && error==null) {
+			subscription.request(1);
+		}
+		if (close) {
+			closeWriteEnd(channel);
+		}
+	}
+
+	private void finish() {
+		boolean close;
+		synchronized (this) {
+			isFinished = true;
+			close = inFlight==0;
+		}
+		if (close) {
+			closeWriteEnd(channel);
+		}
+	}
+}
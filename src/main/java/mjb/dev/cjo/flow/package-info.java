@@ -0,0 +1,13 @@
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This package connects channels to reactive streams ({@link java.util.concurrent.Flow}).<br>
+ * A {@link mjb.dev.cjo.flow.ChannelPublisher} publishes what it reads from a channel, as fast as its subscribers ask for it.
+ * A {@link mjb.dev.cjo.flow.ChannelSubscriber} writes what it is sent into a channel, asking for no more than the channel can
+ * take. Neither needs a thread of its own - both are driven by asynchronous reads and writes on an executor.
+ *
+ */
+package mjb.dev.cjo.flow;
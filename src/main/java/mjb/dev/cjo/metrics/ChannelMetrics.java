@@ -0,0 +1,261 @@
+package mjb.dev.cjo.metrics;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The metrics for a single named channel. You get these by enabling metrics on the channel
+ * ({@link mjb.dev.cjo.operators.Channel#enableMetrics(String)}), and the channel and its operators fill them in.<br>
+ * <br>
+ * The record methods are for channels and operators to call. Apart from the block times, they must be called
+ * while the channel is held in the resource graph (which is always the case inside a channel). The getters may be
+ * called from anywhere at any time.<br>
+ * Times are in nanoseconds.
+ *
+ */
+public final class ChannelMetrics implements ChannelMetricsMBean {
+	/*
+	 * Notes to self:
+	 *
+	 * Gauges are only written while the channel is held, so volatile fields are enough for them.
+	 * The block times are recorded after the operator has let go of the channel, so the histograms must be thread safe
+	 * (which they are).
+	 */
+	private final String name;
+	private final AtomicLong messagesTransferred;
+	private volatile int waitingReaders;
+	private volatile int peakWaitingReaders;
+	private volatile int waitingWriters;
+	private volatile int peakWaitingWriters;
+	private volatile int bufferedMessages;
+	private volatile int peakBufferedMessages;
+	private final Histogram readerQueueTimes;
+	private final Histogram writerQueueTimes;
+	private final Histogram readerBlockTimes;
+	private final Histogram writerBlockTimes;
+	//When each queued reader or writer joined the queue (only touched while the channel is held)
+	private final Map<Object,Long> queuedSince;
+
+	/**
+	 * Construct new metrics for a channel
+	 * @param name - the name of the channel
+	 * @throws IllegalArgumentException - if the name is null or empty
+	 */
+	public ChannelMetrics(String name) {
+		if (name==null || name.length()==0) {
+			throw new IllegalArgumentException("Cannot construct channel metrics without a name");
+		}
+		this.name = name;
+		messagesTransferred = new AtomicLong(0);
+		readerQueueTimes = new Histogram();
+		writerQueueTimes = new Histogram();
+		readerBlockTimes = new Histogram();
+		writerBlockTimes = new Histogram();
+		queuedSince = new IdentityHashMap<Object,Long>();
+	}
+
+	/**
+	 * Record a message being read from the channel
+	 */
+	public void messageTransferred() {
+		messagesTransferred.incrementAndGet();
+	}
+
+	/**
+	 * Record the state of the channel after it has been updated
+	 * @param readers - the number of readers waiting
+	 * @param writers - the number of writers waiting
+	 * @param buffered - the number of messages buffered
+	 */
+	public void sample(int readers, int writers, int buffered) {
+		waitingReaders = readers;
+		if (readers>peakWaitingReaders) {
+			peakWaitingReaders = readers;
+		}
+		waitingWriters = writers;
+		if (writers>peakWaitingWriters) {
+			peakWaitingWriters = writers;
+		}
+		bufferedMessages = buffered;
+		if (buffered>peakBufferedMessages) {
+			peakBufferedMessages = buffered;
+		}
+	}
+
+	/**
+	 * Record a reader or writer joining one of the channel's queues
+	 * @param waiter - the reader or writer
+	 */
+	public void queued(Object waiter) {
+		queuedSince.put(waiter,System.nanoTime());
+	}
+
+	/**
+	 * Record a reader leaving one of the channel's queues
+	 * @param reader - the reader (ignored if it was queued before metrics were enabled)
+	 */
+	public void readerDequeued(Object reader) {
+		Long since = queuedSince.remove(reader);
+		if (since!=null) {
+			readerQueueTimes.record(System.nanoTime()-since);
+		}
+	}
+
+	/**
+	 * Record a writer leaving one of the channel's queues
+	 * @param writer - the writer (ignored if it was queued before metrics were enabled)
+	 */
+	public void writerDequeued(Object writer) {
+		Long since = queuedSince.remove(writer);
+		if (since!=null) {
+			writerQueueTimes.record(System.nanoTime()-since);
+		}
+	}
+
+	/**
+	 * Record a reader blocking (this need not be called with the channel held)
+	 * @param nanos - how long the reader was blocked for
+	 */
+	public void readerBlocked(long nanos) {
+		readerBlockTimes.record(nanos);
+	}
+
+	/**
+	 * Record a writer blocking (this need not be called with the channel held)
+	 * @param nanos - how long the writer was blocked for
+	 */
+	public void writerBlocked(long nanos) {
+		writerBlockTimes.record(nanos);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getMessagesTransferred() {
+		return messagesTransferred.get();
+	}
+
+	@Override
+	public int getWaitingReaders() {
+		return waitingReaders;
+	}
+
+	@Override
+	public int getPeakWaitingReaders() {
+		return peakWaitingReaders;
+	}
+
+	@Override
+	public int getWaitingWriters() {
+		return waitingWriters;
+	}
+
+	@Override
+	public int getPeakWaitingWriters() {
+		return peakWaitingWriters;
+	}
+
+	@Override
+	public int getBufferedMessages() {
+		return bufferedMessages;
+	}
+
+	@Override
+	public int getPeakBufferedMessages() {
+		return peakBufferedMessages;
+	}
+
+	@Override
+	public double getMeanReaderQueueTime() {
+		return readerQueueTimes.getMean();
+	}
+
+	@Override
+	public long getReaderQueueTime99thPercentile() {
+		return readerQueueTimes.getPercentile(99);
+	}
+
+	@Override
+	public double getMeanWriterQueueTime() {
+		return writerQueueTimes.getMean();
+	}
+
+	@Override
+	public long getWriterQueueTime99thPercentile() {
+		return writerQueueTimes.getPercentile(99);
+	}
+
+	@Override
+	public double getMeanReaderBlockTime() {
+		return readerBlockTimes.getMean();
+	}
+
+	@Override
+	public long getReaderBlockTime99thPercentile() {
+		return readerBlockTimes.getPercentile(99);
+	}
+
+	@Override
+	public double getMeanWriterBlockTime() {
+		return writerBlockTimes.getMean();
+	}
+
+	@Override
+	public long getWriterBlockTime99thPercentile() {
+		return writerBlockTimes.getPercentile(99);
+	}
+
+	/**
+	 * @return - how long readers spent queued in the channel
+	 */
+	public Histogram getReaderQueueTimes() {
+		return readerQueueTimes;
+	}
+
+	/**
+	 * @return - how long writers (and buffered messages) spent queued in the channel
+	 */
+	public Histogram getWriterQueueTimes() {
+		return writerQueueTimes;
+	}
+
+	/**
+	 * @return - how long readers were blocked waiting for a message
+	 */
+	public Histogram getReaderBlockTimes() {
+		return readerBlockTimes;
+	}
+
+	/**
+	 * @return - how long writers were blocked waiting for their message to be taken
+	 */
+	public Histogram getWriterBlockTimes() {
+		return writerBlockTimes;
+	}
+
+	@Override
+	public void reset() {
+		messagesTransferred.set(0);
+		peakWaitingReaders = waitingReaders;
+		peakWaitingWriters = waitingWriters;
+		peakBufferedMessages = bufferedMessages;
+		readerQueueTimes.reset();
+		writerQueueTimes.reset();
+		readerBlockTimes.reset();
+		writerBlockTimes.reset();
+	}
+
+	public String toString() {
+		return "ChannelMetrics:[" + name + ", transferred=" + getMessagesTransferred() + ", readers=" + waitingReaders +
+				", writers=" + waitingWriters + ", buffered=" + bufferedMessages + "]";
+	}
+}
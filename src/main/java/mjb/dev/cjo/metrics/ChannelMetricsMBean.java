@@ -0,0 +1,97 @@
+package mjb.dev.cjo.metrics;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * What JMX sees of a channel's metrics. Times are in nanoseconds, and percentiles are accurate to within a factor of two.
+ *
+ */
+public interface ChannelMetricsMBean {
+	/**
+	 * @return - the name of the channel
+	 */
+	String getName();
+
+	/**
+	 * @return - the number of messages read from the channel
+	 */
+	long getMessagesTransferred();
+
+	/**
+	 * @return - the number of readers waiting on the channel when it was last used
+	 */
+	int getWaitingReaders();
+
+	/**
+	 * @return - the most readers ever waiting on the channel at once
+	 */
+	int getPeakWaitingReaders();
+
+	/**
+	 * @return - the number of writers waiting on the channel when it was last used (not counting buffered messages)
+	 */
+	int getWaitingWriters();
+
+	/**
+	 * @return - the most writers ever waiting on the channel at once
+	 */
+	int getPeakWaitingWriters();
+
+	/**
+	 * @return - the number of messages in the channel's buffer when it was last used (always 0 for an unbuffered channel)
+	 */
+	int getBufferedMessages();
+
+	/**
+	 * @return - the most messages ever in the channel's buffer at once
+	 */
+	int getPeakBufferedMessages();
+
+	/**
+	 * @return - the mean time readers spent queued in the channel
+	 */
+	double getMeanReaderQueueTime();
+
+	/**
+	 * @return - the 99th percentile of the time readers spent queued in the channel
+	 */
+	long getReaderQueueTime99thPercentile();
+
+	/**
+	 * @return - the mean time writers (and buffered messages) spent queued in the channel
+	 */
+	double getMeanWriterQueueTime();
+
+	/**
+	 * @return - the 99th percentile of the time writers (and buffered messages) spent queued in the channel
+	 */
+	long getWriterQueueTime99thPercentile();
+
+	/**
+	 * @return - the mean time a reader was blocked waiting for a message
+	 */
+	double getMeanReaderBlockTime();
+
+	/**
+	 * @return - the 99th percentile of the time a reader was blocked waiting for a message
+	 */
+	long getReaderBlockTime99thPercentile();
+
+	/**
+	 * @return - the mean time a writer was blocked waiting for its message to be taken
+	 */
+	double getMeanWriterBlockTime();
+
+	/**
+	 * @return - the 99th percentile of the time a writer was blocked waiting for its message to be taken
+	 */
+	long getWriterBlockTime99thPercentile();
+
+	/**
+	 * Forget the counts, peaks and histograms so far
+	 */
+	void reset();
+}
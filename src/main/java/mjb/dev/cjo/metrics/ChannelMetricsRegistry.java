@@ -0,0 +1,105 @@
+package mjb.dev.cjo.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Keeps track of the metrics of every channel with metrics enabled, by name.<br>
+ * Each one is also published to the platform MBean server as mjb.dev.cjo:type=Channel,name="the name", so you can watch
+ * your channels in JConsole or VisualVM. If JMX is not available, the metrics are still kept here (and the failure logged).<br>
+ * Thread safe.
+ *
+ */
+public final class ChannelMetricsRegistry {
+	private static final Logger logger = Logger.getLogger(ChannelMetricsRegistry.class);
+	/**
+	 * The registry
+	 */
+	public static final ChannelMetricsRegistry INSTANCE = new ChannelMetricsRegistry();
+	//Everything registered, by name
+	private final ConcurrentMap<String,ChannelMetrics> metrics;
+
+	private ChannelMetricsRegistry() {
+		metrics = new ConcurrentHashMap<String,ChannelMetrics>();
+	}
+
+	/**
+	 * Register the metrics of a channel
+	 * @param channelMetrics - the metrics to register
+	 * @throws IllegalArgumentException - if metrics are already registered under the same name
+	 */
+	public void register(ChannelMetrics channelMetrics) {
+		if (metrics.putIfAbsent(channelMetrics.getName(),channelMetrics)!=null) {
+			throw new IllegalArgumentException("Cannot register channel metrics named: " + channelMetrics.getName() + " (already in use)");
+		}
+		try {
+			getServer().registerMBean(channelMetrics,makeName(channelMetrics.getName()));
+		} catch (JMException e) {
+			logger.warn("register: could not publish the metrics of " + channelMetrics.getName() + " over JMX",e);
+		} catch (SecurityException e) {
+			logger.warn("register: could not publish the metrics of " + channelMetrics.getName() + " over JMX",e);
+		}
+	}
+
+	/**
+	 * Unregister the metrics of a channel. This has no effect if they were not registered
+	 * @param channelMetrics - the metrics to unregister
+	 */
+	public void unregister(ChannelMetrics channelMetrics) {
+		if (!metrics.remove(channelMetrics.getName(),channelMetrics)) {
+			return;
+		}
+		try {
+			ObjectName name = makeName(channelMetrics.getName());
+			if (getServer().isRegistered(name)) {
+				getServer().unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			logger.warn("unregister: could not withdraw the metrics of " + channelMetrics.getName() + " from JMX",e);
+		} catch (SecurityException e) {
+			logger.warn("unregister: could not withdraw the metrics of " + channelMetrics.getName() + " from JMX",e);
+		}
+	}
+
+	/**
+	 * @param name - the name of a channel
+	 * @return - the metrics for the channel with that name, or null if there are none
+	 */
+	public ChannelMetrics get(String name) {
+		return metrics.get(name);
+	}
+
+	/**
+	 * @return - the metrics of every channel currently registered
+	 */
+	public List<ChannelMetrics> getAll() {
+		return new ArrayList<ChannelMetrics>(metrics.values());
+	}
+
+	/**
+	 * @param name - the name of a channel
+	 * @return - the name its metrics are published under in JMX
+	 * @throws JMException - if the name could not be made
+	 */
+	public static ObjectName makeName(String name) throws JMException {
+		return new ObjectName("mjb.dev.cjo:type=Channel,name=" + ObjectName.quote(name));
+	}
+
+	private static MBeanServer getServer() {
+		return ManagementFactory.getPlatformMBeanServer();
+	}
+}
@@ -0,0 +1,135 @@
+package mjb.dev.cjo.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A histogram of non-negative values (normally times in nanoseconds), with a bucket for each power of two.<br>
+ * Bucket i counts the values v with 2^(i-1) &lt;= v &lt; 2^i (bucket 0 counts zeros), so percentiles are only accurate
+ * to within a factor of two - plenty to tell a microsecond from a millisecond.<br>
+ * Recording is cheap and lock free. Reads are not atomic snapshots, so a histogram read while being written to
+ * may be very slightly out.<br>
+ * Thread safe.
+ *
+ */
+public final class Histogram {
+	//One bucket for zero, and one for each possible highest bit
+	private static final int BUCKETS = 64;
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong total;
+	private final AtomicLong max;
+
+	/**
+	 * Construct a new empty histogram
+	 */
+	public Histogram() {
+		buckets = new AtomicLongArray(BUCKETS);
+		count = new AtomicLong(0);
+		total = new AtomicLong(0);
+		max = new AtomicLong(0);
+	}
+
+	/**
+	 * Record a value
+	 * @param value - the value to record (negative values are recorded as zero)
+	 */
+	public void record(long value) {
+		if (value<0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long currentMax = max.get();
+		while (value>currentMax && !max.compareAndSet(currentMax,value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * @return - the number of values recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return - the mean of the values recorded (0 if there are none)
+	 */
+	public double getMean() {
+		long currentCount = count.get();
+		return currentCount==0 ? 0 : (double)total.get()/currentCount;
+	}
+
+	/**
+	 * @return - the largest value recorded (0 if there are none)
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile - between 0 and 100
+	 * @return - an upper bound on the given percentile of the values recorded (0 if there are none)
+	 * @throws IllegalArgumentException - if the percentile is out of range
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile<0 || percentile>100) {
+			throw new IllegalArgumentException("Cannot find the percentile: " + percentile + " (not between 0 and 100)");
+		}
+		long currentCount = count.get();
+		if (currentCount==0) {
+			return 0;
+		}
+		long target = (long)Math.ceil(currentCount*percentile/100);
+		long seen = 0;
+		for (int i=0; i<BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen>=target && seen>0) {
+				return Math.min(upperBoundOf(i),max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * @return - a copy of the buckets. Bucket i counts the values v with 2^(i-1) &lt;= v &lt; 2^i (bucket 0 counts zeros)
+	 */
+	public long[] getBuckets() {
+		long[] result = new long[BUCKETS];
+		for (int i=0; i<BUCKETS; i++) {
+			result[i] = buckets.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Forget everything recorded so far
+	 */
+	public void reset() {
+		for (int i=0; i<BUCKETS; i++) {
+			buckets.set(i,0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	private static int bucketOf(long value) {
+		return Math.min(64-Long.numberOfLeadingZeros(value),BUCKETS-1);
+	}
+
+	private static long upperBoundOf(int bucket) {
+		return bucket>=BUCKETS-1 ? Long.MAX_VALUE : (1L<<bucket)-1;
+	}
+
+	public String toString() {
+		return "Histogram:[count=" + getCount() + ", mean=" + getMean() + ", max=" + getMax() + "]";
+	}
+}
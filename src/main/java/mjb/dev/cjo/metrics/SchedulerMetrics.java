@@ -0,0 +1,355 @@
+package mjb.dev.cjo.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import mjb.dev.cjo.operators.Channel;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The books of the thread scheduler: how many tasks have been made, are waiting to start, are running and have finished,
+ * how long tasks take to start once scheduled and how long they run for, and how many running tasks are blocked
+ * waiting on a channel (and which channel). Running tasks which are not blocked are the ones doing work.<br>
+ * The schedulers and operators fill these in, but only once enabled - with {@link #setEnabled(boolean)}, over JMX, or from the
+ * start with the system property mjb.dev.cjo.metrics.scheduler=true. Only tasks scheduled while the metrics are enabled are
+ * counted. Read them with {@link #snapshot()}, or over JMX as mjb.dev.cjo:type=Scheduler. They are only published over JMX
+ * once first enabled, and then stay published so they can be switched off and on again there (if JMX is not available, the
+ * failure is logged and the metrics still kept).<br>
+ * Channels are named by their metrics name if they have metrics enabled, and by their class and identity otherwise,
+ * so enable metrics on the channels you want to recognise. A task blocked in an alt is counted once, against all of
+ * the alt's channels together.<br>
+ * Times are in nanoseconds. Thread safe.
+ *
+ */
+public final class SchedulerMetrics implements SchedulerMetricsMBean {
+	/*
+	 * Notes to self:
+	 *
+	 * Every task passes through here, so when disabled each hook is one volatile read, and when enabled the task counts
+	 * are plain atomics and nothing takes a lock. A task scheduled while disabled is marked with NOT_RECORDED, so it is
+	 * never half counted if the metrics are switched on or off while it runs.
+	 * Blocking is only recorded once a task really has to wait (so after the channel has been let go and any spin has
+	 * failed), which costs far more than the map update here.
+	 */
+	private static final Logger logger = Logger.getLogger(SchedulerMetrics.class);
+	/**
+	 * The scheduler's metrics
+	 */
+	public static final SchedulerMetrics INSTANCE = new SchedulerMetrics();
+	/**
+	 * The time given for tasks which are not being counted
+	 */
+	public static final long NOT_RECORDED = Long.MIN_VALUE;
+	//Adds one to a blocked count
+	private static final BiFunction<Object,AtomicInteger,AtomicInteger> ADD_ONE = new BiFunction<Object,AtomicInteger,AtomicInteger>() {
+		public AtomicInteger apply(Object key, AtomicInteger count) {
+			if (count==null) {
+				return new AtomicInteger(1);
+			}
+			count.incrementAndGet();
+			return count;
+		}
+	};
+	//Takes one from a blocked count, forgetting it at zero
+	private static final BiFunction<Object,AtomicInteger,AtomicInteger> TAKE_ONE = new BiFunction<Object,AtomicInteger,AtomicInteger>() {
+		public AtomicInteger apply(Object key, AtomicInteger count) {
+			if (count==null || count.decrementAndGet()<=0) {
+				return null;
+			}
+			return count;
+		}
+	};
+	private final AtomicLong tasksCreated;
+	private final AtomicLong tasksWaitingToStart;
+	private final AtomicLong tasksRunning;
+	private final AtomicLong tasksFinished;
+	private final AtomicInteger tasksBlocked;
+	//What blocked tasks are waiting on
+	private final ConcurrentMap<Object,AtomicInteger> blockedOn;
+	private final Histogram startLatencies;
+	private final Histogram lifetimes;
+	//True while recording
+	private volatile boolean isEnabled;
+	//True once published over JMX (or tried)
+	private boolean isPublished;
+
+	private SchedulerMetrics() {
+		isEnabled = Boolean.getBoolean("mjb.dev.cjo.metrics.scheduler");
+		tasksCreated = new AtomicLong(0);
+		tasksWaitingToStart = new AtomicLong(0);
+		tasksRunning = new AtomicLong(0);
+		tasksFinished = new AtomicLong(0);
+		tasksBlocked = new AtomicInteger(0);
+		blockedOn = new ConcurrentHashMap<Object,AtomicInteger>();
+		startLatencies = new Histogram();
+		lifetimes = new Histogram();
+		isPublished = false;
+		if (isEnabled) {
+			publish();
+		}
+	}
+
+	/*
+	 * Publish the metrics over JMX, the first time they are enabled (so applications not using them never start JMX)
+	 */
+	private synchronized void publish() {
+		if (isPublished) {
+			return;
+		}
+		isPublished = true;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,makeName());
+		} catch (JMException e) {
+			logger.warn("publish: could not publish the scheduler metrics over JMX",e);
+		} catch (SecurityException e) {
+			logger.warn("publish: could not publish the scheduler metrics over JMX",e);
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+	@Override
+	public void setEnabled(boolean isEnabled) {
+		if (isEnabled) {
+			publish();
+		}
+		this.isEnabled = isEnabled;
+	}
+
+	/**
+	 * Record a task being made
+	 */
+	public void taskCreated() {
+		if (isEnabled) {
+			tasksCreated.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Record a task being scheduled
+	 * @return - the time it was scheduled, to pass to {@link #taskStarted(long)} ({@link #NOT_RECORDED} if disabled)
+	 */
+	public long taskScheduled() {
+		if (!isEnabled) {
+			return NOT_RECORDED;
+		}
+		tasksWaitingToStart.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Record a task starting to run (in the thread running it)
+	 * @param scheduledAt - from {@link #taskScheduled()}
+	 * @return - the time it started, to pass to {@link #taskFinished(long)} ({@link #NOT_RECORDED} if the task is not counted)
+	 */
+	public long taskStarted(long scheduledAt) {
+		if (scheduledAt==NOT_RECORDED) {
+			return NOT_RECORDED;
+		}
+		long now = System.nanoTime();
+		tasksWaitingToStart.decrementAndGet();
+		tasksRunning.incrementAndGet();
+		startLatencies.record(now-scheduledAt);
+		return now;
+	}
+
+	/**
+	 * Record a task finishing (however it finished)
+	 * @param startedAt - from {@link #taskStarted(long)}
+	 */
+	public void taskFinished(long startedAt) {
+		if (startedAt==NOT_RECORDED) {
+			return;
+		}
+		tasksRunning.decrementAndGet();
+		tasksFinished.incrementAndGet();
+		lifetimes.record(System.nanoTime()-startedAt);
+	}
+
+	/**
+	 * Record the current task blocking until someone else uses a channel (if enabled)
+	 * @param channel - the channel (or for an alt, its array of channels)
+	 * @return - true iff recorded, in which case call {@link #unblocked(Object)} once the task stops waiting
+	 */
+	public boolean blocked(Object channel) {
+		if (!isEnabled) {
+			return false;
+		}
+		tasksBlocked.incrementAndGet();
+		blockedOn.compute(channel,ADD_ONE);
+		return true;
+	}
+
+	/**
+	 * Record the current task no longer being blocked
+	 * @param channel - exactly as given to {@link #blocked(Object)} (which must have returned true)
+	 */
+	public void unblocked(Object channel) {
+		blockedOn.compute(channel,TAKE_ONE);
+		tasksBlocked.decrementAndGet();
+	}
+
+	/**
+	 * @return - the metrics as they are now
+	 */
+	public SchedulerSnapshot snapshot() {
+		return new SchedulerSnapshot(System.currentTimeMillis(),tasksCreated.get(),getTasksWaitingToStart(),getTasksRunning(),
+				tasksFinished.get(),getTasksBlocked(),getBlockedChannelMap(),startLatencies,lifetimes);
+	}
+
+	@Override
+	public long getTasksCreated() {
+		return tasksCreated.get();
+	}
+
+	@Override
+	public long getTasksWaitingToStart() {
+		return Math.max(0,tasksWaitingToStart.get());
+	}
+
+	@Override
+	public long getTasksRunning() {
+		return Math.max(0,tasksRunning.get());
+	}
+
+	@Override
+	public long getTasksFinished() {
+		return tasksFinished.get();
+	}
+
+	@Override
+	public int getTasksBlocked() {
+		return Math.max(0,tasksBlocked.get());
+	}
+
+	@Override
+	public long getTasksWorking() {
+		return Math.max(0,getTasksRunning()-getTasksBlocked());
+	}
+
+	@Override
+	public String[] getBlockedChannels() {
+		List<String> result = new ArrayList<String>();
+		for (Map.Entry<String,Integer> entry : getBlockedChannelMap().entrySet()) {
+			result.add(entry.getKey() + "=" + entry.getValue());
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	@Override
+	public double getMeanStartLatency() {
+		return startLatencies.getMean();
+	}
+
+	@Override
+	public long getStartLatency99thPercentile() {
+		return startLatencies.getPercentile(99);
+	}
+
+	@Override
+	public double getMeanLifetime() {
+		return lifetimes.getMean();
+	}
+
+	@Override
+	public long getLifetime99thPercentile() {
+		return lifetimes.getPercentile(99);
+	}
+
+	/**
+	 * @return - how long tasks took to start once scheduled
+	 */
+	public Histogram getStartLatencies() {
+		return startLatencies;
+	}
+
+	/**
+	 * @return - how long tasks ran for
+	 */
+	public Histogram getLifetimes() {
+		return lifetimes;
+	}
+
+	/**
+	 * Forget the histograms and the counts of tasks created and finished so far (the tasks waiting, running and blocked
+	 * are still counted, as they are still there)
+	 */
+	@Override
+	public void reset() {
+		tasksCreated.set(0);
+		tasksFinished.set(0);
+		startLatencies.reset();
+		lifetimes.reset();
+	}
+
+	/**
+	 * @return - the name the scheduler metrics are published under in JMX
+	 * @throws JMException - if the name could not be made
+	 */
+	public static ObjectName makeName() throws JMException {
+		return new ObjectName("mjb.dev.cjo:type=Scheduler");
+	}
+
+	private Map<String,Integer> getBlockedChannelMap() {
+		Map<String,Integer> result = new TreeMap<String,Integer>();
+		for (Map.Entry<Object,AtomicInteger> entry : blockedOn.entrySet()) {
+			int count = entry.getValue().get();
+			if (count>0) {
+				String name = describe(entry.getKey());
+				Integer existing = result.get(name);
+				result.put(name,existing==null ? count : existing+count);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Name a channel, or the channels of an alt
+	 */
+	private static String describe(Object channel) {
+		if (channel instanceof Object[]) {
+			StringBuilder builder = new StringBuilder("alt[");
+			Object[] channels = (Object[])channel;
+			for (int i=0; i<channels.length; i++) {
+				if (i>0) {
+					builder.append(", ");
+				}
+				builder.append(describe(channels[i]));
+			}
+			return builder.append("]").toString();
+		}
+		if (channel instanceof Channel) {
+			//(Without holding the channel, as this may be a JMX thread)
+			String name = ((Channel<?>)channel).getMetricsName();
+			if (name!=null) {
+				return name;
+			}
+		}
+		return channel==null ? "null" : channel.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(channel));
+	}
+
+	public String toString() {
+		return "SchedulerMetrics:[enabled=" + isEnabled + ", created=" + getTasksCreated() + ", running=" + getTasksRunning() + ", blocked=" + getTasksBlocked() +
+				", finished=" + getTasksFinished() + "]";
+	}
+}
@@ -0,0 +1,82 @@
+package mjb.dev.cjo.metrics;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * What JMX sees of the scheduler's metrics. Times are in nanoseconds, and percentiles are accurate to within a factor of two.
+ *
+ */
+public interface SchedulerMetricsMBean {
+	/**
+	 * @return - true iff the metrics are being recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * @param isEnabled - true to start recording the metrics, false to stop
+	 */
+	void setEnabled(boolean isEnabled);
+
+	/**
+	 * @return - the number of tasks made
+	 */
+	long getTasksCreated();
+
+	/**
+	 * @return - the number of tasks scheduled but not yet running
+	 */
+	long getTasksWaitingToStart();
+
+	/**
+	 * @return - the number of tasks running (blocked or not)
+	 */
+	long getTasksRunning();
+
+	/**
+	 * @return - the number of tasks finished
+	 */
+	long getTasksFinished();
+
+	/**
+	 * @return - the number of running tasks blocked waiting on a channel
+	 */
+	int getTasksBlocked();
+
+	/**
+	 * @return - the number of running tasks not blocked waiting on a channel (so doing some work)
+	 */
+	long getTasksWorking();
+
+	/**
+	 * @return - the channels tasks are blocked on, each as "channel=tasks"
+	 */
+	String[] getBlockedChannels();
+
+	/**
+	 * @return - the mean time from a task being scheduled to it starting to run
+	 */
+	double getMeanStartLatency();
+
+	/**
+	 * @return - the 99th percentile of the time from a task being scheduled to it starting to run
+	 */
+	long getStartLatency99thPercentile();
+
+	/**
+	 * @return - the mean time tasks ran for
+	 */
+	double getMeanLifetime();
+
+	/**
+	 * @return - the 99th percentile of the time tasks ran for
+	 */
+	long getLifetime99thPercentile();
+
+	/**
+	 * Forget the histograms and the counts of tasks created and finished so far
+	 */
+	void reset();
+}
@@ -0,0 +1,134 @@
+package mjb.dev.cjo.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The scheduler's metrics at one moment, from {@link SchedulerMetrics#snapshot()}.<br>
+ * The counts are read one after another while tasks carry on, so they may disagree very slightly with each other.
+ * Times are in nanoseconds.<br>
+ * Immutable.
+ *
+ */
+public final class SchedulerSnapshot {
+	private final long timestamp;
+	private final long tasksCreated;
+	private final long tasksWaitingToStart;
+	private final long tasksRunning;
+	private final long tasksFinished;
+	private final int tasksBlocked;
+	private final Map<String,Integer> blockedChannels;
+	private final double meanStartLatency;
+	private final long startLatency99thPercentile;
+	private final double meanLifetime;
+	private final long lifetime99thPercentile;
+
+	SchedulerSnapshot(long timestamp, long tasksCreated, long tasksWaitingToStart, long tasksRunning, long tasksFinished,
+			int tasksBlocked, Map<String,Integer> blockedChannels, Histogram startLatencies, Histogram lifetimes) {
+		this.timestamp = timestamp;
+		this.tasksCreated = tasksCreated;
+		this.tasksWaitingToStart = tasksWaitingToStart;
+		this.tasksRunning = tasksRunning;
+		this.tasksFinished = tasksFinished;
+		this.tasksBlocked = tasksBlocked;
+		this.blockedChannels = Collections.unmodifiableMap(blockedChannels);
+		meanStartLatency = startLatencies.getMean();
+		startLatency99thPercentile = startLatencies.getPercentile(99);
+		meanLifetime = lifetimes.getMean();
+		lifetime99thPercentile = lifetimes.getPercentile(99);
+	}
+
+	/**
+	 * @return - when the snapshot was taken (as System.currentTimeMillis())
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return - the number of tasks made
+	 */
+	public long getTasksCreated() {
+		return tasksCreated;
+	}
+
+	/**
+	 * @return - the number of tasks scheduled but not yet running
+	 */
+	public long getTasksWaitingToStart() {
+		return tasksWaitingToStart;
+	}
+
+	/**
+	 * @return - the number of tasks running (blocked or not)
+	 */
+	public long getTasksRunning() {
+		return tasksRunning;
+	}
+
+	/**
+	 * @return - the number of tasks finished
+	 */
+	public long getTasksFinished() {
+		return tasksFinished;
+	}
+
+	/**
+	 * @return - the number of running tasks blocked waiting on a channel
+	 */
+	public int getTasksBlocked() {
+		return tasksBlocked;
+	}
+
+	/**
+	 * @return - the number of running tasks not blocked waiting on a channel
+	 */
+	public long getTasksWorking() {
+		return Math.max(0,tasksRunning-tasksBlocked);
+	}
+
+	/**
+	 * @return - the number of tasks blocked on each channel, by the channel's name (see {@link SchedulerMetrics})
+	 */
+	public Map<String,Integer> getBlockedChannels() {
+		return blockedChannels;
+	}
+
+	/**
+	 * @return - the mean time from a task being scheduled to it starting to run
+	 */
+	public double getMeanStartLatency() {
+		return meanStartLatency;
+	}
+
+	/**
+	 * @return - the 99th percentile of the time from a task being scheduled to it starting to run
+	 */
+	public long getStartLatency99thPercentile() {
+		return startLatency99thPercentile;
+	}
+
+	/**
+	 * @return - the mean time tasks ran for
+	 */
+	public double getMeanLifetime() {
+		return meanLifetime;
+	}
+
+	/**
+	 * @return - the 99th percentile of the time tasks ran for
+	 */
+	public long getLifetime99thPercentile() {
+		return lifetime99thPercentile;
+	}
+
+	public String toString() {
+		return "SchedulerSnapshot:[created=" + tasksCreated + ", waiting=" + tasksWaitingToStart + ", running=" + tasksRunning +
+				", blocked=" + tasksBlocked + ", finished=" + tasksFinished + ", blockedOn=" + blockedChannels + "]";
+	}
+}
@@ -0,0 +1,14 @@
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This package lets you see what your channels are up to.<br>
+ * Metrics are switched off by default. Call {@link mjb.dev.cjo.operators.Channel#enableMetrics(String)} on the
+ * channels you care about, and their {@link mjb.dev.cjo.metrics.ChannelMetrics} appear in the
+ * {@link mjb.dev.cjo.metrics.ChannelMetricsRegistry} and over JMX (under mjb.dev.cjo:type=Channel). A channel without metrics
+ * only pays for a null check.
+ *
+ */
+package mjb.dev.cjo.metrics;
@@ -11,6 +11,8 @@ import mjb.dev.cjo.channels.WaitingWriter;
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.metrics.SchedulerMetrics;
 import mjb.dev.cjo.operators.AltBuilder.BranchProcess;
 import mjb.dev.cjo.operators.exceptions.GuardEvaluationException;
 import mjb.dev.cjo.operators.exceptions.MessageEvaluationException;
@@ -19,6 +21,7 @@ import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
 import mjb.dev.cjo.parallelresources.Resource;
 import mjb.dev.cjo.parallelresources.ResourceGraph;
 import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.threads.ManagedWaits;
 import mjb.dev.cjo.threads.ThreadScheduler;
 import mjb.dev.cjo.threads.ThreadScheduler.Task;
 import mjb.dev.cjo.utilities.Box;
@@ -321,12 +324,17 @@ public class Alt {
 		ProcessInterruptedException exception = null;
 		//Release the resources, and wait
 		manipulator.releaseResources();
+		boolean isRecorded = SchedulerMetrics.INSTANCE.blocked(channels);
 		try {
-			waitSemaphore.acquire();
+			ManagedWaits.acquire(waitSemaphore); //(lets a fork join pool make up for this thread)
 		} catch (InterruptedException e) {
 			wasInterrupted = true;
 			exception = new ProcessInterruptedException(e);
 			Thread.currentThread().interrupt();
+		} finally {
+			if (isRecorded) {
+				SchedulerMetrics.INSTANCE.unblocked(channels);
+			}
 		}
 		//The resource should be acquired by now... (note that a different thread would have
 		//had the resource before, so this won't deadlock with a waiting reader or writer)
@@ -375,7 +383,7 @@ public class Alt {
 	private void runAfterTask(final long milliseconds, final int nanoseconds, final Box<Boolean> wasTerminated) {
 		//Firstly, wait for the required amount of time..
 		try {
-			Thread.sleep(milliseconds,nanoseconds);
+			ManagedWaits.sleep(milliseconds,nanoseconds);
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
 			//We swallow this exception
@@ -445,7 +453,7 @@ public class Alt {
 	 *
 	 * @param <T> - the type of message this is writing
 	 */
-	private class AltWaitingWriter<T> implements WaitingWriter<T> {
+	private class AltWaitingWriter<T> extends Crate<WaitingWriter<T>> implements WaitingWriter<T> {
 		private final int branchNo;
 		private final T message;
 		private final Channel<T> channel;
@@ -457,7 +465,7 @@ public class Alt {
 		private RegistrationException registrationException;
 		//Set to true if a reader arrived
 		private boolean gotReader;
-		//Remember my crate
+		//Remember my crate (normally this waiter itself)
 		private Crate<WaitingWriter<T>> crate;
 		/**
 		 * Construct a new waiting writer for the given branch. 
@@ -513,7 +521,7 @@ public class Alt {
 			try {
 				manipulator.addDependency(channel.getResource(), resource);
 				crate = channel.registerWriter(this);
-				channel.update(manipulator); //update for immediate interactions
+				channel.refresh(manipulator); //update for immediate interactions
 				//Handle the exceptions appropriately...
 			} catch (ChannelClosed closed) {
 				wasClosed = true;
@@ -553,7 +561,7 @@ public class Alt {
 	 *
 	 * @param <T> - the type of message being read
 	 */
-	private class AltWaitingReader<T> implements WaitingReader<T> {
+	private class AltWaitingReader<T> extends Crate<WaitingReader<T>> implements WaitingReader<T> {
 		private final int branchNo;
 		private final Channel<T> channel;
 		//Set to true if this becomes closed
@@ -564,7 +572,7 @@ public class Alt {
 		private RegistrationException registrationException;
 		//Set to true if a reader arrived
 		private boolean gotWriter;
-		//Remember my crate
+		//Remember my crate (normally this waiter itself)
 		private Crate<WaitingReader<T>> crate;
 		//Remember the message I received if I'm active
 		private T messageReceived;
@@ -601,6 +609,10 @@ public class Alt {
 			gotWriter = true;
 			activeBranch = branchNo;
 			this.messageReceived = message;
+			ChannelMetrics metrics = channel.getMetricsProtected();
+			if (metrics!=null) {
+				metrics.messageTransferred();
+			}
 			deregisterAll();
 			//Now remove the alt from the resource graph
 			manipulator.removeResource(resource);
@@ -616,7 +628,7 @@ public class Alt {
 			try {
 				manipulator.addDependency(channel.getResource(), resource);
 				crate = channel.registerReader(this);
-				channel.update(manipulator); //update for immediate interactions
+				channel.refresh(manipulator); //update for immediate interactions
 				//Handle the exceptions appropriately...
 			} catch (ChannelClosed closed) {
 				wasClosed = true;
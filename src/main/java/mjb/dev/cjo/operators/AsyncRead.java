@@ -0,0 +1,105 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.Executor;
+
+import mjb.dev.cjo.channels.WaitingReader;
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class reads from a channel without holding up a thread. The result arrives in a {@link ChannelFuture}.<br>
+ * The reader waits in the channel like any other, and when a writer arrives (or the channel closes), the future is
+ * completed on the executor (see {@link ChannelFuture#completeOn(Executor, Runnable)}). The executor must not run tasks in
+ * the calling thread, as the call is made while the channel is held.
+ *
+ * @param <Message> - the type of message being read
+ */
+final class AsyncRead<Message> extends Crate<WaitingReader<Message>> implements WaitingReader<Message>, ChannelFuture.Withdrawable {
+	private final Channel<Message> channel;
+	private final Executor executor;
+	private final ChannelFuture<Message> future;
+	//My crate in the channel
+	private Crate<WaitingReader<Message>> crate;
+	//True once the channel has responded or the read was withdrawn (only touched while the channel is held)
+	private boolean resolved;
+
+	private AsyncRead(Channel<Message> channel, Executor executor) {
+		this.channel = channel;
+		this.executor = executor;
+		future = new ChannelFuture<Message>();
+		crate = null;
+		resolved = false;
+	}
+
+	/**
+	 * Start reading from a channel
+	 * @param channel - the channel to read from
+	 * @param executor - completes the future
+	 * @return - the future message. It fails with a ChannelClosed or RegistrationException if the channel could not be read
+	 */
+	static <Message> ChannelFuture<Message> read(Channel<Message> channel, Executor executor) {
+		AsyncRead<Message> read = new AsyncRead<Message>(channel,executor);
+		read.future.setWaiter(read);
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			read.crate = channel.registerReader(read);
+		} catch (RegistrationException exception) {
+			manipulator.releaseResources();
+			read.future.completeExceptionally(exception);
+			return read.future;
+		} catch (ChannelClosed exception) {
+			manipulator.releaseResources();
+			read.future.completeExceptionally(exception);
+			return read.future;
+		}
+		channel.refresh(manipulator);
+		manipulator.releaseResources();
+		return read.future;
+	}
+
+	@Override
+	public boolean withdraw() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			if (resolved) {
+				return false;
+			}
+			resolved = true;
+			channel.deregisterReader(crate);
+			channel.refresh(manipulator);
+			return true;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+
+	@Override
+	public void channelClosed(ResourceManipulator manipulator) {
+		resolved = true;
+		final ChannelClosed closed = new ChannelClosed(channel);
+		ChannelFuture.completeOn(executor,new Runnable() {public void run() {
+			future.completeExceptionally(closed);
+		}});
+	}
+
+	@Override
+	public void writerArrived(final Message message, ResourceManipulator manipulator) {
+		resolved = true;
+		ChannelMetrics metrics = channel.getMetricsProtected();
+		if (metrics!=null) {
+			metrics.messageTransferred();
+		}
+		ChannelFuture.completeOn(executor,new Runnable() {public void run() {
+			future.complete(message);
+		}});
+	}
+}
@@ -0,0 +1,118 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.Executor;
+
+import mjb.dev.cjo.channels.WaitingWriter;
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class writes to a channel without holding up a thread. The outcome arrives in a {@link ChannelFuture}.<br>
+ * The writer waits in the channel like any other, and when a reader arrives (or the channel closes), the future is
+ * completed on the executor (see {@link ChannelFuture#completeOn(Executor, Runnable)}). The executor must not run tasks in
+ * the calling thread, as the call is made while the channel is held.
+ *
+ * @param <Message> - the type of message being written
+ */
+final class AsyncWrite<Message> extends Crate<WaitingWriter<Message>> implements WaitingWriter<Message>, ChannelFuture.Withdrawable {
+	private final Channel<Message> channel;
+	private final Executor executor;
+	private final ChannelFuture<Void> future;
+	//The message (let go once written)
+	private Message message;
+	//My crate in the channel
+	private Crate<WaitingWriter<Message>> crate;
+	//True once the channel has responded or the write was withdrawn (only touched while the channel is held)
+	private boolean resolved;
+
+	private AsyncWrite(Channel<Message> channel, Message message, Executor executor) {
+		this.channel = channel;
+		this.message = message;
+		this.executor = executor;
+		future = new ChannelFuture<Void>();
+		crate = null;
+		resolved = false;
+	}
+
+	/**
+	 * Start writing to a channel
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param executor - completes the future
+	 * @return - the future outcome (null once written). It fails with a ChannelClosed or RegistrationException if the channel
+	 * could not be written to
+	 */
+	static <Message> ChannelFuture<Void> write(Channel<Message> channel, Message message, Executor executor) {
+		AsyncWrite<Message> write = new AsyncWrite<Message>(channel,message,executor);
+		write.future.setWaiter(write);
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			write.crate = channel.registerWriter(write);
+		} catch (RegistrationException exception) {
+			manipulator.releaseResources();
+			write.future.completeExceptionally(exception);
+			return write.future;
+		} catch (ChannelClosed exception) {
+			manipulator.releaseResources();
+			write.future.completeExceptionally(exception);
+			return write.future;
+		}
+		channel.refresh(manipulator);
+		manipulator.releaseResources();
+		return write.future;
+	}
+
+	@Override
+	public boolean withdraw() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			if (resolved) {
+				return false;
+			}
+			if (!channel.withdrawWriter(crate)) {
+				//Too late - the message has already gone
+				readerArrived(manipulator);
+				channel.refresh(manipulator);
+				return false;
+			}
+			resolved = true;
+			channel.refresh(manipulator);
+			message = null;
+			return true;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+
+	@Override
+	public void channelClosed(ResourceManipulator manipulator) {
+		resolved = true;
+		message = null;
+		final ChannelClosed closed = new ChannelClosed(channel);
+		ChannelFuture.completeOn(executor,new Runnable() {public void run() {
+			future.completeExceptionally(closed);
+		}});
+	}
+
+	@Override
+	public void readerArrived(ResourceManipulator manipulator) {
+		resolved = true;
+		message = null;
+		ChannelFuture.completeOn(executor,new Runnable() {public void run() {
+			future.complete(null);
+		}});
+	}
+
+	@Override
+	public Message getMessage() {
+		return message;
+	}
+}
@@ -3,6 +3,8 @@ package mjb.dev.cjo.operators;
 import mjb.dev.cjo.channels.WaitingReader;
 import mjb.dev.cjo.channels.WaitingWriter;
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.metrics.ChannelMetricsRegistry;
 import mjb.dev.cjo.parallelresources.Resource;
 import mjb.dev.cjo.parallelresources.ResourceGraph;
 import mjb.dev.cjo.parallelresources.ResourceManipulator;
@@ -29,6 +31,12 @@ public abstract class Channel<Message> {
 	//The read and write ends
 	private final ChannelReader<Message> reader;
 	private final ChannelWriter<Message> writer;
+	//Decides how long readers and writers spin waiting for each other
+	private final SpinTuner spinTuner;
+	//The metrics for this channel (null unless enabled - only changed while the channel is held)
+	private ChannelMetrics metrics;
+	//The name in the metrics, for anyone who mustn't hold the channel to find it (null unless enabled)
+	private volatile String metricsName;
 	
 	/**
 	 * Construct a new channel with no readers or writers waiting
@@ -39,6 +47,16 @@ public abstract class Channel<Message> {
 		manipulator.releaseResources();
 		reader = new ChannelReader<Message>(this);
 		writer = new ChannelWriter<Message>(this);
+		spinTuner = new SpinTuner();
+		metrics = null;
+		metricsName = null;
+	}
+	
+	/**
+	 * @return - the tuner for spinning on this channel
+	 */
+	final SpinTuner getSpinTuner() {
+		return spinTuner;
 	}
 	
 	/**
@@ -73,6 +91,80 @@ public abstract class Channel<Message> {
 		return writer;
 	}
 	
+	/**
+	 * Start recording metrics for this channel, and publish them in the {@link ChannelMetricsRegistry} (and so over JMX).
+	 * If metrics were already enabled, they are replaced.
+	 * @param name - the name of this channel in the metrics
+	 * @return - the new metrics
+	 * @throws IllegalArgumentException - if the name is empty or already in use by another channel
+	 */
+	public final ChannelMetrics enableMetrics(String name) {
+		ChannelMetrics newMetrics = new ChannelMetrics(name);
+		ChannelMetrics oldMetrics = getMetrics();
+		if (oldMetrics!=null && oldMetrics.getName().equals(name)) {
+			ChannelMetricsRegistry.INSTANCE.unregister(oldMetrics); //make room for them
+		}
+		ChannelMetricsRegistry.INSTANCE.register(newMetrics);
+		oldMetrics = swapMetrics(newMetrics);
+		if (oldMetrics!=null) {
+			ChannelMetricsRegistry.INSTANCE.unregister(oldMetrics);
+		}
+		return newMetrics;
+	}
+	
+	/**
+	 * Stop recording metrics for this channel, and remove them from the registry. This has no effect if metrics were not enabled.
+	 */
+	public final void disableMetrics() {
+		ChannelMetrics oldMetrics = swapMetrics(null);
+		if (oldMetrics!=null) {
+			ChannelMetricsRegistry.INSTANCE.unregister(oldMetrics);
+		}
+	}
+	
+	/**
+	 * @return - the metrics being recorded for this channel, or null if metrics are not enabled
+	 */
+	public final ChannelMetrics getMetrics() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(resource);
+		try {
+			return metrics;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+	
+	/**
+	 * @return - the name of this channel in its metrics, or null if metrics are not enabled. Unlike {@link #getMetrics()},
+	 * this does not hold the channel, so it is safe for monitoring threads (it may be a moment out of date)
+	 */
+	public final String getMetricsName() {
+		return metricsName;
+	}
+	
+	/*
+	 * Change the metrics while holding the channel, so that everyone using it sees the change
+	 */
+	private ChannelMetrics swapMetrics(ChannelMetrics newMetrics) {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(resource);
+		try {
+			ChannelMetrics oldMetrics = metrics;
+			metrics = newMetrics;
+			metricsName = newMetrics==null ? null : newMetrics.getName();
+			return oldMetrics;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+	
+	/**
+	 * @return - the metrics being recorded for this channel, or null if metrics are not enabled.
+	 * Only call this while holding the channel's resource!
+	 */
+	protected final ChannelMetrics getMetricsProtected() {
+		return metrics;
+	}
+	
 	/**
 	 * Perform an asynchronous check to see if this channel is closed. Note that channels cannot re-open,
 	 * so if this returns true, then the channel is certainly and will remain closed. It will be true if you wait
@@ -119,6 +211,18 @@ public abstract class Channel<Message> {
 	 */
 	protected abstract void deregisterWriter(Crate<WaitingWriter<Message>> writer);
 	
+	/**
+	 * Withdraw a writer which gave up waiting, unless its message can no longer be taken back (say it has already been sent
+	 * somewhere). In that case the channel forgets the writer, and the writer should treat its message as written.
+	 * By default, writers can always be withdrawn.
+	 * @param writer - the writer to be removed from the internal list of writers
+	 * @return - true iff the writer was withdrawn, false if its message has already gone
+	 */
+	protected boolean withdrawWriter(Crate<WaitingWriter<Message>> writer) {
+		deregisterWriter(writer);
+		return true;
+	}
+	
 	/**
 	 * You are expected to acquire the resource of the channel before any interactions on it
 	 * (through the resource graph). Once you have finished your interactions, you should release
@@ -136,4 +240,43 @@ public abstract class Channel<Message> {
 	 * @param manipulator - the manipulator holding the lock on this channel
 	 */
 	protected abstract void update(ResourceManipulator manipulator);
+	
+	/**
+	 * Update the channel (see {@link #update(ResourceManipulator)}), and then record its state in its metrics if enabled.
+	 * Operators should call this rather than update directly, as should channels that update themselves (say when a message
+	 * arrives from elsewhere).
+	 * @param manipulator - the manipulator holding the lock on this channel
+	 */
+	protected final void refresh(ResourceManipulator manipulator) {
+		update(manipulator);
+		if (metrics!=null) {
+			metrics.sample(getWaitingReadersForMetrics(),getWaitingWritersForMetrics(),getBufferedMessagesForMetrics());
+		}
+	}
+	
+	/*
+	 * The following are only called when metrics are enabled, while the channel is held. Channels should
+	 * override them to describe themselves as best they can.
+	 */
+	
+	/**
+	 * @return - the number of readers waiting on this channel
+	 */
+	protected int getWaitingReadersForMetrics() {
+		return 0;
+	}
+	
+	/**
+	 * @return - the number of writers waiting on this channel (not counting messages which are buffered)
+	 */
+	protected int getWaitingWritersForMetrics() {
+		return 0;
+	}
+	
+	/**
+	 * @return - the number of messages buffered in this channel
+	 */
+	protected int getBufferedMessagesForMetrics() {
+		return 0;
+	}
 }
@@ -0,0 +1,91 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import mjb.dev.cjo.threads.ThreadScheduler;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * The future result of an asynchronous read or write on a channel (see {@link Ops#readAsync(Channel)} and
+ * {@link Ops#writeAsync(Channel, Object)}).<br>
+ * It completes when the channel hands over a message (or takes one), and fails with a
+ * {@link mjb.dev.cjo.channels.exceptions.ChannelClosed} if the channel closes first. It is always completed on the
+ * executor given to the operation, never inside the channel. (If the executor refuses - say it has been shut down - the
+ * future is completed on a task of its own instead.)<br>
+ * Cancelling the future withdraws the read or write from the channel, unless it has already happened. (Completing it
+ * yourself does not - use cancel!)
+ *
+ * @param <T> - the type of the result
+ */
+public class ChannelFuture<T> extends CompletableFuture<T> {
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Something waiting on a channel which can be withdrawn
+	 *
+	 */
+	interface Withdrawable {
+		/**
+		 * Withdraw from the channel
+		 * @return - true iff withdrawn (false if the channel had already responded)
+		 */
+		boolean withdraw();
+	}
+
+	//The waiter to withdraw if cancelled (set once when the operation starts)
+	private volatile Withdrawable waiter;
+
+	/**
+	 * Construct a new future (only the operators make these)
+	 */
+	ChannelFuture() {
+		waiter = null;
+	}
+
+	/**
+	 * @param waiter - the waiter to withdraw if this is cancelled
+	 */
+	void setWaiter(Withdrawable waiter) {
+		this.waiter = waiter;
+	}
+
+	/**
+	 * Complete a future on an executor, or on a task of its own if the executor refuses. This is called while
+	 * the channel is held, so the completion is never run directly.
+	 * @param executor - the executor given to the operation
+	 * @param completion - completes the future
+	 */
+	static void completeOn(Executor executor, Runnable completion) {
+		try {
+			executor.execute(completion);
+		} catch (RejectedExecutionException e) {
+			ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(completion,true));
+		}
+	}
+
+	/**
+	 * Cancel the read or write. This only succeeds if the channel has not already responded.
+	 * @param mayInterruptIfRunning - has no effect (nothing is running)
+	 * @return - true iff the operation was cancelled
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (isDone()) {
+			return false;
+		}
+		Withdrawable currentWaiter = waiter;
+		if (currentWaiter!=null && !currentWaiter.withdraw()) {
+			return false; //too late - the result is on its way
+		}
+		return super.cancel(mayInterruptIfRunning);
+	}
+}
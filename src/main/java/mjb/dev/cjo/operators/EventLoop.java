@@ -0,0 +1,99 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import mjb.dev.cjo.threads.ManagedWaits;
+import mjb.dev.cjo.threads.ThreadScheduler;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * One thread running the events of many {@link EventProcess}es, one at a time, in the order they happened.<br>
+ * Channels post events from whichever thread completed the interaction, so the loop sleeps when there is nothing to do
+ * and is woken by a single unpark.
+ *
+ */
+final class EventLoop {
+	//The logger for event loops
+	private static final Logger logger = Logger.getLogger(EventLoop.class);
+	//Events waiting to run
+	private final ConcurrentLinkedQueue<Runnable> events;
+	//The loop's thread (set once started)
+	private volatile Thread thread;
+	//True while the loop is (about to be) asleep
+	private volatile boolean isSleeping;
+	//True once told to stop
+	private volatile boolean isShutdown;
+
+	/**
+	 * Construct and start a new event loop
+	 */
+	EventLoop() {
+		events = new ConcurrentLinkedQueue<Runnable>();
+		thread = null;
+		isSleeping = false;
+		isShutdown = false;
+		ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			loop();
+		}},true));
+	}
+
+	/**
+	 * Run an event on the loop as soon as possible (from any thread, even while holding a channel)
+	 * @param event - the event
+	 */
+	void post(Runnable event) {
+		events.add(event);
+		if (isSleeping) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Stop the loop once it has run the events posted so far
+	 */
+	void shutdown() {
+		isShutdown = true;
+		post(new Runnable() {public void run() {}}); //wake it up
+	}
+
+	/**
+	 * @return - true iff called from this loop's thread
+	 */
+	boolean inLoop() {
+		return Thread.currentThread()==thread;
+	}
+
+	private void loop() {
+		thread = Thread.currentThread();
+		while (true) {
+			Runnable event = events.poll();
+			if (event!=null) {
+				try {
+					event.run();
+				} catch (RuntimeException e) {
+					//Events look after their own failures, so this is a bug
+					logger.error("loop: an event failed",e);
+				}
+				continue;
+			}
+			if (isShutdown) {
+				return;
+			}
+			//(Anyone posting after this sees we are asleep, or we see their event)
+			isSleeping = true;
+			if (events.isEmpty() && !isShutdown) {
+				//Interrupts mean nothing to the loop, but one left set would stop it parking at all
+				Thread.interrupted();
+				ManagedWaits.parkNanos(Long.MAX_VALUE);
+			}
+			isSleeping = false;
+		}
+	}
+}
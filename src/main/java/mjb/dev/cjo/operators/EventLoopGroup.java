@@ -0,0 +1,92 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A fixed set of event loop threads for running {@link EventProcess}es.<br>
+ * Each process is given to one loop when spawned, and all of its callbacks run on that loop's thread, one at a time.
+ * A process waiting on a channel holds no thread at all - just the process and a small record in the channel - so a few
+ * loops can look after hundreds of thousands of mostly idle processes.<br>
+ * Callbacks must not block (no ordinary reads, writes or alts!), or every process on the loop will wait with them.
+ *
+ */
+public class EventLoopGroup {
+	private final EventLoop[] loops;
+	//For handing out loops in turn
+	private final AtomicInteger nextLoop;
+	//The number of processes not yet stopped
+	private final AtomicInteger liveProcesses;
+
+	/**
+	 * Construct a new group with one loop per core
+	 */
+	public EventLoopGroup() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a new group
+	 * @param threads - the number of event loops
+	 * @throws IllegalArgumentException - if the number of threads is less than one
+	 */
+	public EventLoopGroup(int threads) {
+		if (threads<1) {
+			throw new IllegalArgumentException("Cannot construct an event loop group with " + threads + " threads (less than one)");
+		}
+		loops = new EventLoop[threads];
+		for (int i=0; i<threads; i++) {
+			loops[i] = new EventLoop();
+		}
+		nextLoop = new AtomicInteger(0);
+		liveProcesses = new AtomicInteger(0);
+	}
+
+	/**
+	 * Start a process on one of the loops. Its {@link EventProcess#onStart()} runs on the loop shortly.
+	 * @param process - the process to start
+	 * @throws IllegalStateException - if the process has been spawned before
+	 */
+	public void spawn(final EventProcess process) {
+		EventLoop loop = loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+		process.attach(this,loop);
+		liveProcesses.incrementAndGet();
+		loop.post(new Runnable() {public void run() {
+			process.start();
+		}});
+	}
+
+	/**
+	 * Stop the loops once they have run the events posted so far. Processes still waiting on channels will never hear back.
+	 */
+	public void shutdown() {
+		for (EventLoop loop : loops) {
+			loop.shutdown();
+		}
+	}
+
+	/**
+	 * @return - the number of processes spawned and not yet stopped
+	 */
+	public int getLiveProcesses() {
+		return liveProcesses.get();
+	}
+
+	/**
+	 * @return - the number of event loops
+	 */
+	public int getThreads() {
+		return loops.length;
+	}
+
+	/**
+	 * A process stopped
+	 */
+	void processStopped() {
+		liveProcesses.decrementAndGet();
+	}
+}
@@ -0,0 +1,287 @@
+package mjb.dev.cjo.operators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A process written as callbacks rather than as a thread, run by an {@link EventLoopGroup}.<br>
+ * Instead of waiting for a read, the process asks to be called back with the message
+ * ({@link #read(Channel, MessageHandler)}), and instead of waiting for a write, it asks to be called back once the message
+ * has been taken ({@link #write(Channel, Object, WriteHandler)}). While waiting, the process holds no thread - the channel
+ * calls it back on its event loop.<br>
+ * Everything a process does happens on its loop, one callback at a time, so the process needs no locks of its own.
+ * Callbacks must not block! For example, an echo process:<br>
+ * <br>
+ * protected void onStart() {<br>
+ * &nbsp;&nbsp;read(in,new MessageHandler&lt;String&gt;() {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;public void onMessage(String message) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;write(out,message,new WriteHandler() {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;public void onReadyToWrite() {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;onStart(); //go round again<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;});<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br>
+ * &nbsp;&nbsp;});<br>
+ * }<br>
+ * <br>
+ * Event processes and ordinary processes can share channels freely.
+ *
+ */
+public abstract class EventProcess {
+	//The logger for event processes
+	private static final Logger logger = Logger.getLogger(EventProcess.class);
+	//Where this process runs (set once spawned)
+	private EventLoopGroup group;
+	private EventLoop loop;
+	//Reads and writes still waiting in their channels (only touched on the loop)
+	private final List<ChannelFuture.Withdrawable> pending;
+	//True once stopped (only touched on the loop)
+	private boolean isStopped;
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Called back with a message that was read
+	 *
+	 * @param <Message> - the type of message read
+	 */
+	public interface MessageHandler<Message> {
+		/**
+		 * Called on the process's loop with the message read
+		 * @param message - the message
+		 */
+		public void onMessage(Message message);
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Called back once a message has been written
+	 *
+	 */
+	public interface WriteHandler {
+		/**
+		 * Called on the process's loop once the message was taken, so the process is ready to write again
+		 */
+		public void onReadyToWrite();
+	}
+
+	/**
+	 * Construct a new event process (spawn it on an event loop group to start it)
+	 */
+	protected EventProcess() {
+		group = null;
+		loop = null;
+		pending = new ArrayList<ChannelFuture.Withdrawable>(1);
+		isStopped = false;
+	}
+
+	/**
+	 * Called on the process's loop when it is spawned. Start reading or writing here.
+	 */
+	protected abstract void onStart();
+
+	/**
+	 * Called on the process's loop when a channel it was waiting on closes. The process stops by default.
+	 * @param channel - the channel that closed
+	 */
+	protected void onClosed(Channel<?> channel) {
+		stop();
+	}
+
+	/**
+	 * Called on the process's loop when one of its callbacks throws. The failure is logged and the process stopped by default.
+	 * @param failure - what was thrown
+	 */
+	protected void onFailure(Throwable failure) {
+		logger.error("onFailure: an event process failed, so stopping it",failure);
+		stop();
+	}
+
+	/**
+	 * Read a message from a channel, and be called back with it. (Call this on the process's loop - from a callback)
+	 * @param channel - the channel to read from
+	 * @param handler - called with the message
+	 * @throws RegistrationException - if the channel cannot be read like this
+	 * @throws IllegalStateException - if not called on the process's loop, or the process has stopped
+	 */
+	protected final <Message> void read(Channel<Message> channel, MessageHandler<? super Message> handler) {
+		checkInLoop();
+		EventRead<Message> read = new EventRead<Message>(this,channel,handler);
+		if (read.start()) {
+			pending.add(read);
+		}
+	}
+
+	/**
+	 * Read a message from a channel, and be called back with it. (Call this on the process's loop - from a callback)
+	 * @param channel - the channel to read from
+	 * @param handler - called with the message
+	 * @throws RegistrationException - if the channel cannot be read like this
+	 * @throws IllegalStateException - if not called on the process's loop, or the process has stopped
+	 */
+	protected final <Message> void read(ChannelReader<Message> channel, MessageHandler<? super Message> handler) {
+		read(channel.getChannel(),handler);
+	}
+
+	/**
+	 * Write a message into a channel, and be called back once it is taken. (Call this on the process's loop - from a callback)
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param handler - called once the message is taken
+	 * @throws RegistrationException - if the channel cannot be written to like this
+	 * @throws IllegalStateException - if not called on the process's loop, or the process has stopped
+	 */
+	protected final <Message> void write(Channel<Message> channel, Message message, WriteHandler handler) {
+		checkInLoop();
+		EventWrite<Message> write = new EventWrite<Message>(this,channel,message,handler);
+		if (write.start()) {
+			pending.add(write);
+		}
+	}
+
+	/**
+	 * Write a message into a channel, and be called back once it is taken. (Call this on the process's loop - from a callback)
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param handler - called once the message is taken
+	 * @throws RegistrationException - if the channel cannot be written to like this
+	 * @throws IllegalStateException - if not called on the process's loop, or the process has stopped
+	 */
+	protected final <Message> void write(ChannelWriter<Message> channel, Message message, WriteHandler handler) {
+		write(channel.getChannel(),message,handler);
+	}
+
+	/**
+	 * Stop the process. Reads and writes still waiting are withdrawn from their channels, and no more callbacks are made
+	 * (apart from any already on their way - a message which has left its channel is still delivered).
+	 * This does nothing if the process has already stopped. (Call this on the process's loop - from a callback)
+	 * @throws IllegalStateException - if not called on the process's loop
+	 */
+	protected final void stop() {
+		if (loop==null || !loop.inLoop()) {
+			throw new IllegalStateException("An event process can only be stopped from its own loop");
+		}
+		if (isStopped) {
+			return;
+		}
+		isStopped = true;
+		for (ChannelFuture.Withdrawable operation : pending) {
+			operation.withdraw();
+		}
+		pending.clear();
+		group.processStopped();
+	}
+
+	/**
+	 * @return - true iff the process has stopped
+	 */
+	protected final boolean isStopped() {
+		return isStopped;
+	}
+
+	/**
+	 * Give the process its loop
+	 * @throws IllegalStateException - if it already has one
+	 */
+	synchronized void attach(EventLoopGroup group, EventLoop loop) {
+		if (this.loop!=null) {
+			throw new IllegalStateException("An event process can only be spawned once");
+		}
+		this.group = group;
+		this.loop = loop;
+	}
+
+	/**
+	 * Start the process (on its loop)
+	 */
+	void start() {
+		try {
+			onStart();
+		} catch (Throwable failure) {
+			fail(failure);
+		}
+	}
+
+	/**
+	 * @return - the process's loop
+	 */
+	EventLoop getLoop() {
+		return loop;
+	}
+
+	/**
+	 * A read finished (on the loop)
+	 */
+	<Message> void delivered(EventRead<Message> read, MessageHandler<? super Message> handler, Message message) {
+		pending.remove(read);
+		try {
+			handler.onMessage(message);
+		} catch (Throwable failure) {
+			fail(failure);
+		}
+	}
+
+	/**
+	 * A write finished (on the loop)
+	 */
+	void written(ChannelFuture.Withdrawable write, WriteHandler handler) {
+		pending.remove(write);
+		if (isStopped) {
+			return;
+		}
+		try {
+			handler.onReadyToWrite();
+		} catch (Throwable failure) {
+			fail(failure);
+		}
+	}
+
+	/**
+	 * A channel closed on a read or write (on the loop)
+	 */
+	void closed(ChannelFuture.Withdrawable operation, Channel<?> channel) {
+		pending.remove(operation);
+		if (isStopped) {
+			return;
+		}
+		try {
+			onClosed(channel);
+		} catch (Throwable failure) {
+			fail(failure);
+		}
+	}
+
+	private void fail(Throwable failure) {
+		try {
+			onFailure(failure);
+		} catch (Throwable again) {
+			logger.error("fail: an event process failed handling its own failure",again);
+			stop();
+		}
+	}
+
+	private void checkInLoop() {
+		if (loop==null || !loop.inLoop()) {
+			throw new IllegalStateException("An event process can only read or write from its own loop");
+		}
+		if (isStopped) {
+			throw new IllegalStateException("An event process cannot read or write once stopped");
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package mjb.dev.cjo.operators;
+
+import mjb.dev.cjo.channels.WaitingReader;
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A read by an {@link EventProcess}. It waits in the channel like any other reader, and when a writer arrives it posts
+ * itself to the process's loop to deliver the message (the channel is held at the time, so it cannot call the process then
+ * and there).
+ *
+ * @param <Message> - the type of message being read
+ */
+final class EventRead<Message> extends Crate<WaitingReader<Message>> implements WaitingReader<Message>, ChannelFuture.Withdrawable, Runnable {
+	private final EventProcess process;
+	private final Channel<Message> channel;
+	private final EventProcess.MessageHandler<? super Message> handler;
+	//My crate in the channel
+	private Crate<WaitingReader<Message>> crate;
+	//True once the channel has responded or the read was withdrawn (only touched while the channel is held)
+	private boolean resolved;
+	//What happened (set before posting)
+	private Message message;
+	private boolean wasClosed;
+
+	EventRead(EventProcess process, Channel<Message> channel, EventProcess.MessageHandler<? super Message> handler) {
+		this.process = process;
+		this.channel = channel;
+		this.handler = handler;
+		crate = null;
+		resolved = false;
+		message = null;
+		wasClosed = false;
+	}
+
+	/**
+	 * Join the channel
+	 * @return - true iff now waiting (false if the channel had already closed - the process hears about it shortly)
+	 */
+	boolean start() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			crate = channel.registerReader(this);
+		} catch (ChannelClosed exception) {
+			resolved = true;
+			wasClosed = true;
+			manipulator.releaseResources();
+			process.getLoop().post(this);
+			return false;
+		} catch (RuntimeException exception) {
+			manipulator.releaseResources();
+			throw exception;
+		}
+		channel.refresh(manipulator);
+		manipulator.releaseResources();
+		return true;
+	}
+
+	@Override
+	public boolean withdraw() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			if (resolved) {
+				return false;
+			}
+			resolved = true;
+			channel.deregisterReader(crate);
+			channel.refresh(manipulator);
+			return true;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+
+	@Override
+	public void channelClosed(ResourceManipulator manipulator) {
+		resolved = true;
+		wasClosed = true;
+		process.getLoop().post(this);
+	}
+
+	@Override
+	public void writerArrived(Message message, ResourceManipulator manipulator) {
+		resolved = true;
+		this.message = message;
+		ChannelMetrics metrics = channel.getMetricsProtected();
+		if (metrics!=null) {
+			metrics.messageTransferred();
+		}
+		process.getLoop().post(this);
+	}
+
+	/**
+	 * Tell the process (on its loop)
+	 */
+	@Override
+	public void run() {
+		if (wasClosed) {
+			process.closed(this,channel);
+		} else {
+			Message delivered = message;
+			message = null;
+			process.delivered(this,handler,delivered);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package mjb.dev.cjo.operators;
+
+import mjb.dev.cjo.channels.WaitingWriter;
+import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.parallelresources.ResourceGraph;
+import mjb.dev.cjo.parallelresources.ResourceManipulator;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A write by an {@link EventProcess}. It waits in the channel like any other writer, and when a reader arrives it posts
+ * itself to the process's loop to say so (the channel is held at the time, so it cannot call the process then and there).
+ *
+ * @param <Message> - the type of message being written
+ */
+final class EventWrite<Message> extends Crate<WaitingWriter<Message>> implements WaitingWriter<Message>, ChannelFuture.Withdrawable, Runnable {
+	private final EventProcess process;
+	private final Channel<Message> channel;
+	private final EventProcess.WriteHandler handler;
+	//The message (let go once written)
+	private Message message;
+	//My crate in the channel
+	private Crate<WaitingWriter<Message>> crate;
+	//True once the channel has responded or the write was withdrawn (only touched while the channel is held)
+	private boolean resolved;
+	//What happened (set before posting)
+	private boolean wasClosed;
+
+	EventWrite(EventProcess process, Channel<Message> channel, Message message, EventProcess.WriteHandler handler) {
+		this.process = process;
+		this.channel = channel;
+		this.message = message;
+		this.handler = handler;
+		crate = null;
+		resolved = false;
+		wasClosed = false;
+	}
+
+	/**
+	 * Join the channel
+	 * @return - true iff now waiting (false if the channel had already closed - the process hears about it shortly)
+	 */
+	boolean start() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			crate = channel.registerWriter(this);
+		} catch (ChannelClosed exception) {
+			resolved = true;
+			wasClosed = true;
+			message = null;
+			manipulator.releaseResources();
+			process.getLoop().post(this);
+			return false;
+		} catch (RuntimeException exception) {
+			manipulator.releaseResources();
+			throw exception;
+		}
+		channel.refresh(manipulator);
+		manipulator.releaseResources();
+		return true;
+	}
+
+	@Override
+	public boolean withdraw() {
+		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
+		try {
+			if (resolved) {
+				return false;
+			}
+			if (!channel.withdrawWriter(crate)) {
+				//Too late - the message has already gone
+				readerArrived(manipulator);
+				channel.refresh(manipulator);
+				return false;
+			}
+			resolved = true;
+			channel.refresh(manipulator);
+			message = null;
+			return true;
+		} finally {
+			manipulator.releaseResources();
+		}
+	}
+
+	@Override
+	public void channelClosed(ResourceManipulator manipulator) {
+		resolved = true;
+		wasClosed = true;
+		message = null;
+		process.getLoop().post(this);
+	}
+
+	@Override
+	public void readerArrived(ResourceManipulator manipulator) {
+		resolved = true;
+		message = null;
+		process.getLoop().post(this);
+	}
+
+	@Override
+	public Message getMessage() {
+		return message;
+	}
+
+	/**
+	 * Tell the process (on its loop)
+	 */
+	@Override
+	public void run() {
+		if (wasClosed) {
+			process.closed(this,channel);
+		} else {
+			process.written(this,handler);
+		}
+	}
+}
@@ -1,7 +1,12 @@
 package mjb.dev.cjo.operators;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.exceptions.ParallelException;
 import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
+import mjb.dev.cjo.utilities.Box;
 
 /**
  * ****************<br>
@@ -28,7 +33,7 @@ public class Ops {
 	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
 	 */
 	public static <Message> Message read(Channel<Message> channel) {
-		return new Read<Message>().read(channel);
+		return Read.<Message>forThisThread().read(channel);
 	}
 	
 	/**
@@ -40,7 +45,7 @@ public class Ops {
 	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
 	 */
 	public static <Message> Message read(ChannelReader<Message> channel) {
-		return new Read<Message>().read(channel);
+		return Read.<Message>forThisThread().read(channel);
 	}
 	
 	/**
@@ -53,7 +58,7 @@ public class Ops {
 	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
 	 */
 	public static <Message> void write(Channel<Message> channel, Message message) {
-		new Write<Message>().write(channel,message);
+		Write.<Message>forThisThread().write(channel,message);
 	}
 	
 	/**
@@ -66,7 +71,226 @@ public class Ops {
 	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
 	 */
 	public static <Message> void write(ChannelWriter<Message> channel, Message message) {
-		new Write<Message>().write(channel,message);
+		Write.<Message>forThisThread().write(channel,message);
+	}
+	
+	/**
+	 * Read a message from a channel only if one is ready straight away. This is much cheaper than an alt with an or else
+	 * branch, as it only touches the channel. Note that illegal state exceptions may be thrown if the underlying channel is
+	 * improperly used.
+	 * @param channel - the channel to read from
+	 * @return - a box holding the message from the channel, or null if there was no message ready
+	 * @throws ChannelClosed - if the channel you were reading from was closed
+	 */
+	public static <Message> Box<Message> tryRead(Channel<Message> channel) {
+		return Read.<Message>forThisThread().tryRead(channel);
+	}
+	
+	/**
+	 * Read a message from a channel only if one is ready straight away. This is much cheaper than an alt with an or else
+	 * branch, as it only touches the channel. Note that illegal state exceptions may be thrown if the underlying channel is
+	 * improperly used.
+	 * @param channel - the channel to read from
+	 * @return - a box holding the message from the channel, or null if there was no message ready
+	 * @throws ChannelClosed - if the channel you were reading from was closed
+	 */
+	public static <Message> Box<Message> tryRead(ChannelReader<Message> channel) {
+		return Read.<Message>forThisThread().tryRead(channel);
+	}
+	
+	/**
+	 * Read a message from a channel, giving up if none arrives in time. This is much cheaper than an alt with an after
+	 * branch, as it only touches the channel and needs no timer. Note that illegal state exceptions may be thrown if the
+	 * underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param milliseconds - how long to wait for a message at most
+	 * @return - a box holding the message from the channel, or null if no message arrived in time
+	 * @throws ProcessInterruptedException - if the process is interrupted before it receives a message
+	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
+	 */
+	public static <Message> Box<Message> read(Channel<Message> channel, long milliseconds) {
+		return Read.<Message>forThisThread().read(channel,milliseconds);
+	}
+	
+	/**
+	 * Read a message from a channel, giving up if none arrives in time. This is much cheaper than an alt with an after
+	 * branch, as it only touches the channel and needs no timer. Note that illegal state exceptions may be thrown if the
+	 * underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param milliseconds - how long to wait for a message at most
+	 * @return - a box holding the message from the channel, or null if no message arrived in time
+	 * @throws ProcessInterruptedException - if the process is interrupted before it receives a message
+	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
+	 */
+	public static <Message> Box<Message> read(ChannelReader<Message> channel, long milliseconds) {
+		return Read.<Message>forThisThread().read(channel,milliseconds);
+	}
+	
+	/**
+	 * Write a message into a channel only if it can be taken straight away. This is much cheaper than an alt with an or else
+	 * branch, as it only touches the channel. Note that illegal state exceptions may be thrown if the underlying channel is
+	 * improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - true iff the message was written
+	 * @throws ChannelClosed - if the channel you were writing to was closed
+	 */
+	public static <Message> boolean tryWrite(Channel<Message> channel, Message message) {
+		return Write.<Message>forThisThread().tryWrite(channel,message);
+	}
+	
+	/**
+	 * Write a message into a channel only if it can be taken straight away. This is much cheaper than an alt with an or else
+	 * branch, as it only touches the channel. Note that illegal state exceptions may be thrown if the underlying channel is
+	 * improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - true iff the message was written
+	 * @throws ChannelClosed - if the channel you were writing to was closed
+	 */
+	public static <Message> boolean tryWrite(ChannelWriter<Message> channel, Message message) {
+		return Write.<Message>forThisThread().tryWrite(channel,message);
+	}
+	
+	/**
+	 * Write a message into a channel, giving up if it is not taken in time. This is much cheaper than an alt with an after
+	 * branch, as it only touches the channel and needs no timer. Note that illegal state exceptions may be thrown if the
+	 * underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param milliseconds - how long to wait for the message to be taken at most
+	 * @return - true iff the message was written
+	 * @throws ProcessInterruptedException - if the process is interrupted before it can send a message
+	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
+	 */
+	public static <Message> boolean write(Channel<Message> channel, Message message, long milliseconds) {
+		return Write.<Message>forThisThread().write(channel,message,milliseconds);
+	}
+	
+	/**
+	 * Write a message into a channel, giving up if it is not taken in time. This is much cheaper than an alt with an after
+	 * branch, as it only touches the channel and needs no timer. Note that illegal state exceptions may be thrown if the
+	 * underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param milliseconds - how long to wait for the message to be taken at most
+	 * @return - true iff the message was written
+	 * @throws ProcessInterruptedException - if the process is interrupted before it can send a message
+	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
+	 */
+	public static <Message> boolean write(ChannelWriter<Message> channel, Message message, long milliseconds) {
+		return Write.<Message>forThisThread().write(channel,message,milliseconds);
+	}
+	
+	/**
+	 * Read a message from a channel without waiting for it. The reader joins the channel straight away, and the future completes
+	 * (on the common fork join pool) when a message arrives. Cancel the future to stop reading. Note that illegal state exceptions
+	 * may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @return - the future message, which fails with a ChannelClosed if the channel closes before a message is received
+	 */
+	public static <Message> ChannelFuture<Message> readAsync(Channel<Message> channel) {
+		return AsyncRead.read(channel,ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Read a message from a channel without waiting for it. The reader joins the channel straight away, and the future completes
+	 * (on the common fork join pool) when a message arrives. Cancel the future to stop reading. Note that illegal state exceptions
+	 * may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @return - the future message, which fails with a ChannelClosed if the channel closes before a message is received
+	 */
+	public static <Message> ChannelFuture<Message> readAsync(ChannelReader<Message> channel) {
+		return AsyncRead.read(channel.getChannel(),ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Read a message from a channel without waiting for it. The reader joins the channel straight away, and the future completes
+	 * on the executor when a message arrives. Cancel the future to stop reading. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param executor - completes the future (and so runs anything chained to it). It must not run tasks in the calling thread
+	 * @return - the future message, which fails with a ChannelClosed if the channel closes before a message is received
+	 */
+	public static <Message> ChannelFuture<Message> readAsync(Channel<Message> channel, Executor executor) {
+		return AsyncRead.read(channel,executor);
+	}
+	
+	/**
+	 * Read a message from a channel without waiting for it. The reader joins the channel straight away, and the future completes
+	 * on the executor when a message arrives. Cancel the future to stop reading. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param executor - completes the future (and so runs anything chained to it). It must not run tasks in the calling thread
+	 * @return - the future message, which fails with a ChannelClosed if the channel closes before a message is received
+	 */
+	public static <Message> ChannelFuture<Message> readAsync(ChannelReader<Message> channel, Executor executor) {
+		return AsyncRead.read(channel.getChannel(),executor);
+	}
+	
+	/**
+	 * Write a message into a channel without waiting for it to be taken. The writer joins the channel straight away, and the
+	 * future completes (on the common fork join pool) when the message is taken. Cancel the future to stop writing. Note that
+	 * illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - a future which completes (with null) once the message is written, or fails with a ChannelClosed if the channel
+	 * closes first
+	 */
+	public static <Message> ChannelFuture<Void> writeAsync(Channel<Message> channel, Message message) {
+		return AsyncWrite.write(channel,message,ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Write a message into a channel without waiting for it to be taken. The writer joins the channel straight away, and the
+	 * future completes (on the common fork join pool) when the message is taken. Cancel the future to stop writing. Note that
+	 * illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - a future which completes (with null) once the message is written, or fails with a ChannelClosed if the channel
+	 * closes first
+	 */
+	public static <Message> ChannelFuture<Void> writeAsync(ChannelWriter<Message> channel, Message message) {
+		return AsyncWrite.write(channel.getChannel(),message,ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Write a message into a channel without waiting for it to be taken. The writer joins the channel straight away, and the
+	 * future completes on the executor when the message is taken. Cancel the future to stop writing. Note that illegal state
+	 * exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param executor - completes the future (and so runs anything chained to it). It must not run tasks in the calling thread
+	 * @return - a future which completes (with null) once the message is written, or fails with a ChannelClosed if the channel
+	 * closes first
+	 */
+	public static <Message> ChannelFuture<Void> writeAsync(Channel<Message> channel, Message message, Executor executor) {
+		return AsyncWrite.write(channel,message,executor);
+	}
+	
+	/**
+	 * Write a message into a channel without waiting for it to be taken. The writer joins the channel straight away, and the
+	 * future completes on the executor when the message is taken. Cancel the future to stop writing. Note that illegal state
+	 * exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param executor - completes the future (and so runs anything chained to it). It must not run tasks in the calling thread
+	 * @return - a future which completes (with null) once the message is written, or fails with a ChannelClosed if the channel
+	 * closes first
+	 */
+	public static <Message> ChannelFuture<Void> writeAsync(ChannelWriter<Message> channel, Message message, Executor executor) {
+		return AsyncWrite.write(channel.getChannel(),message,executor);
+	}
+	
+	/**
+	 * Run processes in parallel, and wait for them all to finish. The last process runs in the calling thread.
+	 * Use a {@link ProcessGroup} if you want the network's channels closed when a process fails.
+	 * @param processes - the processes to run
+	 * @throws ParallelException - if any process failed (holding every failure)
+	 * @throws IllegalArgumentException - if any process is null
+	 */
+	public static void par(Runnable... processes) {
+		new ProcessGroup().add(processes).run();
 	}
 	
 	/**
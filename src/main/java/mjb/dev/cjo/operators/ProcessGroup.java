@@ -0,0 +1,188 @@
+package mjb.dev.cjo.operators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.exceptions.ParallelException;
+import mjb.dev.cjo.threads.ThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A group of processes run in parallel, along with the channels they share.<br>
+ * {@link #run()} runs every process at once on the configured {@link ThreadScheduler} (apart from the last, which
+ * runs in the calling thread), and returns once all of them have finished. If any process fails, the group closes its
+ * channels so the rest of the network stops quickly rather than waiting forever, and run throws a {@link ParallelException}
+ * holding every failure.<br>
+ * A process which stops with a {@link ChannelClosed} has not failed - that is how a network normally winds down (a producer
+ * closes its channel when it is done, and the consumer stops when it finds the channel closed), and it is also how processes
+ * stop when the group shuts down.<br>
+ * You can also close the group yourself, from any thread, to shut its network down.<br>
+ * For example:<br>
+ * <br>
+ * ProcessGroup group = new ProcessGroup();<br>
+ * OneOneChannel&lt;Integer&gt; channel = group.addChannel(new OneOneChannel&lt;Integer&gt;());<br>
+ * group.add(producer(channel),consumer(channel)).run();<br>
+ *
+ */
+public class ProcessGroup implements AutoCloseable {
+	//The logger for groups
+	private static final Logger logger = Logger.getLogger(ProcessGroup.class);
+	//The processes
+	private final List<Runnable> processes;
+	//The channels to close when the group closes
+	private final List<Channel<?>> channels;
+	//Failures so far
+	private final List<Throwable> exceptions;
+	//True once run
+	private boolean hasRun;
+	//True once closed
+	private boolean isClosed;
+
+	/**
+	 * Construct a new empty group
+	 */
+	public ProcessGroup() {
+		processes = new ArrayList<Runnable>();
+		channels = new ArrayList<Channel<?>>();
+		exceptions = new ArrayList<Throwable>();
+		hasRun = false;
+		isClosed = false;
+	}
+
+	/**
+	 * Add processes to the group
+	 * @param processes - the processes to add
+	 * @return - this group
+	 * @throws IllegalStateException - if the group has already been run
+	 * @throws IllegalArgumentException - if any process is null
+	 */
+	public synchronized ProcessGroup add(Runnable... processes) {
+		if (hasRun) {
+			throw new IllegalStateException("Cannot add a process to a group that has already run");
+		}
+		for (Runnable process : processes) {
+			if (process==null) {
+				throw new IllegalArgumentException("Cannot add a null process to a group");
+			}
+			this.processes.add(process);
+		}
+		return this;
+	}
+
+	/**
+	 * Add a channel to the group, to be closed when the group closes
+	 * @param channel - the channel
+	 * @return - the channel (for convenience)
+	 */
+	public <C extends Channel<?>> C addChannel(C channel) {
+		boolean closeNow;
+		synchronized (this) {
+			closeNow = isClosed;
+			channels.add(channel);
+		}
+		if (closeNow) {
+			closeChannel((Channel<?>)channel);
+		}
+		return channel;
+	}
+
+	/**
+	 * Run every process in parallel, and wait for them all to finish. The last process runs in the calling thread.
+	 * @throws ParallelException - if any process failed
+	 * @throws IllegalStateException - if the group has already been run
+	 */
+	public void run() {
+		List<Runnable> toRun;
+		synchronized (this) {
+			if (hasRun) {
+				throw new IllegalStateException("Cannot run a group twice");
+			}
+			hasRun = true;
+			toRun = new ArrayList<Runnable>(processes);
+		}
+		ThreadScheduler scheduler = ThreadScheduler.INSTANCE;
+		List<Task> tasks = new ArrayList<Task>(toRun.size());
+		for (int i=0; i<toRun.size()-1; i++) {
+			final Runnable process = toRun.get(i);
+			Task task = scheduler.makeTask(new Runnable() {public void run() {
+				runProcess(process);
+			}});
+			scheduler.schedule(task);
+			tasks.add(task);
+		}
+		if (!toRun.isEmpty()) {
+			runProcess(toRun.get(toRun.size()-1));
+		}
+		for (Task task : tasks) {
+			scheduler.deschedule(task);
+		}
+		synchronized (this) {
+			if (!exceptions.isEmpty()) {
+				throw new ParallelException(exceptions);
+			}
+		}
+	}
+
+	/**
+	 * Close the group's channels (now, and any added later). Processes waiting on them will stop with a channel closed exception.
+	 * This does nothing if the group is already closed.
+	 */
+	@Override
+	public void close() {
+		List<Channel<?>> toClose;
+		synchronized (this) {
+			if (isClosed) {
+				return;
+			}
+			isClosed = true;
+			toClose = new ArrayList<Channel<?>>(channels);
+		}
+		for (Channel<?> channel : toClose) {
+			closeChannel(channel);
+		}
+	}
+
+	/**
+	 * @return - true iff the group has been closed (possibly because a process failed)
+	 */
+	public synchronized boolean isClosed() {
+		return isClosed;
+	}
+
+	/**
+	 * @return - the failures so far
+	 */
+	public synchronized List<Throwable> getExceptions() {
+		return Collections.unmodifiableList(new ArrayList<Throwable>(exceptions));
+	}
+
+	/*
+	 * Run a process, recording its failure and shutting the group down if it fails
+	 */
+	private void runProcess(Runnable process) {
+		try {
+			process.run();
+		} catch (ChannelClosed closed) {
+			//Finished normally
+		} catch (Throwable throwable) {
+			synchronized (this) {
+				exceptions.add(throwable);
+			}
+			logger.debug("runProcess: a process failed, so closing the group: " + throwable);
+			close();
+		}
+	}
+
+	private static <Message> void closeChannel(Channel<Message> channel) {
+		Ops.close(channel);
+	}
+}
@@ -1,14 +1,16 @@
 package mjb.dev.cjo.operators;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import mjb.dev.cjo.channels.WaitingReader;
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.metrics.ChannelMetrics;
 import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
 import mjb.dev.cjo.parallelresources.ResourceGraph;
 import mjb.dev.cjo.parallelresources.ResourceManipulator;
+import mjb.dev.cjo.utilities.Box;
 
 
 /**
@@ -18,12 +20,13 @@ import mjb.dev.cjo.parallelresources.ResourceManipulator;
  * ****************<br>
  * <br>
  * This class allows you to read from a channel! That's it.<br>
- * It is not thread safe, in the sense you can't use the same read object to read from multiple channels at once.
+ * It is not thread safe, in the sense you can't use the same read object to read from multiple channels at once.<br>
+ * A read is its own crate in the channel's queue, so waiting on a channel does not allocate one.
  * 
  * @param <Message> - the types of message being read
  *
  */
-public class Read<Message> implements WaitingReader<Message> {
+public class Read<Message> extends Crate<WaitingReader<Message>> implements WaitingReader<Message> {
 	//Remember if the channel closed
 	private boolean closed;
 	//Remember if a message was recieved
@@ -31,14 +34,16 @@ public class Read<Message> implements WaitingReader<Message> {
 	private boolean gotMessage;
 	//Remember if we were interrupted
 	private InterruptedException exception;
-	//A semaphore to wait on
-	private final Semaphore waitSemaphore;
+	//Where we wait
+	private final Waiter waiter;
+	//A read kept by each thread for Ops to reuse
+	private static final ThreadLocal<Read<?>> threadReads = new ThreadLocal<Read<?>>();
 	
 	/**
 	 * Construct a new object for reading
 	 */
 	public Read() {
-		waitSemaphore = new Semaphore(0);
+		waiter = new Waiter();
 	}
 	
 	/**
@@ -50,10 +55,46 @@ public class Read<Message> implements WaitingReader<Message> {
 	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
 	 */
 	public Message read(Channel<Message> channel) {
+		readWithin(channel,-1);
+		return takeMessage();
+	}
+	
+	/**
+	 * Read a message from a channel only if one is ready straight away (a writer is waiting, or it is buffered).
+	 * Note that illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @return - a box holding the message from the channel, or null if there was no message ready
+	 * @throws ChannelClosed - if the channel you were reading from was closed
+	 */
+	public Box<Message> tryRead(Channel<Message> channel) {
+		return read(channel,0);
+	}
+	
+	/**
+	 * Read a message from a channel, giving up if none arrives in time. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param milliseconds - how long to wait for a message at most (0 to not wait at all)
+	 * @return - a box holding the message from the channel, or null if no message arrived in time
+	 * @throws ProcessInterruptedException - if the process is interrupted before it receives a message
+	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
+	 */
+	public Box<Message> read(Channel<Message> channel, long milliseconds) {
+		if (readWithin(channel,TimeUnit.MILLISECONDS.toNanos(Math.max(milliseconds,0)))) {
+			return new Box<Message>(takeMessage());
+		}
+		return null;
+	}
+	
+	/*
+	 * Do the reading, waiting the given number of nanoseconds at most (or forever if negative)
+	 * Returns true iff a message was received.
+	 */
+	private boolean readWithin(Channel<Message> channel, long nanoseconds) {
 		//Reset the variables...
 		closed = false;
 		gotMessage = false;
-		waitSemaphore.drainPermits();
+		waiter.reset();
 		//Acquire the channel...
 		Crate<WaitingReader<Message>> myId = null;
 		ResourceManipulator manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
@@ -68,24 +109,43 @@ public class Read<Message> implements WaitingReader<Message> {
 			throw exception;
 		}
 		//Now update the channel, and check for a response..
-		channel.update(manipulator);
+		channel.refresh(manipulator);
+		ChannelMetrics metrics = channel.getMetricsProtected();
 		if (closed || gotMessage) {
 			manipulator.releaseResources();
 			//We received a response already
 			if (closed) {
 				throw new ChannelClosed(channel);
 			} else {
-				return message;
+				if (metrics!=null) {
+					metrics.messageTransferred();
+				}
+				return true;
 			}
+		} else if (nanoseconds==0) {
+			//Not prepared to wait
+			channel.deregisterReader(myId);
+			channel.refresh(manipulator);
+			manipulator.releaseResources();
+			return false;
 		} else {
-			//We need to wait for a writer properly...
+			//We need to wait for a writer properly (after a little spin in case one is nearly here)...
 			manipulator.releaseResources();
+			long blockedSince = metrics==null ? 0 : System.nanoTime();
+			exception = null;
 			try {
-				waitSemaphore.acquire();
+				if (nanoseconds<0) {
+					waiter.await(channel.getSpinTuner(),channel);
+				} else {
+					waiter.await(channel.getSpinTuner(),channel,nanoseconds);
+				}
 			} catch (InterruptedException e) {
 				exception = e;
 				Thread.currentThread().interrupt(); //keep the interrupt going
 			}
+			if (metrics!=null) {
+				metrics.readerBlocked(System.nanoTime()-blockedSince);
+			}
 			manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
 			//Check what happened
 			if (closed) {
@@ -93,13 +153,19 @@ public class Read<Message> implements WaitingReader<Message> {
 				throw new ChannelClosed(channel);
 			} else if (gotMessage) {
 				manipulator.releaseResources();
-				return message;
+				if (metrics!=null) {
+					metrics.messageTransferred();
+				}
+				return true;
 			} else {
-				//We were interrupted... I need to remove myself from this channel
+				//We were interrupted or ran out of time... I need to remove myself from this channel
 				channel.deregisterReader(myId);
-				channel.update(manipulator);
+				channel.refresh(manipulator);
 				manipulator.releaseResources();
-				throw new ProcessInterruptedException(exception);
+				if (exception!=null) {
+					throw new ProcessInterruptedException(exception);
+				}
+				return false;
 			}
 		}
 	}
@@ -115,17 +181,65 @@ public class Read<Message> implements WaitingReader<Message> {
 	public Message read(ChannelReader<Message> channel) {
 		return read(channel.getChannel());
 	}
+	
+	/**
+	 * Read a message from a channel only if one is ready straight away (a writer is waiting, or it is buffered).
+	 * Note that illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @return - a box holding the message from the channel, or null if there was no message ready
+	 * @throws ChannelClosed - if the channel you were reading from was closed
+	 */
+	public Box<Message> tryRead(ChannelReader<Message> channel) {
+		return tryRead(channel.getChannel());
+	}
+	
+	/**
+	 * Read a message from a channel, giving up if none arrives in time. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to read from
+	 * @param milliseconds - how long to wait for a message at most (0 to not wait at all)
+	 * @return - a box holding the message from the channel, or null if no message arrived in time
+	 * @throws ProcessInterruptedException - if the process is interrupted before it receives a message
+	 * @throws ChannelClosed - if the channel you were reading from closed before you received a message
+	 */
+	public Box<Message> read(ChannelReader<Message> channel, long milliseconds) {
+		return read(channel.getChannel(),milliseconds);
+	}
+
+	/**
+	 * @return - a read belonging to the current thread, which is reused from one read to the next so that
+	 * reading allocates nothing
+	 */
+	@SuppressWarnings("unchecked")
+	static <Message> Read<Message> forThisThread() {
+		Read<?> read = threadReads.get();
+		if (read==null || read.isQueued()) {
+			//(Only still queued if a channel forgot to remove it. Don't risk it receiving someone else's message!)
+			read = new Read<Object>();
+			threadReads.set(read);
+		}
+		return (Read<Message>)read; //it holds no message between reads, so the type doesn't matter
+	}
+	
+	/*
+	 * Hand over the message, without holding on to it
+	 */
+	private Message takeMessage() {
+		Message result = message;
+		message = null;
+		return result;
+	}
 
 	@Override
 	public void channelClosed(ResourceManipulator manipulator) {
 		closed = true;
-		waitSemaphore.release();
+		waiter.release();
 	}
 
 	@Override
 	public void writerArrived(Message message, ResourceManipulator manipulator) {
 		gotMessage = true;
 		this.message = message;
-		waitSemaphore.release();
+		waiter.release();
 	}
 }
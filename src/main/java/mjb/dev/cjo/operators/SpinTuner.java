@@ -0,0 +1,95 @@
+package mjb.dev.cjo.operators;
+
+import java.util.Properties;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Decides how long readers and writers on a channel should spin before parking.<br>
+ * Each channel has its own tuner. The budget follows (twice) a moving average of how many spins it took
+ * the partner to arrive when spinning worked, and halves whenever spinning didn't, so channels whose partners
+ * arrive quickly spin and the rest park almost straight away.<br>
+ * Spinning only pays when the partner runs on another core, so it is switched off on a single processor.
+ * It can also be switched off with the system property mjb.dev.cjo.spin=false, and the largest budget set with
+ * mjb.dev.cjo.spin.max (4096 by default).<br>
+ * The tuner is not synchronized - a lost update just means a slightly worse guess.
+ *
+ */
+final class SpinTuner {
+	//The most spins to try on this machine (0 if spinning is off)
+	private static final int MAX_SPINS = getMaxSpins(Runtime.getRuntime().availableProcessors(),System.getProperties());
+	//The most and least spins to try (the least keeps probing, so the tuner can recover)
+	private final int maxSpins;
+	private final int minSpins;
+	//The moving average of successful spins (scaled up by 8 to keep some precision)
+	private volatile int averageSpins;
+	//The current budget
+	private volatile int budget;
+
+	/**
+	 * Construct a new tuner, which starts off in the middle
+	 */
+	SpinTuner() {
+		this(MAX_SPINS);
+	}
+
+	/**
+	 * Construct a new tuner with the given largest budget, which starts off in the middle
+	 * @param maxSpins - the most spins to try (0 to never spin)
+	 */
+	SpinTuner(int maxSpins) {
+		this.maxSpins = maxSpins;
+		minSpins = Math.min(16,maxSpins);
+		budget = maxSpins/8;
+		averageSpins = budget*4; //(scaled by 8, half the budget)
+	}
+
+	/**
+	 * Work out the largest budget
+	 * @param processors - the number of processors available
+	 * @param properties - where to look for mjb.dev.cjo.spin and mjb.dev.cjo.spin.max
+	 * @return - the most spins to try (0 if spinning is switched off)
+	 */
+	static int getMaxSpins(int processors, Properties properties) {
+		if (processors<=1 || !Boolean.parseBoolean(properties.getProperty("mjb.dev.cjo.spin","true"))) {
+			return 0;
+		}
+		try {
+			return Math.max(Integer.parseInt(properties.getProperty("mjb.dev.cjo.spin.max","4096")),0);
+		} catch (NumberFormatException e) {
+			return 4096;
+		}
+	}
+
+	/**
+	 * @return - the number of times to spin before parking
+	 */
+	int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Record that the partner arrived while spinning
+	 * @param spins - how many spins it took
+	 */
+	void spinSucceeded(int spins) {
+		//average = 7/8 average + 1/8 spins
+		int average = averageSpins - (averageSpins >> 3) + spins;
+		averageSpins = average;
+		budget = clamp(average >> 2); //twice the (unscaled) average
+	}
+
+	/**
+	 * Record that the partner did not arrive while spinning
+	 */
+	void spinFailed() {
+		budget = clamp(budget >> 1);
+	}
+
+	private int clamp(int spins) {
+		return spins<minSpins ? minSpins : (spins>maxSpins ? maxSpins : spins);
+	}
+}
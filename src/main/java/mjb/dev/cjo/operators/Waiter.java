@@ -0,0 +1,162 @@
+package mjb.dev.cjo.operators;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
+import mjb.dev.cjo.metrics.SchedulerMetrics;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A one shot gate for a single waiting thread, which can be reset and reused as many times as you like.<br>
+ * The thread that will wait must call {@link #reset()} before anyone can release it, and then {@link #await()}.
+ * Anyone may call {@link #release()} (at most once per reset). Everything written before the release is visible
+ * to the thread after it wakes up.<br>
+ * This replaces a semaphore for readers and writers, as it allocates nothing and wakes the thread with a single unpark.<br>
+ * Waits are managed blocks, so a thread in a fork join pool lets the pool make up for it while it waits (elsewhere
+ * this makes no difference).
+ *
+ */
+final class Waiter implements ForkJoinPool.ManagedBlocker {
+	//The thread that will wait
+	private Thread thread;
+	//True once the thread may go
+	private volatile boolean released;
+	//When to give up waiting (only if timed)
+	private long deadline;
+	private boolean isTimed;
+
+	/**
+	 * Construct a new waiter (call reset before using it)
+	 */
+	Waiter() {
+		thread = null;
+		released = false;
+	}
+
+	/**
+	 * Get ready to wait in the current thread. This must happen before the waiter is published to whoever will release it.
+	 */
+	void reset() {
+		thread = Thread.currentThread();
+		released = false;
+	}
+
+	/**
+	 * Let the waiting thread go (whether or not it has started waiting yet)
+	 */
+	void release() {
+		released = true;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Wait until released
+	 * @throws InterruptedException - if the thread is interrupted before it is released (the interrupt flag is cleared, as with a
+	 * semaphore)
+	 */
+	void await() throws InterruptedException {
+		isTimed = false;
+		ForkJoinPool.managedBlock(this);
+	}
+
+	/**
+	 * Spin for a while in case the release is about to happen, and then wait until released
+	 * @param tuner - decides how long to spin, and learns how well it went
+	 * @param channel - what the thread is waiting on (for the scheduler's metrics, if the spin fails)
+	 * @throws InterruptedException - if the thread is interrupted before it is released (the interrupt flag is cleared, as with a
+	 * semaphore)
+	 */
+	void await(SpinTuner tuner, Object channel) throws InterruptedException {
+		if (spin(tuner)) {
+			return;
+		}
+		boolean isRecorded = SchedulerMetrics.INSTANCE.blocked(channel);
+		try {
+			await();
+		} finally {
+			if (isRecorded) {
+				SchedulerMetrics.INSTANCE.unblocked(channel);
+			}
+		}
+	}
+
+	/**
+	 * Spin for a while in case the release is about to happen, and then wait until released or the time runs out
+	 * @param tuner - decides how long to spin, and learns how well it went
+	 * @param channel - what the thread is waiting on (for the scheduler's metrics, if the spin fails)
+	 * @param nanoseconds - the longest to wait
+	 * @return - true iff released (false if the time ran out)
+	 * @throws InterruptedException - if the thread is interrupted before it is released (the interrupt flag is cleared, as with a
+	 * semaphore)
+	 */
+	boolean await(SpinTuner tuner, Object channel, long nanoseconds) throws InterruptedException {
+		long deadline = System.nanoTime()+nanoseconds;
+		if (spin(tuner)) {
+			return true;
+		}
+		//No timer needed - the park itself times out
+		this.deadline = deadline;
+		isTimed = true;
+		boolean isRecorded = SchedulerMetrics.INSTANCE.blocked(channel);
+		try {
+			ForkJoinPool.managedBlock(this);
+		} finally {
+			if (isRecorded) {
+				SchedulerMetrics.INSTANCE.unblocked(channel);
+			}
+		}
+		return released;
+	}
+
+	/**
+	 * For the fork join pool - do not call this directly
+	 * @return - true iff there is no need to wait any more
+	 */
+	@Override
+	public boolean isReleasable() {
+		return released || (isTimed && deadline-System.nanoTime()<=0);
+	}
+
+	/**
+	 * For the fork join pool - do not call this directly
+	 * @return - true iff there is no need to wait any more
+	 */
+	@Override
+	public boolean block() throws InterruptedException {
+		//Parks can end for no reason (or an old unpark), so the pool asks again if this returns false
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		if (!isTimed) {
+			LockSupport.park(this);
+		} else {
+			long remaining = deadline-System.nanoTime();
+			if (remaining>0) {
+				LockSupport.parkNanos(this,remaining);
+			}
+		}
+		return isReleasable();
+	}
+
+	/*
+	 * Spin as long as the tuner suggests. Returns true iff released while spinning
+	 */
+	private boolean spin(SpinTuner tuner) {
+		int budget = tuner.getBudget();
+		if (budget>0) {
+			for (int spins=0; spins<budget; spins++) {
+				if (released) {
+					tuner.spinSucceeded(spins);
+					return true;
+				}
+				Thread.onSpinWait();
+			}
+			tuner.spinFailed();
+		}
+		return false;
+	}
+}
@@ -1,11 +1,12 @@
 package mjb.dev.cjo.operators;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import mjb.dev.cjo.channels.WaitingWriter;
 import mjb.dev.cjo.channels.ChannelFIFOQueue.Crate;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.metrics.ChannelMetrics;
 import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
 import mjb.dev.cjo.parallelresources.ResourceGraph;
 import mjb.dev.cjo.parallelresources.ResourceManipulator;
@@ -18,12 +19,13 @@ import mjb.dev.cjo.parallelresources.ResourceManipulator;
  * ****************<br>
  * <br>
  * This class allows you to write to a channel! That's it.<br>
- * It is not thread safe, in the sense that you should not use the same object to write to multiple channels at the same time.
+ * It is not thread safe, in the sense that you should not use the same object to write to multiple channels at the same time.<br>
+ * A write is its own crate in the channel's queue, so waiting on a channel does not allocate one.
  * 
  * @param <Message> - the types of message being written
  *
  */
-public class Write<Message> implements WaitingWriter<Message> {
+public class Write<Message> extends Crate<WaitingWriter<Message>> implements WaitingWriter<Message> {
 	//Remember if the channel closed
 	private boolean closed;
 	//Remember if a reader arrived
@@ -32,14 +34,16 @@ public class Write<Message> implements WaitingWriter<Message> {
 	private InterruptedException exception;
 	//The message to write
 	private Message message;
-	//A semaphore to wait on
-	private final Semaphore waitSemaphore;
+	//Where we wait
+	private final Waiter waiter;
+	//A write kept by each thread for Ops to reuse
+	private static final ThreadLocal<Write<?>> threadWrites = new ThreadLocal<Write<?>>();
 	
 	/**
 	 * Construct a new object for reading
 	 */
 	public Write() {
-		waitSemaphore = new Semaphore(0);
+		waiter = new Waiter();
 	}
 	
 	/**
@@ -52,10 +56,55 @@ public class Write<Message> implements WaitingWriter<Message> {
 	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
 	 */
 	public void write(Channel<Message> channel, Message message) {
+		writeWithin(channel,message,-1);
+	}
+	
+	/**
+	 * Write a message into a channel only if it can be taken straight away (a reader is waiting, or there is room in a buffer).
+	 * Note that illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - true iff the message was written
+	 * @throws ChannelClosed - if the channel you were writing to was closed
+	 */
+	public boolean tryWrite(Channel<Message> channel, Message message) {
+		return write(channel,message,0);
+	}
+	
+	/**
+	 * Write a message into a channel, giving up if it is not taken in time. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param milliseconds - how long to wait for the message to be taken at most (0 to not wait at all)
+	 * @return - true iff the message was written
+	 * @throws ProcessInterruptedException - if the process is interrupted before it can send a message
+	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
+	 */
+	public boolean write(Channel<Message> channel, Message message, long milliseconds) {
+		return writeWithin(channel,message,TimeUnit.MILLISECONDS.toNanos(Math.max(milliseconds,0)));
+	}
+	
+	/*
+	 * Does the writing, waiting the given number of nanoseconds at most (or forever if negative).
+	 * Returns true iff the message was written.
+	 */
+	private boolean writeWithin(Channel<Message> channel, Message message, long nanoseconds) {
+		try {
+			return writeMessage(channel,message,nanoseconds);
+		} finally {
+			this.message = null; //don't hold on to it
+		}
+	}
+	
+	/*
+	 * Does the writing
+	 */
+	private boolean writeMessage(Channel<Message> channel, Message message, long nanoseconds) {
 		//Reset the variables...
 		closed = false;
 		wasRead = false;
-		waitSemaphore.drainPermits();
+		waiter.reset();
 		this.message = message;
 		//Acquire the channel...
 		Crate<WaitingWriter<Message>> myId = null;
@@ -71,24 +120,40 @@ public class Write<Message> implements WaitingWriter<Message> {
 			throw exception;
 		}
 		//Now update the channel, and check for a response..
-		channel.update(manipulator);
+		channel.refresh(manipulator);
+		ChannelMetrics metrics = channel.getMetricsProtected();
 		if (closed || wasRead) {
 			manipulator.releaseResources();
 			//We received a response already
 			if (closed) {
 				throw new ChannelClosed(channel);
 			} else {
-				return; //success!
+				return true; //success!
 			}
+		} else if (nanoseconds==0) {
+			//Not prepared to wait
+			boolean withdrawn = channel.withdrawWriter(myId);
+			channel.refresh(manipulator);
+			manipulator.releaseResources();
+			return !withdrawn;
 		} else {
-			//We need to wait for a writer properly...
+			//We need to wait for a reader properly (after a little spin in case one is nearly here)...
 			manipulator.releaseResources();
+			long blockedSince = metrics==null ? 0 : System.nanoTime();
+			exception = null;
 			try {
-				waitSemaphore.acquire();
+				if (nanoseconds<0) {
+					waiter.await(channel.getSpinTuner(),channel);
+				} else {
+					waiter.await(channel.getSpinTuner(),channel,nanoseconds);
+				}
 			} catch (InterruptedException e) {
 				exception = e;
 				Thread.currentThread().interrupt(); //keep the interrupt going
 			}
+			if (metrics!=null) {
+				metrics.writerBlocked(System.nanoTime()-blockedSince);
+			}
 			manipulator = ResourceGraph.INSTANCE.acquireResource(channel.getResource());
 			//Check what happened
 			if (closed) {
@@ -96,13 +161,19 @@ public class Write<Message> implements WaitingWriter<Message> {
 				throw new ChannelClosed(channel);
 			} else if (wasRead) {
 				manipulator.releaseResources();
-				return; //success!
+				return true; //success!
 			} else {
-				//We were interrupted... I need to remove myself from this channel
-				channel.deregisterWriter(myId);
-				channel.update(manipulator);
+				//We were interrupted or ran out of time... I need to remove myself from this channel
+				boolean withdrawn = channel.withdrawWriter(myId);
+				channel.refresh(manipulator);
 				manipulator.releaseResources();
-				throw new ProcessInterruptedException(exception);
+				if (!withdrawn) {
+					return true; //too late - the message has already gone
+				}
+				if (exception!=null) {
+					throw new ProcessInterruptedException(exception);
+				}
+				return false;
 			}
 		}
 	}
@@ -119,17 +190,58 @@ public class Write<Message> implements WaitingWriter<Message> {
 	public void write(ChannelWriter<Message> channel, Message message) {
 		write(channel.getChannel(),message);
 	}
+	
+	/**
+	 * Write a message into a channel only if it can be taken straight away (a reader is waiting, or there is room in a buffer).
+	 * Note that illegal state exceptions may be thrown if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @return - true iff the message was written
+	 * @throws ChannelClosed - if the channel you were writing to was closed
+	 */
+	public boolean tryWrite(ChannelWriter<Message> channel, Message message) {
+		return tryWrite(channel.getChannel(),message);
+	}
+	
+	/**
+	 * Write a message into a channel, giving up if it is not taken in time. Note that illegal state exceptions may be thrown
+	 * if the underlying channel is improperly used.
+	 * @param channel - the channel to write into
+	 * @param message - the message to write
+	 * @param milliseconds - how long to wait for the message to be taken at most (0 to not wait at all)
+	 * @return - true iff the message was written
+	 * @throws ProcessInterruptedException - if the process is interrupted before it can send a message
+	 * @throws ChannelClosed - if the channel you were writing to closed before you sent a message
+	 */
+	public boolean write(ChannelWriter<Message> channel, Message message, long milliseconds) {
+		return write(channel.getChannel(),message,milliseconds);
+	}
+
+	/**
+	 * @return - a write belonging to the current thread, which is reused from one write to the next so that
+	 * writing allocates nothing
+	 */
+	@SuppressWarnings("unchecked")
+	static <Message> Write<Message> forThisThread() {
+		Write<?> write = threadWrites.get();
+		if (write==null || write.isQueued()) {
+			//(Only still queued if a channel forgot to remove it. Don't risk it being read again!)
+			write = new Write<Object>();
+			threadWrites.set(write);
+		}
+		return (Write<Message>)write; //it holds no message between writes, so the type doesn't matter
+	}
 
 	@Override
 	public void channelClosed(ResourceManipulator manipulator) {
 		closed = true;
-		waitSemaphore.release();
+		waiter.release();
 	}
 
 	@Override
 	public void readerArrived(ResourceManipulator manipulator) {
 		wasRead = true;
-		waitSemaphore.release();
+		waiter.release();
 	}
 
 	@Override
@@ -0,0 +1,40 @@
+package mjb.dev.cjo.operators.exceptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This exception is thrown when one or more processes run in parallel failed.<br>
+ * The first failure is the cause, and any others are suppressed (all are available from {@link #getExceptions()}).
+ *
+ */
+public class ParallelException extends RuntimeException {
+	private static final long serialVersionUID = -2854311716329470912L;
+	//Everything that went wrong, in the order it went wrong
+	private final List<Throwable> exceptions;
+
+	/**
+	 * Construct a new parallel exception
+	 * @param exceptions - the failures (at least one)
+	 */
+	public ParallelException(List<Throwable> exceptions) {
+		super(exceptions.size() + " parallel process(es) failed",exceptions.get(0));
+		this.exceptions = Collections.unmodifiableList(new ArrayList<Throwable>(exceptions));
+		for (int i=1; i<exceptions.size(); i++) {
+			addSuppressed(exceptions.get(i));
+		}
+	}
+
+	/**
+	 * @return - every failure, in the order they happened
+	 */
+	public List<Throwable> getExceptions() {
+		return exceptions;
+	}
+}
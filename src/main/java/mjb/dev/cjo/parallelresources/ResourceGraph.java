@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ****************<br>
@@ -315,6 +316,17 @@ public final class ResourceGraph {
 	//The official threshold for when a resource is declared old
 	private final static int OLD_THRESHOLD = 10;
 	
+	//Statistics (only counted on the slow paths, so they cost nothing while the graph is calm):
+	
+	//Times a process had to let go of a representative and try again
+	private final LongAdder noRestartsTotal = new LongAdder();
+	//Processes which declared themselves old
+	private final LongAdder noOldProcessesTotal = new LongAdder();
+	//Times the gate shut (the first old process arriving while there were none)
+	private final LongAdder noGateEngagements = new LongAdder();
+	//Times a process found the gate shut and waited at it
+	private final LongAdder noGateWaits = new LongAdder();
+	
 	
 	/**
 	 * Acquire a list of resources from the graph. This will ensure all other resources dependent on what you wish to acquire are also
@@ -329,6 +341,7 @@ public final class ResourceGraph {
 		boolean isOld = false;
 		if (noOldProcesses>0) {
 			//Wait!
+			noGateWaits.increment();
 			waitSemaphore.acquireUninterruptibly();
 			waitSemaphore.release();
 		}
@@ -400,6 +413,7 @@ public final class ResourceGraph {
 				//The representative is now useless... Better throw it away and start again...
 				minRep.releaseLock();
 				noRestarts++;
+				noRestartsTotal.increment();
 				minRep = tempMinRep; //need to start from the new representative too
 				if (!isOld && noRestarts>threshold) {
 					//Too many!!
@@ -433,6 +447,7 @@ public final class ResourceGraph {
 		boolean isOld = false;
 		if (noOldProcesses>0) {
 			//Wait!
+			noGateWaits.increment();
 			waitSemaphore.acquireUninterruptibly();
 			waitSemaphore.release();
 		}
@@ -446,6 +461,7 @@ public final class ResourceGraph {
 			} else {
 				rep.releaseLock();
 				noRestarts++;
+				noRestartsTotal.increment();
 				if (!isOld && noRestarts>threshold) {
 					//Too many!!
 					addOldProcess();
@@ -499,8 +515,49 @@ public final class ResourceGraph {
 		if (noOldProcesses==0) {
 			//Stop everyone!
 			waitSemaphore.acquireUninterruptibly();
+			noGateEngagements.increment();
 		}
 		noOldProcesses++;
+		noOldProcessesTotal.increment();
 		oldProcessesSemaphore.release();
 	}
+	
+	/**
+	 * @return - the number of times a process had to let go of a representative it had locked and try again, because the graph
+	 * changed underneath it
+	 */
+	public long getRestarts() {
+		return noRestartsTotal.sum();
+	}
+	
+	/**
+	 * @return - the number of processes which restarted so often that they declared themselves old
+	 */
+	public long getOldProcesses() {
+		return noOldProcessesTotal.sum();
+	}
+	
+	/**
+	 * @return - the number of times the gate shut, making new processes wait for the old processes to finish
+	 */
+	public long getGateEngagements() {
+		return noGateEngagements.sum();
+	}
+	
+	/**
+	 * @return - the number of times a process waited at the gate for the old processes to finish
+	 */
+	public long getGateWaits() {
+		return noGateWaits.sum();
+	}
+	
+	/**
+	 * Forget the statistics so far (restarts, old processes and the gate)
+	 */
+	public void resetStatistics() {
+		noRestartsTotal.reset();
+		noOldProcessesTotal.reset();
+		noGateEngagements.reset();
+		noGateWaits.reset();
+	}
 }
@@ -29,6 +29,8 @@ import mjb.dev.cjo.parallelresources.exceptions.ResourceReleasedException;
  * <br>
  * The resource manipulator is thread safe, but it is only intended to be used by one thread (otherwise you will be forced to synchronise)<br>
  * TODO: assess if this is worth it, or if the synchronised tags should be removed<br>
+ * (Nothing waits while holding the monitor - releasing resources may wait for old processes, but does so after letting go of it -
+ * so a virtual thread using a manipulator never pins its carrier thread for long, and acquiring resources allocates no lock)<br>
  * <br>
  * In total, n operations in the resource manipulator has worst case running time of O(n*log(n)) I believe<br>
  * <br>
@@ -144,13 +146,16 @@ public final class ResourceManipulator {
 	 * Release all of the resources held by this manipulator.
 	 * Once executed, you cannot use the manipulator again
 	 */
-	public synchronized void releaseResources() {
-		if (hasReleasedResources) {
-			return; //can't do this twice
+	public void releaseResources() {
+		synchronized (this) {
+			if (hasReleasedResources) {
+				return; //can't do this twice
+			}
+			hasReleasedResources = true;
+			//Firstly, update all of the split resources
+			graph.updateDisconnectedResources(this, splitResources);
 		}
-		hasReleasedResources = true;
-		//Firstly, update all of the split resources
-		graph.updateDisconnectedResources(this, splitResources);
+		//Then unlock (outside the monitor, as this may wait for the old processes)
 		graph.releaseResources(this);
 	}
 
@@ -0,0 +1,150 @@
+package mjb.dev.cjo.threads;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.threads.PooledThreadScheduler.PooledTask;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This thread scheduler runs tasks in a work stealing {@link ForkJoinPool}, with about one thread per core.<br>
+ * Every wait inside CJO (reading, writing, alts and descheduling) tells the pool it is blocking, and the pool starts a
+ * spare thread to make up for it. So processes waiting on each other never deadlock, while processes doing real work
+ * share the cores rather than thousands of threads.<br>
+ * Waiting outside of CJO (sleeping, I/O, your own locks...) is not compensated for, so wrap it in
+ * {@link ForkJoinPool#managedBlock(java.util.concurrent.ForkJoinPool.ManagedBlocker)} yourself.<br>
+ * The pool's threads are always daemon threads, so the daemon status asked for is ignored - make sure something waits for
+ * your processes before the application exits!<br>
+ * Select this scheduler by setting the system property mjb.dev.cjo.threads.scheduler to "forkjoin" (see {@link ThreadScheduler}).
+ *
+ */
+public class ForkJoinThreadScheduler extends ThreadScheduler {
+	/**
+	 * The system property for the number of threads kept busy, which is the number of cores by default
+	 */
+	public static final String PARALLELISM_PROPERTY = "mjb.dev.cjo.threads.parallelism";
+	//The pool
+	private final ForkJoinPool pool;
+
+	/**
+	 * Construct a new fork join scheduler with the parallelism from the system property (or the number of cores)
+	 */
+	public ForkJoinThreadScheduler() {
+		this(Integer.getInteger(PARALLELISM_PROPERTY,Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Construct a new fork join scheduler
+	 * @param parallelism - the number of threads kept busy (more are started while others are waiting)
+	 * @throws IllegalArgumentException - if the parallelism is less than one
+	 */
+	public ForkJoinThreadScheduler(int parallelism) {
+		if (parallelism<1) {
+			throw new IllegalArgumentException("Cannot construct a fork join scheduler with a parallelism: " + parallelism + " (less than one)");
+		}
+		//Tasks are processes rather than divided work, so take them first come first served (async mode)
+		pool = new ForkJoinPool(parallelism,new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("cjo-forkjoin-" + thread.getPoolIndex());
+				return thread;
+			}
+		},null,true);
+	}
+
+	@Override
+	public void schedule(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		final PooledTask pooledTask = (PooledTask)task;
+		pooledTask.start();
+		pool.execute(new Runnable() {public void run() {
+			pooledTask.run();
+		}});
+	}
+
+	@Override
+	public void deschedule(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).join();
+	}
+
+	@Override
+	public boolean deschedule(Task task, long timeout, TimeUnit unit) {
+		if (task==null || unit==null) {
+			throw new IllegalArgumentException();
+		}
+		return ((PooledTask)task).join(unit.toNanos(timeout));
+	}
+
+	@Override
+	public void whenFinished(Task task, Runnable callback) {
+		if (task==null || callback==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).whenFinished(callback);
+	}
+
+	@Override
+	public void interrupt(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).interrupt();
+	}
+
+	@Override
+	public Task makeTask(Runnable task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,true,null);
+	}
+
+	/**
+	 * The daemon status is ignored - the pool's threads are always daemon threads
+	 */
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon) {
+		return makeTask(task);
+	}
+
+	@Override
+	public Task makeTask(Runnable task, UncaughtExceptionHandler handler) {
+		if (task==null || handler==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,true,handler);
+	}
+
+	/**
+	 * The daemon status is ignored - the pool's threads are always daemon threads
+	 */
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon, UncaughtExceptionHandler handler) {
+		return makeTask(task,handler);
+	}
+
+	/**
+	 * @return - the number of threads kept busy
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * @return - the number of threads in the pool right now (including those started to make up for waiting ones)
+	 */
+	public int getPoolSize() {
+		return pool.getPoolSize();
+	}
+}
@@ -0,0 +1,97 @@
+package mjb.dev.cjo.threads;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Waits made as managed blocks, so a thread in a fork join pool (see {@link ForkJoinThreadScheduler}) lets the pool make up
+ * for it while it waits. Outside of a fork join pool, these are just the ordinary waits.
+ *
+ */
+public final class ManagedWaits {
+	/**
+	 * Hide the constructor
+	 */
+	private ManagedWaits() {};
+
+	/**
+	 * Acquire a permit from a semaphore
+	 * @param semaphore - the semaphore
+	 * @throws InterruptedException - if interrupted while waiting
+	 */
+	public static void acquire(final Semaphore semaphore) throws InterruptedException {
+		if (semaphore.tryAcquire()) {
+			return;
+		}
+		ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+			//Set once the permit is ours
+			private boolean hasAcquired = false;
+			public boolean isReleasable() {
+				if (!hasAcquired) {
+					hasAcquired = semaphore.tryAcquire();
+				}
+				return hasAcquired;
+			}
+			public boolean block() throws InterruptedException {
+				if (!hasAcquired) {
+					semaphore.acquire();
+					hasAcquired = true;
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Sleep for a while
+	 * @param milliseconds - how long to sleep
+	 * @param nanoseconds - and a bit longer (0-999999)
+	 * @throws InterruptedException - if interrupted while sleeping
+	 */
+	public static void sleep(long milliseconds, int nanoseconds) throws InterruptedException {
+		final long deadline = System.nanoTime()+TimeUnit.MILLISECONDS.toNanos(milliseconds)+nanoseconds;
+		ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+			public boolean isReleasable() {
+				return deadline-System.nanoTime()<=0;
+			}
+			public boolean block() throws InterruptedException {
+				long remaining = deadline-System.nanoTime();
+				if (remaining>0) {
+					TimeUnit.NANOSECONDS.sleep(remaining);
+				}
+				return isReleasable();
+			}
+		});
+	}
+
+	/**
+	 * Park the current thread for a while (as with {@link LockSupport#parkNanos(long)}, this may end early for no reason)
+	 * @param nanoseconds - how long to park for at most
+	 */
+	public static void parkNanos(final long nanoseconds) {
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+				//Set once parked
+				private boolean hasParked = false;
+				public boolean isReleasable() {
+					return hasParked;
+				}
+				public boolean block() {
+					LockSupport.parkNanos(nanoseconds);
+					hasParked = true;
+					return true;
+				}
+			});
+		} catch (InterruptedException e) {
+			//Never thrown, as the blocker never throws it
+			Thread.currentThread().interrupt();
+		}
+	}
+}
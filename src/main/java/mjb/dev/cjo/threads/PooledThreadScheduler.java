@@ -0,0 +1,350 @@
+package mjb.dev.cjo.threads;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mjb.dev.cjo.metrics.SchedulerMetrics;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This thread scheduler keeps finished threads around to run the next tasks, rather than starting a new thread for every task.<br>
+ * There is no limit on the number of threads - every scheduled task still runs straight away in a thread of its own (as
+ * processes waiting on each other would deadlock otherwise). Threads which have been idle for the keep alive time are let go.<br>
+ * A thread's daemon status cannot change once started, so daemon and non-daemon tasks are kept in separate pools.
+ * Interrupting a task never affects whichever task its thread runs next.<br>
+ * Select this scheduler by setting the system property mjb.dev.cjo.threads.scheduler to "pooled" (see {@link ThreadScheduler}).
+ *
+ */
+public class PooledThreadScheduler extends ThreadScheduler {
+	/**
+	 * The system property for the keep alive time, in milliseconds
+	 */
+	public static final String KEEP_ALIVE_PROPERTY = "mjb.dev.cjo.threads.keepAlive";
+	//The default keep alive time (as in a cached thread pool)
+	private static final long DEFAULT_KEEP_ALIVE = 60000;
+	//How long idle threads hang around for
+	private final long keepAlive;
+	//The idle threads, most recently used first
+	private final ConcurrentLinkedDeque<Worker> idleDaemons;
+	private final ConcurrentLinkedDeque<Worker> idleNonDaemons;
+	//To name the threads
+	private final AtomicInteger threadCount;
+
+	/**
+	 * Construct a new pooled scheduler, with the keep alive time from the system property (or a minute)
+	 */
+	public PooledThreadScheduler() {
+		this(Long.getLong(KEEP_ALIVE_PROPERTY,DEFAULT_KEEP_ALIVE));
+	}
+
+	/**
+	 * Construct a new pooled scheduler
+	 * @param keepAlive - how long a thread may be idle for before it is let go, in milliseconds
+	 * @throws IllegalArgumentException - if the keep alive time is negative
+	 */
+	public PooledThreadScheduler(long keepAlive) {
+		if (keepAlive<0) {
+			throw new IllegalArgumentException("Cannot construct a pooled scheduler with a keep alive time: " + keepAlive + " (less than zero)");
+		}
+		this.keepAlive = keepAlive;
+		idleDaemons = new ConcurrentLinkedDeque<Worker>();
+		idleNonDaemons = new ConcurrentLinkedDeque<Worker>();
+		threadCount = new AtomicInteger(0);
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Stores what to run, and the thread running it (while it runs). Any scheduler which runs tasks in threads it
+	 * reuses can share this.
+	 *
+	 */
+	static class PooledTask extends Task {
+		private final Runnable runnable;
+		private final boolean isDaemon;
+		private final UncaughtExceptionHandler handler;
+		private final TaskCompletion completion;
+		private boolean wasStarted;
+		//The thread running the task (only while it runs)
+		private Thread thread;
+		//When the task was scheduled
+		private long scheduledAt;
+
+		/**
+		 * Construct a new task
+		 * @param runnable - what to run
+		 * @param isDaemon - whether the task wants a daemon thread
+		 * @param handler - the handler for anything thrown by the task (or null for the thread's own)
+		 */
+		PooledTask(Runnable runnable, boolean isDaemon, UncaughtExceptionHandler handler) {
+			this.runnable = runnable;
+			this.isDaemon = isDaemon;
+			this.handler = handler;
+			completion = new TaskCompletion();
+			wasStarted = false;
+			thread = null;
+			scheduledAt = SchedulerMetrics.NOT_RECORDED;
+			SchedulerMetrics.INSTANCE.taskCreated();
+		}
+
+		/**
+		 * Mark the task as scheduled
+		 * @throws IllegalThreadStateException - if it was scheduled before
+		 */
+		synchronized void start() {
+			if (wasStarted) {
+				throw new IllegalThreadStateException("Tried to start a task twice");
+			}
+			wasStarted = true;
+			scheduledAt = SchedulerMetrics.INSTANCE.taskScheduled();
+		}
+
+		/**
+		 * Run the task in the current thread, leaving the thread fit for the next task
+		 */
+		void run() {
+			Thread current = Thread.currentThread();
+			long startedAt;
+			synchronized (this) {
+				thread = current;
+				startedAt = SchedulerMetrics.INSTANCE.taskStarted(scheduledAt);
+			}
+			try {
+				runnable.run();
+			} catch (Throwable throwable) {
+				UncaughtExceptionHandler taskHandler = handler;
+				if (taskHandler==null) {
+					taskHandler = current.getUncaughtExceptionHandler(); //the thread group by default
+				}
+				taskHandler.uncaughtException(current,throwable);
+			} finally {
+				synchronized (this) {
+					thread = null;
+				}
+				SchedulerMetrics.INSTANCE.taskFinished(startedAt);
+				//No more interrupts can be aimed at this task, so forget any it left behind
+				Thread.interrupted();
+				completion.finish();
+			}
+		}
+
+		/**
+		 * Wait for the task to finish (uninterruptibly)
+		 * @throws IllegalThreadStateException - if it was never scheduled
+		 */
+		void join() {
+			checkStarted();
+			completion.join();
+		}
+
+		/**
+		 * Wait for the task to finish, for a while at most (uninterruptibly)
+		 * @param nanoseconds - the longest to wait
+		 * @return - true iff the task has finished
+		 * @throws IllegalThreadStateException - if it was never scheduled
+		 */
+		boolean join(long nanoseconds) {
+			checkStarted();
+			return completion.join(Math.max(0,nanoseconds));
+		}
+
+		/**
+		 * Run the callback once the task has finished (see {@link TaskCompletion#whenFinished(Runnable)})
+		 * @param callback - what to run
+		 */
+		void whenFinished(Runnable callback) {
+			completion.whenFinished(callback);
+		}
+
+		/**
+		 * Interrupt the task if it is running
+		 */
+		synchronized void interrupt() {
+			if (thread!=null) {
+				thread.interrupt();
+			}
+		}
+
+		/**
+		 * @return - true iff the task wants a daemon thread
+		 */
+		boolean isDaemon() {
+			return isDaemon;
+		}
+
+		private synchronized void checkStarted() {
+			if (!wasStarted) {
+				throw new IllegalThreadStateException("Tried to stop a task not started");
+			}
+		}
+	}
+
+	/*
+	 * A pooled thread. It runs the task it was started with, then waits for more until the keep alive time runs out.
+	 */
+	private final class Worker implements Runnable {
+		private final ConcurrentLinkedDeque<Worker> idle;
+		//The next task to run (only while handing over)
+		private PooledTask next;
+		//True once this worker has stopped accepting tasks
+		private boolean hasRetired;
+
+		private Worker(ConcurrentLinkedDeque<Worker> idle, PooledTask first) {
+			this.idle = idle;
+			next = first;
+			hasRetired = false;
+		}
+
+		/*
+		 * Hand this worker a task
+		 * @return - true iff accepted (false if the worker had already retired)
+		 */
+		private synchronized boolean give(PooledTask task) {
+			if (hasRetired) {
+				return false;
+			}
+			next = task;
+			notify();
+			return true;
+		}
+
+		public void run() {
+			PooledTask task = takeNext();
+			while (task!=null) {
+				task.run();
+				idle.push(this);
+				task = awaitNext();
+			}
+		}
+
+		private synchronized PooledTask takeNext() {
+			PooledTask task = next;
+			next = null;
+			return task;
+		}
+
+		private PooledTask awaitNext() {
+			synchronized (this) {
+				long deadline = System.currentTimeMillis()+keepAlive;
+				long remaining = keepAlive;
+				while (next==null && remaining>0) {
+					try {
+						wait(remaining);
+					} catch (InterruptedException e) {
+						//No one should interrupt an idle thread... carry on waiting
+					}
+					remaining = deadline-System.currentTimeMillis();
+				}
+				if (next==null) {
+					hasRetired = true;
+				}
+			}
+			if (hasRetired) {
+				idle.remove(this);
+				return null;
+			}
+			return takeNext();
+		}
+	}
+
+	@Override
+	public void schedule(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		PooledTask pooledTask = (PooledTask)task;
+		pooledTask.start();
+		ConcurrentLinkedDeque<Worker> idle = pooledTask.isDaemon() ? idleDaemons : idleNonDaemons;
+		Worker worker = idle.pollFirst();
+		while (worker!=null) {
+			if (worker.give(pooledTask)) {
+				return;
+			}
+			worker = idle.pollFirst();
+		}
+		//No one free, so start another
+		Thread thread = new Thread(new Worker(idle,pooledTask),"cjo-pooled-" + threadCount.incrementAndGet());
+		thread.setDaemon(pooledTask.isDaemon());
+		thread.start();
+	}
+
+	@Override
+	public void deschedule(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).join();
+	}
+
+	@Override
+	public boolean deschedule(Task task, long timeout, TimeUnit unit) {
+		if (task==null || unit==null) {
+			throw new IllegalArgumentException();
+		}
+		return ((PooledTask)task).join(unit.toNanos(timeout));
+	}
+
+	@Override
+	public void whenFinished(Task task, Runnable callback) {
+		if (task==null || callback==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).whenFinished(callback);
+	}
+
+	@Override
+	public void interrupt(Task task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		((PooledTask)task).interrupt();
+	}
+
+	@Override
+	public Task makeTask(Runnable task) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,Thread.currentThread().isDaemon(),null);
+	}
+
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon) {
+		if (task==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,isDaemon,null);
+	}
+
+	@Override
+	public Task makeTask(Runnable task, UncaughtExceptionHandler handler) {
+		if (task==null || handler==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,Thread.currentThread().isDaemon(),handler);
+	}
+
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon, UncaughtExceptionHandler handler) {
+		if (task==null || handler==null) {
+			throw new IllegalArgumentException();
+		}
+		return new PooledTask(task,isDaemon,handler);
+	}
+
+	/**
+	 * @return - the number of threads waiting for a task
+	 */
+	public int getIdleThreads() {
+		return idleDaemons.size()+idleNonDaemons.size();
+	}
+}
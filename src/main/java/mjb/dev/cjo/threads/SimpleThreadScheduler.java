@@ -2,6 +2,9 @@ package mjb.dev.cjo.threads;
 
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.metrics.SchedulerMetrics;
 
 /**
  * ****************<br>
@@ -13,13 +16,10 @@ import java.util.concurrent.Semaphore;
  *
  */
 class SimpleThreadScheduler extends ThreadScheduler {
-	/**
-	 * An instance of this scheduler - not to be accessed externally.
-	 */
-	final static SimpleThreadScheduler INSTANCE = new SimpleThreadScheduler();
-	
-	//Hide the constructor
-	private SimpleThreadScheduler() {};
+	//Hide the constructor (only the thread scheduler makes the instance, which other schedulers may
+	//build on if they differ only in their threads). There is no static instance, as a subclass being
+	//loaded first would then leave the thread scheduler's instance null.
+	SimpleThreadScheduler() {};
 	
 	/**
 	 * ****************<br>
@@ -32,16 +32,16 @@ class SimpleThreadScheduler extends ThreadScheduler {
 	 */
 	static class MyTask extends Task {
 		private final Thread thread;
-		private final Semaphore finishedSemaphore;
+		private final Body body;
 		private final Semaphore syncSemaphore;
 		private boolean wasStarted;
 		/**
 		 * Construct a new simple task keeping the current thread
 		 * @param thread - the thread the task is running in.
 		 */
-		private MyTask(Thread thread, Semaphore finishedSemaphore) {
+		private MyTask(Thread thread, Body body) {
 			this.thread = thread;
-			this.finishedSemaphore = finishedSemaphore;
+			this.body = body;
 			syncSemaphore = new Semaphore(1,true);
 			wasStarted = false;
 		}
@@ -62,6 +62,7 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw exception;
 		} else {
 			myTask.wasStarted = true;
+			myTask.body.scheduledAt = SchedulerMetrics.INSTANCE.taskScheduled();
 			myTask.thread.start();
 			myTask.syncSemaphore.release();
 		}
@@ -81,11 +82,35 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw exception;
 		} else {
 			myTask.syncSemaphore.release();
-			myTask.finishedSemaphore.acquireUninterruptibly();
-			myTask.finishedSemaphore.release();
+			myTask.body.completion.join();
 		}
 	}
 
+	@Override
+	public boolean deschedule(Task task, long timeout, TimeUnit unit) {
+		if (task==null || unit==null) {
+			throw new IllegalArgumentException();
+		}
+		MyTask myTask = (MyTask)task;
+		myTask.syncSemaphore.acquireUninterruptibly();
+		if (!myTask.wasStarted) {
+			IllegalThreadStateException exception = new IllegalThreadStateException("Tried to stop a thread no started: (name:" +
+					myTask.thread.getName() + ",id:" + myTask.thread.getId() + ").");
+			myTask.syncSemaphore.release();
+			throw exception;
+		}
+		myTask.syncSemaphore.release();
+		return myTask.body.completion.join(Math.max(0,unit.toNanos(timeout)));
+	}
+
+	@Override
+	public void whenFinished(Task task, Runnable callback) {
+		if (task==null || callback==null) {
+			throw new IllegalArgumentException();
+		}
+		((MyTask)task).body.completion.whenFinished(callback);
+	}
+
 	@Override
 	public void interrupt(Task task) {
 		if (task==null) {
@@ -100,9 +125,9 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw new IllegalArgumentException();
 		}
 		//Construct the task...
-		final Semaphore finishedSemaphore = new Semaphore(0);
-		Thread thread = buildThread(task,finishedSemaphore);
-		return (Task)new MyTask(thread,finishedSemaphore);
+		Body body = new Body(task);
+		Thread thread = newThread(body);
+		return (Task)new MyTask(thread,body);
 	}
 
 	@Override
@@ -111,10 +136,10 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw new IllegalArgumentException();
 		}
 		//Construct the task...
-		final Semaphore finishedSemaphore = new Semaphore(0);
-		Thread thread = buildThread(task,finishedSemaphore);
+		Body body = new Body(task);
+		Thread thread = newThread(body);
 		thread.setUncaughtExceptionHandler(handler);
-		return (Task)new MyTask(thread,finishedSemaphore);
+		return (Task)new MyTask(thread,body);
 	}
 
 	@Override
@@ -123,10 +148,10 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw new IllegalArgumentException();
 		}
 		//Construct the task...
-		final Semaphore finishedSemaphore = new Semaphore(0);
-		Thread thread = buildThread(task,finishedSemaphore);
+		Body body = new Body(task);
+		Thread thread = newThread(body);
 		thread.setDaemon(isDaemon);
-		return (Task)new MyTask(thread,finishedSemaphore);
+		return (Task)new MyTask(thread,body);
 	}
 
 	@Override
@@ -136,23 +161,46 @@ class SimpleThreadScheduler extends ThreadScheduler {
 			throw new IllegalArgumentException();
 		}
 		//Construct the task...
-		final Semaphore finishedSemaphore = new Semaphore(0);
-		Thread thread = buildThread(task,finishedSemaphore);
+		Body body = new Body(task);
+		Thread thread = newThread(body);
 		thread.setUncaughtExceptionHandler(handler);
 		thread.setDaemon(isDaemon);
-		return (Task)new MyTask(thread,finishedSemaphore);
+		return (Task)new MyTask(thread,body);
 	}
 	
-	//To prevent code duplication - builds the standard thread
-	private Thread buildThread(final Runnable task, final Semaphore finishedSemaphore) {
-		return new Thread(new Runnable() {public void run() {
+	/**
+	 * Construct an unstarted thread to run the given code
+	 * @param body - what the thread should run
+	 * @return - the thread
+	 */
+	Thread newThread(Runnable body) {
+		return new Thread(body);
+	}
+	
+	/*
+	 * What the thread runs - the task, keeping the scheduler's books
+	 */
+	private static final class Body implements Runnable {
+		private final Runnable task;
+		private final TaskCompletion completion;
+		//When the task was scheduled (set before the thread starts)
+		private long scheduledAt;
+
+		private Body(Runnable task) {
+			this.task = task;
+			completion = new TaskCompletion();
+			scheduledAt = SchedulerMetrics.NOT_RECORDED;
+			SchedulerMetrics.INSTANCE.taskCreated();
+		}
+
+		public void run() {
+			long startedAt = SchedulerMetrics.INSTANCE.taskStarted(scheduledAt);
 			try {
 				task.run();
-				finishedSemaphore.release();
-			} catch (RuntimeException e) {
-				finishedSemaphore.release();
-				throw e;
+			} finally {
+				SchedulerMetrics.INSTANCE.taskFinished(startedAt);
+				completion.finish();
 			}
-		}});
+		}
 	}
 }
@@ -0,0 +1,131 @@
+package mjb.dev.cjo.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * Records when a task has finished, for the schedulers. Anyone can wait for it (with or without a time limit), or leave
+ * a callback to run when it happens, so a supervisor can hear about many tasks without a thread waiting on each.<br>
+ * Waits are uninterruptible (as with {@link ThreadScheduler#deschedule(ThreadScheduler.Task)}), and are managed blocks
+ * so a fork join pool can make up for the waiting thread.<br>
+ * Thread safe.
+ *
+ */
+final class TaskCompletion {
+	//The logger for task completions
+	private static final Logger logger = Logger.getLogger(TaskCompletion.class);
+	private final CountDownLatch finished;
+	//What to run once finished (null once they have been run)
+	private List<Runnable> callbacks;
+
+	/**
+	 * Construct a new completion, for a task not yet finished
+	 */
+	TaskCompletion() {
+		finished = new CountDownLatch(1);
+		callbacks = new ArrayList<Runnable>(0);
+	}
+
+	/**
+	 * Mark the task as finished, and run the callbacks in the current thread (only call this once)
+	 */
+	void finish() {
+		List<Runnable> toRun;
+		synchronized (this) {
+			toRun = callbacks;
+			callbacks = null;
+		}
+		finished.countDown();
+		if (toRun!=null) {
+			for (Runnable callback : toRun) {
+				runCallback(callback);
+			}
+		}
+	}
+
+	/**
+	 * @return - true iff the task has finished
+	 */
+	boolean isFinished() {
+		return finished.getCount()==0;
+	}
+
+	/**
+	 * Run the callback once the task has finished. If it already has, the callback runs now in the current thread.
+	 * Otherwise, it runs in the thread that finished the task. Anything thrown by the callback is logged.
+	 * @param callback - what to run
+	 */
+	void whenFinished(Runnable callback) {
+		synchronized (this) {
+			if (callbacks!=null) {
+				callbacks.add(callback);
+				return;
+			}
+		}
+		runCallback(callback);
+	}
+
+	/**
+	 * Wait for the task to finish (uninterruptibly - an interrupt is kept for later)
+	 */
+	void join() {
+		join(-1);
+	}
+
+	/**
+	 * Wait for the task to finish, for a while at most (uninterruptibly - an interrupt is kept for later)
+	 * @param nanoseconds - the longest to wait (negative to wait for as long as it takes)
+	 * @return - true iff the task has finished
+	 */
+	boolean join(long nanoseconds) {
+		if (isFinished()) {
+			return true;
+		}
+		final boolean isTimed = nanoseconds>=0;
+		final long deadline = System.nanoTime()+(isTimed ? nanoseconds : 0);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				//(Tells a fork join pool this thread is blocked, so it can make up for it)
+				ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+					public boolean isReleasable() {
+						return isFinished() || (isTimed && deadline-System.nanoTime()<=0);
+					}
+					public boolean block() throws InterruptedException {
+						if (!isTimed) {
+							finished.await();
+						} else {
+							finished.await(deadline-System.nanoTime(),TimeUnit.NANOSECONDS);
+						}
+						return true;
+					}
+				});
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return isFinished();
+	}
+
+	private static void runCallback(Runnable callback) {
+		try {
+			callback.run();
+		} catch (RuntimeException e) {
+			logger.error("runCallback: a task completion callback failed",e);
+		}
+	}
+}
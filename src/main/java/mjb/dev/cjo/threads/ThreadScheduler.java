@@ -1,6 +1,12 @@
 package mjb.dev.cjo.threads;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
 
 /**
  * ****************<br>
@@ -9,14 +15,66 @@ import java.lang.Thread.UncaughtExceptionHandler;
  * ****************<br>
  * <br>
  * This abstract class specifies what the stripped down thread scheduler of CJO should provide.
- * Extenders of this class may assume that only one scheduler will be used.
+ * Extenders of this class may assume that only one scheduler will be used.<br>
+ * <br>
+ * The scheduler is chosen when this class is first used:
+ * <ol>
+ * <li>If the system property mjb.dev.cjo.threads.scheduler is set, it names the scheduler - "simple" for a new thread per
+ * task, "pooled" for a {@link PooledThreadScheduler}, "virtual" for a {@link VirtualThreadScheduler},
+ * "forkjoin" for a {@link ForkJoinThreadScheduler}, or the class name of a scheduler with a public no argument constructor.</li>
+ * <li>Otherwise, the first scheduler registered with the {@link ServiceLoader} (under META-INF/services/mjb.dev.cjo.threads.ThreadScheduler).</li>
+ * <li>Otherwise, a new thread per task.</li>
+ * </ol>
+ * The schedulers here keep their books in {@link mjb.dev.cjo.metrics.SchedulerMetrics} (a scheduler of your own should too).
  *
  */
 public abstract class ThreadScheduler {
+	/**
+	 * The system property naming the scheduler to use
+	 */
+	public static final String SCHEDULER_PROPERTY = "mjb.dev.cjo.threads.scheduler";
+	//The logger for the scheduler choice
+	private static final Logger logger = Logger.getLogger(ThreadScheduler.class);
+	
 	/**
 	 * The application's thread scheduler
 	 */
-	public static final ThreadScheduler INSTANCE = SimpleThreadScheduler.INSTANCE;
+	public static final ThreadScheduler INSTANCE = loadScheduler();
+	
+	/*
+	 * Pick the scheduler (see above). A scheduler which cannot be made is reported, and the default used instead.
+	 */
+	private static ThreadScheduler loadScheduler() {
+		String name = System.getProperty(SCHEDULER_PROPERTY);
+		if (name!=null) {
+			name = name.trim();
+			if (name.equals("simple")) {
+				return new SimpleThreadScheduler();
+			}
+			try {
+				if (name.equals("pooled")) {
+					return new PooledThreadScheduler();
+				} else if (name.equals("virtual")) {
+					return new VirtualThreadScheduler();
+				} else if (name.equals("forkjoin")) {
+					return new ForkJoinThreadScheduler();
+				}
+				return (ThreadScheduler)Class.forName(name).getConstructor().newInstance();
+			} catch (Exception e) {
+				logger.error("loadScheduler: could not make the scheduler " + name + " - using the default", e);
+				return new SimpleThreadScheduler();
+			}
+		}
+		try {
+			Iterator<ThreadScheduler> schedulers = ServiceLoader.load(ThreadScheduler.class).iterator();
+			if (schedulers.hasNext()) {
+				return schedulers.next();
+			}
+		} catch (ServiceConfigurationError e) {
+			logger.error("loadScheduler: could not load a scheduler service - using the default", e);
+		}
+		return new SimpleThreadScheduler();
+	}
 		
 	/**
 	 * ****************<br>
@@ -47,6 +105,43 @@ public abstract class ThreadScheduler {
 	 */
 	public abstract void deschedule(Task task);
 	
+	/**
+	 * Deschedule the task, but wait for it for a while at most. Like {@link #deschedule(Task)}, the task is not interrupted.
+	 * @param task - the task to deschedule
+	 * @param timeout - the longest to wait for the task to finish
+	 * @param unit - the unit of the timeout
+	 * @return - true iff the task has finished (false if the time ran out first)
+	 * @throws IllegalThreadStateException - if the task was never scheduled
+	 * @throws IllegalArgumentException - if any argument is null
+	 */
+	public abstract boolean deschedule(Task task, long timeout, TimeUnit unit);
+	
+	/**
+	 * Interrupt the task, and then deschedule it waiting for a while at most. Use this to shut down processes which
+	 * might be stuck, without a stuck process holding everyone else up.
+	 * @param task - the task to cancel
+	 * @param timeout - the longest to wait for the task to finish
+	 * @param unit - the unit of the timeout
+	 * @return - true iff the task has finished (false if it ignored the interrupt for longer than the timeout)
+	 * @throws IllegalThreadStateException - if the task was never scheduled
+	 * @throws SecurityException - if the thread cannot be interrupted
+	 * @throws IllegalArgumentException - if any argument is null
+	 */
+	public boolean cancel(Task task, long timeout, TimeUnit unit) {
+		interrupt(task);
+		return deschedule(task,timeout,unit);
+	}
+	
+	/**
+	 * Run the callback once the task has finished (however it finished), so you can react to a task finishing without a
+	 * thread waiting for it. If the task has already finished, the callback runs straight away in the calling thread.
+	 * Otherwise, it runs in the task's thread just after the task. Callbacks should be quick, and anything they throw is logged.
+	 * @param task - the task
+	 * @param callback - what to run
+	 * @throws IllegalArgumentException - if any argument is null
+	 */
+	public abstract void whenFinished(Task task, Runnable callback);
+	
 	/**
 	 * Interrupt the given task. This does not deschedule the task, so you should also deschedule the task if you wish
 	 * @param task - the task to interrupt
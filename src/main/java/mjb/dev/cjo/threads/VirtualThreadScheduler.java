@@ -0,0 +1,73 @@
+package mjb.dev.cjo.threads;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This thread scheduler runs every task in a virtual thread of its own (needs Java 21 or later at run time).<br>
+ * Virtual threads are cheap enough to give every process in a network of millions its own thread. Processes waiting
+ * on channels park without holding on to a carrier thread, as the channels, alts and resource graph only ever wait on
+ * java.util.concurrent locks.<br>
+ * Virtual threads are always daemon threads, so the daemon status asked for is ignored - make sure something waits for your
+ * processes before the application exits!<br>
+ * Select this scheduler by setting the system property mjb.dev.cjo.threads.scheduler to "virtual" (see {@link ThreadScheduler}).
+ *
+ */
+public class VirtualThreadScheduler extends SimpleThreadScheduler {
+	//Makes the virtual threads
+	private final ThreadFactory factory;
+
+	/**
+	 * Construct a new virtual thread scheduler
+	 * @throws UnsupportedOperationException - if this Java does not have virtual threads
+	 */
+	public VirtualThreadScheduler() {
+		//Compiled for older Javas, so find the builder by reflection (once)
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name",String.class,long.class).invoke(builder,"cjo-virtual-",1L);
+			factory = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+		} catch (Exception e) {
+			throw new UnsupportedOperationException("Virtual threads are not available in Java " + System.getProperty("java.version"),e);
+		}
+	}
+
+	/**
+	 * @return - true iff this Java has virtual threads
+	 */
+	public static boolean isSupported() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	@Override
+	Thread newThread(Runnable body) {
+		return factory.newThread(body);
+	}
+
+	/**
+	 * The daemon status is ignored - virtual threads are always daemon threads
+	 */
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon) {
+		return makeTask(task);
+	}
+
+	/**
+	 * The daemon status is ignored - virtual threads are always daemon threads
+	 */
+	@Override
+	public Task makeTask(Runnable task, boolean isDaemon, UncaughtExceptionHandler handler) {
+		return makeTask(task,handler);
+	}
+}
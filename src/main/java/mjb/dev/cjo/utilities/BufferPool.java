@@ -0,0 +1,165 @@
+package mjb.dev.cjo.utilities;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A buffer pool hands out direct byte buffers of a fixed size as {@link PooledBuffer}s, and takes them back again
+ * when they are released. Direct buffers are expensive to allocate and slow to be collected, so reusing them lets a
+ * packet keep one buffer all the way through an application without any copying.<br>
+ * <br>
+ * The pool keeps an eye on every buffer it hands out. If a pooled buffer is garbage collected without being released,
+ * the pool reports it as a leak (in the log and {@link #getLeakedBuffers()}) the next time it is used. The leaked memory
+ * is not reused, since someone could still be holding the byte buffer itself.<br>
+ * Thread safe.
+ *
+ */
+public class BufferPool {
+	private static final Logger logger = Logger.getLogger(BufferPool.class);
+	//The size of each buffer
+	private final int bufferSize;
+	//The most free buffers to hold on to
+	private final int maxPooled;
+	//The free buffers
+	private final Deque<ByteBuffer> free;
+	//The buffers currently handed out (keeps the references alive)
+	private final Set<LeakReference> outstanding;
+	private final ReferenceQueue<PooledBuffer> leaks;
+	//Statistics
+	private long allocatedBuffers;
+	private long leakedBuffers;
+
+	/**
+	 * Construct a new buffer pool
+	 * @param bufferSize - the size of every buffer in bytes
+	 * @param maxPooled - the most free buffers to keep for reuse (any more are left to the garbage collector)
+	 * @throws IllegalArgumentException - if the buffer size is not positive or the maximum is negative
+	 */
+	public BufferPool(int bufferSize, int maxPooled) {
+		if (bufferSize<=0) {
+			throw new IllegalArgumentException("Cannot construct a buffer pool with a buffer size: " + bufferSize + " (not positive)");
+		}
+		if (maxPooled<0) {
+			throw new IllegalArgumentException("Cannot construct a buffer pool holding: " + maxPooled + " buffers (less than zero)");
+		}
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+		free = new ArrayDeque<ByteBuffer>();
+		outstanding = new HashSet<LeakReference>();
+		leaks = new ReferenceQueue<PooledBuffer>();
+		allocatedBuffers = 0;
+		leakedBuffers = 0;
+	}
+
+	/**
+	 * Borrow a buffer from the pool. The buffer is cleared (position zero, limit at its capacity) but its contents
+	 * are whatever the last owner left there.
+	 * @return - a buffer owned by the caller
+	 */
+	public synchronized PooledBuffer acquire() {
+		checkForLeaks();
+		ByteBuffer buffer = free.pollFirst();
+		if (buffer==null) {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+			allocatedBuffers++;
+		}
+		buffer.clear();
+		PooledBuffer pooled = new PooledBuffer(this,buffer);
+		LeakReference reference = new LeakReference(pooled,leaks);
+		outstanding.add(reference);
+		pooled.reference = reference;
+		return pooled;
+	}
+
+	/**
+	 * Take a buffer back (called by the pooled buffer)
+	 */
+	synchronized void release(ByteBuffer buffer, Reference<PooledBuffer> reference) {
+		outstanding.remove(reference);
+		reference.clear();
+		if (free.size()<maxPooled) {
+			free.addFirst(buffer); //most recently used first - it is likely still in the cache
+		}
+		checkForLeaks();
+	}
+
+	/**
+	 * Look for buffers which have been garbage collected without being released, and report them.
+	 * This happens automatically whenever the pool is used.
+	 * @return - the number of leaks found by this call
+	 */
+	public synchronized int checkForLeaks() {
+		int found = 0;
+		Reference<? extends PooledBuffer> reference;
+		while ((reference = leaks.poll())!=null) {
+			if (outstanding.remove(reference)) {
+				found++;
+				leakedBuffers++;
+				logger.warn("checkForLeaks: a pooled buffer of " + bufferSize + " bytes was garbage collected without being released");
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return - the size of every buffer in this pool
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return - the number of direct buffers this pool has ever allocated
+	 */
+	public synchronized long getAllocatedBuffers() {
+		return allocatedBuffers;
+	}
+
+	/**
+	 * @return - the number of buffers currently handed out
+	 */
+	public synchronized int getOutstandingBuffers() {
+		return outstanding.size();
+	}
+
+	/**
+	 * @return - the number of free buffers waiting to be reused
+	 */
+	public synchronized int getPooledBuffers() {
+		return free.size();
+	}
+
+	/**
+	 * @return - the number of buffers found to have leaked so far
+	 */
+	public synchronized long getLeakedBuffers() {
+		return leakedBuffers;
+	}
+
+	/**
+	 * ****************<br>
+	 * Date: 19/10/2026<br>
+	 * Author:  michael<br>
+	 * ****************<br>
+	 * <br>
+	 * Watches a pooled buffer, so we know if it is collected before being released.
+	 */
+	private static final class LeakReference extends PhantomReference<PooledBuffer> {
+		public LeakReference(PooledBuffer pooled, ReferenceQueue<PooledBuffer> queue) {
+			super(pooled,queue);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package mjb.dev.cjo.utilities;
+
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * A pooled buffer is a direct byte buffer borrowed from a {@link BufferPool}.<br>
+ * Whoever holds the pooled buffer owns it. Pass it on (for example, down a channel) to give it to someone else, and
+ * call {@link #release()} when you're done with it so the memory can be used again. Don't keep hold of the underlying
+ * byte buffer after you release it or pass it on!<br>
+ * A pooled buffer which is forgotten without being released is reported as a leak by its pool.<br>
+ * Not thread safe - only the owner should touch it.
+ *
+ */
+public final class PooledBuffer {
+	private final BufferPool pool;
+	private ByteBuffer buffer;
+	//The pool's watch on this buffer
+	Reference<PooledBuffer> reference;
+
+	/**
+	 * Construct a new pooled buffer (only the pool does this)
+	 * @param pool - the pool the buffer was borrowed from
+	 * @param buffer - the buffer
+	 */
+	PooledBuffer(BufferPool pool, ByteBuffer buffer) {
+		this.pool = pool;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * @return - the byte buffer to read or write
+	 * @throws IllegalStateException - if the buffer has been released
+	 */
+	public ByteBuffer getBuffer() {
+		if (buffer==null) {
+			throw new IllegalStateException("The pooled buffer has already been released");
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return - true iff this buffer has been given back to its pool
+	 */
+	public boolean isReleased() {
+		return buffer==null;
+	}
+
+	/**
+	 * Give the buffer back to its pool. You must not use it after this!
+	 * @throws IllegalStateException - if the buffer has already been released
+	 */
+	public void release() {
+		if (buffer==null) {
+			throw new IllegalStateException("The pooled buffer has already been released");
+		}
+		ByteBuffer released = buffer;
+		buffer = null;
+		pool.release(released,reference);
+		reference = null;
+	}
+
+	/**
+	 * @return - the pool this buffer belongs to
+	 */
+	public BufferPool getPool() {
+		return pool;
+	}
+}
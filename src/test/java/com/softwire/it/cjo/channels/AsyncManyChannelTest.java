@@ -6,6 +6,8 @@ import static org.junit.Assert.*;
 import java.util.concurrent.Semaphore;
 
 import mjb.dev.cjo.channels.AsyncManyChannel;
+import mjb.dev.cjo.channels.OverflowPolicy;
+import mjb.dev.cjo.channels.exceptions.ChannelFullException;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.operators.Channel;
 import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
@@ -369,4 +371,63 @@ public class AsyncManyChannelTest {
 		close(channel);
 		logger.trace("testStress: complete");
 	}
+
+	/**
+	 * Test that each overflow policy keeps the buffer within its capacity
+	 */
+	@Test
+	public void testOverflowPolicies() {
+		//Drop newest
+		AsyncManyChannel<Integer> channel = new AsyncManyChannel<Integer>(2,OverflowPolicy.DROP_NEWEST);
+		write(channel,1);
+		write(channel,2);
+		write(channel,3);
+		assertTrue(channel.getDroppedMessages()==1);
+		assertTrue(read(channel)==1);
+		assertTrue(read(channel)==2);
+		//Drop oldest
+		channel = new AsyncManyChannel<Integer>(2,OverflowPolicy.DROP_OLDEST);
+		write(channel,1);
+		write(channel,2);
+		write(channel,3);
+		assertTrue(channel.getDroppedMessages()==1);
+		assertTrue(read(channel)==2);
+		assertTrue(read(channel)==3);
+		//Fail
+		channel = new AsyncManyChannel<Integer>(1,OverflowPolicy.FAIL);
+		write(channel,1);
+		try {
+			write(channel,2);
+			fail("Wrote to a full channel");
+		} catch (ChannelFullException e) {}
+		assertTrue(channel.getRejectedWriters()==1);
+		assertTrue(read(channel)==1);
+		//The channel should still be usable
+		write(channel,3);
+		assertTrue(read(channel)==3);
+		//Block
+		final AsyncManyChannel<Integer> blockChannel = new AsyncManyChannel<Integer>(1,OverflowPolicy.BLOCK);
+		write(blockChannel,1);
+		final Box<Long> time = new Box<Long>(0L);
+		final Semaphore waitSem = new Semaphore(0);
+		long startTime = System.currentTimeMillis();
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(blockChannel,2);
+			time.setItem(System.currentTimeMillis());
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(1000);
+		} catch (InterruptedException e) {
+			logger.warn("testOverflowPolicies: interrupted while waiting");
+		}
+		assertTrue(read(blockChannel)==1);
+		waitSem.acquireUninterruptibly();
+		assertTrue(time.getItem()-startTime>500);
+		assertTrue(blockChannel.getBlockedWriters()==1);
+		assertTrue(read(blockChannel)==2);
+		logger.trace("testOverflowPolicies: complete");
+	}
+
 }
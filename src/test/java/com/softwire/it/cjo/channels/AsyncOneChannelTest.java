@@ -6,6 +6,7 @@ import static org.junit.Assert.*;
 import java.util.concurrent.Semaphore;
 
 import mjb.dev.cjo.channels.AsyncOneChannel;
+import mjb.dev.cjo.channels.OverflowPolicy;
 import mjb.dev.cjo.channels.exceptions.ChannelClosed;
 import mjb.dev.cjo.channels.exceptions.RegistrationException;
 import mjb.dev.cjo.operators.Channel;
@@ -302,4 +303,35 @@ public class AsyncOneChannelTest {
 		close(channel);
 		logger.trace("testStress: complete");
 	}
+
+	/**
+	 * Test that a blocked writer is told when a bounded channel is closed
+	 */
+	@Test
+	public void testBoundedClose() {
+		final AsyncOneChannel<Integer> channel = new AsyncOneChannel<Integer>(1,OverflowPolicy.BLOCK);
+		write(channel,1);
+		final Box<Boolean> closed = new Box<Boolean>(false);
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				write(channel,2);
+			} catch (ChannelClosed c) {
+				closed.setItem(true);
+			}
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(500);
+		} catch (InterruptedException e) {
+			logger.warn("testBoundedClose: interrupted while waiting");
+		}
+		closeReadEnd(channel);
+		waitSem.acquireUninterruptibly();
+		assertTrue(closed.getItem());
+		assertTrue(channel.getBlockedWriters()==1);
+		logger.trace("testBoundedClose: complete");
+	}
+
 }
@@ -0,0 +1,186 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.BroadcastChannel;
+import mjb.dev.cjo.channels.BroadcastChannel.Subscription;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the BroadcastChannel.
+ *
+ */
+public class BroadcastChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(BroadcastChannelTest.class);
+
+	/**
+	 * Test that every subscription sees every message, and subscriptions come and go
+	 */
+	@Test
+	public void testFanOut() {
+		BroadcastChannel<Integer> channel = new BroadcastChannel<Integer>(10);
+		//No one is listening, so this goes nowhere
+		write(channel,-1);
+		Subscription<Integer> first = channel.subscribe();
+		Subscription<Integer> second = channel.subscribe();
+		for (int i=0; i<5; i++) {
+			write(channel,i);
+		}
+		Subscription<Integer> late = channel.subscribe();
+		write(channel,5);
+		for (int i=0; i<6; i++) {
+			assertTrue(read(first)==i);
+		}
+		for (int i=0; i<6; i++) {
+			assertTrue(read(second)==i);
+		}
+		assertTrue(read(late)==5);
+		//Leave
+		close(second);
+		try {
+			read(second);
+			fail("Read from a subscription that had left");
+		} catch (ChannelClosed e) {}
+		write(channel,6);
+		assertTrue(read(first)==6);
+		assertTrue(read(late)==6);
+		assertTrue(first.getLag()==0);
+		//Wrong ends
+		try {
+			read(channel);
+			fail("Read from a broadcast channel directly");
+		} catch (RegistrationException e) {}
+		try {
+			write(first,1);
+			fail("Wrote to a subscription");
+		} catch (RegistrationException e) {}
+		close(channel);
+		try {
+			read(first);
+			fail("Read from a closed broadcast");
+		} catch (ChannelClosed e) {}
+		try {
+			channel.subscribe();
+			fail("Subscribed to a closed broadcast");
+		} catch (ChannelClosed e) {}
+		logger.trace("testFanOut: complete");
+	}
+
+	/**
+	 * Test that the slowest subscription holds up the writers, until it reads or leaves
+	 */
+	@Test
+	public void testGating() {
+		final BroadcastChannel<Integer> channel = new BroadcastChannel<Integer>(2);
+		Subscription<Integer> fast = channel.subscribe();
+		final Subscription<Integer> slow = channel.subscribe();
+		write(channel,0);
+		write(channel,1);
+		assertTrue(read(fast)==0);
+		assertTrue(read(fast)==1);
+		//The slow subscription is now a whole ring behind
+		final Box<Boolean> written = new Box<Boolean>(false);
+		final Semaphore writeSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(channel,2);
+			synchronized (written) {
+				written.setItem(true);
+			}
+			writeSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			logger.warn("testGating: interrupted while waiting");
+		}
+		synchronized (written) {
+			assertFalse(written.getItem());
+		}
+		assertTrue(read(slow)==0);
+		writeSem.acquireUninterruptibly();
+		assertTrue(read(fast)==2);
+		//Still a whole ring behind, so leave rather than read
+		t = new Thread(new Runnable() {public void run() {
+			write(channel,3);
+			writeSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			logger.warn("testGating: interrupted while waiting");
+		}
+		close(slow);
+		writeSem.acquireUninterruptibly();
+		assertTrue(read(fast)==3);
+		//Waiting writers are thrown out when the channel closes
+		write(channel,4);
+		write(channel,5);
+		t = new Thread(new Runnable() {public void run() {
+			try {
+				write(channel,6);
+				fail("Wrote to a closed broadcast");
+			} catch (ChannelClosed e) {}
+			writeSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			logger.warn("testGating: interrupted while waiting");
+		}
+		close(channel);
+		writeSem.acquireUninterruptibly();
+		logger.trace("testGating: complete");
+	}
+
+	/**
+	 * Test many readers on many subscriptions at once
+	 */
+	@Test
+	public void testConcurrent() {
+		final BroadcastChannel<Integer> channel = new BroadcastChannel<Integer>(4);
+		final int messages = 1000;
+		final int subscribers = 3;
+		final Semaphore doneSem = new Semaphore(0);
+		final Box<Boolean> failed = new Box<Boolean>(false);
+		for (int s=0; s<subscribers; s++) {
+			final Subscription<Integer> subscription = channel.subscribe();
+			new Thread(new Runnable() {public void run() {
+				for (int i=0; i<messages; i++) {
+					if (read(subscription)!=i) {
+						synchronized (failed) {
+							failed.setItem(true);
+						}
+					}
+				}
+				close(subscription);
+				doneSem.release();
+			}}).start();
+		}
+		for (int i=0; i<messages; i++) {
+			write(channel,i);
+		}
+		doneSem.acquireUninterruptibly(subscribers);
+		synchronized (failed) {
+			assertFalse(failed.getItem());
+		}
+		close(channel);
+		logger.trace("testConcurrent: complete");
+	}
+}
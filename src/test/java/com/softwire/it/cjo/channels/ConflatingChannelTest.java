@@ -0,0 +1,112 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.ConflatingChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.utilities.Box;
+import mjb.dev.cjo.utilities.Function;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the ConflatingChannel.
+ *
+ */
+public class ConflatingChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(ConflatingChannelTest.class);
+
+	/**
+	 * Test that only the latest value is read
+	 */
+	@Test
+	public void testConflation() {
+		ConflatingChannel<Integer> channel = new ConflatingChannel<Integer>();
+		for (int i=0; i<10; i++) {
+			write(channel,i);
+		}
+		assertTrue(read(channel)==9);
+		assertTrue(channel.getConflatedMessages()==9);
+		//Readers still wait for a value
+		final ConflatingChannel<Integer> waitChannel = channel;
+		final Box<Integer> message = new Box<Integer>(0);
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			message.setItem(read(waitChannel));
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			logger.warn("testConflation: interrupted while waiting");
+		}
+		write(channel,42);
+		waitSem.acquireUninterruptibly();
+		assertTrue(message.getItem()==42);
+		assertTrue(channel.getConflatedMessages()==9);
+		close(channel);
+		try {
+			write(channel,1);
+			fail("Wrote to a closed channel");
+		} catch (ChannelClosed e) {}
+		logger.trace("testConflation: complete");
+	}
+
+	/**
+	 * Test that conflation is per key, and keys keep their place in line
+	 */
+	@Test
+	public void testKeys() {
+		ConflatingChannel<String> channel = new ConflatingChannel<String>(new Function<String,Character>() {
+			public Character eval(String input) {
+				return input.charAt(0);
+			}
+		});
+		write(channel,"a1");
+		write(channel,"b1");
+		write(channel,"a2");
+		write(channel,"c1");
+		write(channel,"b2");
+		assertEquals("a2",read(channel));
+		assertEquals("b2",read(channel));
+		assertEquals("c1",read(channel));
+		assertTrue(channel.getConflatedMessages()==2);
+		close(channel);
+		logger.trace("testKeys: complete");
+	}
+
+	/**
+	 * Test that a message the key function fails on is refused, and leaves the channel working
+	 */
+	@Test
+	public void testBadKey() {
+		ConflatingChannel<String> channel = new ConflatingChannel<String>(new Function<String,Character>() {
+			public Character eval(String input) {
+				return input.charAt(0);
+			}
+		});
+		write(channel,"a1");
+		try {
+			write(channel,"");
+			fail("Wrote a message with no key");
+		} catch (RegistrationException e) {
+			assertTrue(e.getCause() instanceof StringIndexOutOfBoundsException);
+		}
+		write(channel,"a2");
+		assertEquals("a2",read(channel));
+		close(channel);
+		logger.trace("testBadKey: complete");
+	}
+}
@@ -0,0 +1,151 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import mjb.dev.cjo.channels.DurableChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.ChannelStorageException;
+import mjb.dev.cjo.channels.storage.JavaMessageSerializer;
+import mjb.dev.cjo.operators.AltBuilder;
+import mjb.dev.cjo.operators.AltBuilder.ReadProcess;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the DurableChannel.<br>
+ * Most importantly, that messages survive the channel going away.
+ *
+ */
+public class DurableChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(DurableChannelTest.class);
+
+	/**
+	 * @return - a fresh, empty directory for a log
+	 */
+	private static File makeDirectory() throws IOException {
+		File directory = File.createTempFile("cjo-durable",null);
+		directory.delete();
+		directory.mkdirs();
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	/**
+	 * Test that writing is asynchronous, and messages come out in order
+	 */
+	@Test
+	public void testAsync() throws IOException {
+		DurableChannel<Integer> channel = new DurableChannel<Integer>(makeDirectory(),new JavaMessageSerializer<Integer>());
+		for (int i=0; i<100; i++) {
+			write(channel,i);
+		}
+		for (int i=0; i<100; i++) {
+			assertTrue(read(channel)==i);
+		}
+		close(channel);
+		logger.trace("testAsync: complete");
+	}
+
+	/**
+	 * Test that unread messages are replayed when the channel is opened again, across many segments
+	 */
+	@Test
+	public void testReplay() throws IOException {
+		File directory = makeDirectory();
+		//Tiny segments to force plenty of them
+		DurableChannel<String> channel = new DurableChannel<String>(directory,new JavaMessageSerializer<String>(),256,false);
+		for (int i=0; i<50; i++) {
+			write(channel,"message " + i);
+		}
+		for (int i=0; i<20; i++) {
+			assertEquals("message " + i,read(channel));
+		}
+		//A second channel cannot share the directory
+		try {
+			new DurableChannel<String>(directory,new JavaMessageSerializer<String>());
+			fail("Opened a directory twice");
+		} catch (IOException e) {}
+		close(channel);
+		try {
+			read(channel);
+			fail("Read from a closed channel");
+		} catch (ChannelClosed e) {}
+		//Reopen and carry on where we left off
+		channel = new DurableChannel<String>(directory,new JavaMessageSerializer<String>(),256,false);
+		for (int i=20; i<50; i++) {
+			assertEquals("message " + i,read(channel));
+		}
+		//A big message should get its own segment
+		StringBuilder big = new StringBuilder();
+		for (int i=0; i<1000; i++) {
+			big.append(i);
+		}
+		write(channel,big.toString());
+		write(channel,"after");
+		assertEquals(big.toString(),read(channel));
+		assertEquals("after",read(channel));
+		close(channel);
+		logger.trace("testReplay: complete");
+	}
+
+	/**
+	 * Test that messages which cannot be stored are refused
+	 */
+	@Test
+	public void testStorageFailure() throws IOException {
+		DurableChannel<Object> channel = new DurableChannel<Object>(makeDirectory(),new JavaMessageSerializer<Object>());
+		try {
+			write(channel,new Object());
+			fail("Stored an object that cannot be serialized");
+		} catch (ChannelStorageException e) {}
+		//Still usable
+		write(channel,"fine");
+		assertEquals("fine",read(channel));
+		close(channel);
+		logger.trace("testStorageFailure: complete");
+	}
+
+	/**
+	 * Test that alts can read from a durable channel
+	 */
+	@Test
+	public void testAlt() throws IOException {
+		final DurableChannel<Integer> channel = new DurableChannel<Integer>(makeDirectory(),new JavaMessageSerializer<Integer>());
+		final Box<Integer> result = new Box<Integer>(0);
+		AltBuilder builder = new AltBuilder().addReadBranch(channel,new ReadProcess<Integer>() {
+			public void run(Integer message) {
+				result.setItem(message);
+			}
+		});
+		//Reader waiting first
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				logger.warn("testAlt: interrupted while waiting");
+			}
+			write(channel,7);
+		}});
+		t.start();
+		alt(builder);
+		assertTrue(result.getItem()==7);
+		//Message stored first
+		write(channel,8);
+		alt(builder);
+		assertTrue(result.getItem()==8);
+		close(channel);
+		logger.trace("testAlt: complete");
+	}
+}
@@ -77,4 +77,50 @@ public class FIFOQueueTest {
 		assertTrue(queue.isEmpty() && queue.size()==0);
 		//Should be working!
 	}
+	
+	/**
+	 * Test objects that are their own crates
+	 */
+	@Test
+	public void testIntrusive() {
+		ChannelFIFOQueue<Node> queue = new ChannelFIFOQueue<Node>();
+		ChannelFIFOQueue<Node> otherQueue = new ChannelFIFOQueue<Node>();
+		Node first = new Node(1);
+		Node second = new Node(2);
+		//No allocation - the node is the crate
+		assertTrue(queue.enqueue(first)==first);
+		assertTrue(queue.enqueue(second)==second);
+		assertTrue(queue.contains(first) && !otherQueue.contains(first));
+		//Already in a queue, so it gets an ordinary crate elsewhere
+		Crate<Node> otherCrate = otherQueue.enqueue(first);
+		assertTrue(otherCrate!=first && otherCrate.getObject()==first);
+		assertTrue(queue.contains(first) && otherQueue.contains(otherCrate));
+		assertTrue(queue.dequeue()==first);
+		assertTrue(!queue.contains(first) && otherQueue.contains(otherCrate));
+		//Stale removals have no effect
+		assertFalse(queue.remove(first));
+		assertTrue(queue.size()==1);
+		//Reuse it
+		assertTrue(queue.enqueue(first)==first);
+		assertTrue(queue.remove(second));
+		assertFalse(queue.remove(second));
+		assertTrue(queue.size()==1);
+		assertTrue(queue.dequeue()==first);
+		assertTrue(queue.isEmpty());
+		assertTrue(otherQueue.dequeue()==first);
+		//Doesn't recurse
+		assertTrue(first.toString().startsWith("Crate:["));
+	}
+	
+	/*
+	 * An object that holds itself
+	 */
+	private static final class Node extends Crate<Node> {
+		@SuppressWarnings("unused")
+		private final int value;
+		
+		private Node(int value) {
+			this.value = value;
+		}
+	}
 }
@@ -0,0 +1,65 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import mjb.dev.cjo.channels.PooledBufferChannel;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.utilities.BufferPool;
+import mjb.dev.cjo.utilities.PooledBuffer;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the PooledBufferChannel.<br>
+ * The buffer read should be the very same buffer written, and nothing should leak.
+ *
+ */
+public class PooledBufferChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(PooledBufferChannelTest.class);
+
+	/**
+	 * Test that buffers are passed without copying, and released buffers are refused
+	 */
+	@Test
+	public void testOwnership() {
+		BufferPool pool = new BufferPool(128,4);
+		PooledBufferChannel channel = new PooledBufferChannel(2);
+		PooledBuffer buffer = pool.acquire();
+		buffer.getBuffer().putInt(42);
+		write(channel,buffer);
+		PooledBuffer received = read(channel);
+		assertSame(buffer,received);
+		assertTrue(received.getBuffer().getInt(0)==42);
+		received.release();
+		try {
+			write(channel,received);
+			fail("Wrote a released buffer");
+		} catch (RegistrationException e) {}
+		assertTrue(pool.getOutstandingBuffers()==0);
+		logger.trace("testOwnership: complete");
+	}
+
+	/**
+	 * Test that closing the channel releases the buffers it was holding
+	 */
+	@Test
+	public void testClose() {
+		BufferPool pool = new BufferPool(128,4);
+		PooledBufferChannel channel = new PooledBufferChannel(2);
+		write(channel,pool.acquire());
+		write(channel,pool.acquire());
+		assertTrue(pool.getOutstandingBuffers()==2);
+		close(channel);
+		assertTrue(pool.getOutstandingBuffers()==0);
+		assertTrue(pool.getPooledBuffers()==2);
+		logger.trace("testClose: complete");
+	}
+}
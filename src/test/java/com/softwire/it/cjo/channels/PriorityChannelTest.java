@@ -0,0 +1,159 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mjb.dev.cjo.channels.PriorityChannel;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.operators.AltBuilder;
+import mjb.dev.cjo.operators.AltBuilder.ReadProcess;
+import mjb.dev.cjo.utilities.Box;
+import mjb.dev.cjo.utilities.Function;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the PriorityChannel.
+ *
+ */
+public class PriorityChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(PriorityChannelTest.class);
+
+	/**
+	 * Test that messages are read by priority, and equal priorities stay in order
+	 */
+	@Test
+	public void testPriority() {
+		//Priority is the first character: "9..." beats "1..."
+		PriorityChannel<String> channel = new PriorityChannel<String>(new Function<String,Integer>() {
+			public Integer eval(String input) {
+				return input.charAt(0)-'0';
+			}
+		},10);
+		write(channel,"1 bulk a");
+		write(channel,"1 bulk b");
+		write(channel,"9 cancel");
+		write(channel,"5 control a");
+		write(channel,"5 control b");
+		assertEquals("9 cancel",read(channel));
+		assertEquals("5 control a",read(channel));
+		assertEquals("5 control b",read(channel));
+		assertEquals("1 bulk a",read(channel));
+		assertEquals("1 bulk b",read(channel));
+		close(channel);
+		logger.trace("testPriority: complete");
+	}
+
+	/**
+	 * Test that alts read the most important message too
+	 */
+	@Test
+	public void testAlt() {
+		PriorityChannel<Integer> channel = new PriorityChannel<Integer>(new Comparator<Integer>() {
+			public int compare(Integer first, Integer second) {
+				return first.compareTo(second);
+			}
+		},Integer.MAX_VALUE);
+		write(channel,3);
+		write(channel,1);
+		write(channel,2);
+		final Box<Integer> result = new Box<Integer>(0);
+		AltBuilder builder = new AltBuilder().addReadBranch(channel,new ReadProcess<Integer>() {
+			public void run(Integer message) {
+				result.setItem(message);
+			}
+		});
+		alt(builder);
+		assertTrue(result.getItem()==1);
+		alt(builder);
+		assertTrue(result.getItem()==2);
+		close(channel);
+		logger.trace("testAlt: complete");
+	}
+
+	/**
+	 * Test that a message the priority function fails on, or gives no priority, is refused without harming the channel,
+	 * and that each priority is only worked out once
+	 */
+	@Test
+	public void testBadPriority() {
+		final AtomicInteger evaluations = new AtomicInteger(0);
+		PriorityChannel<String> channel = new PriorityChannel<String>(new Function<String,Integer>() {
+			public Integer eval(String input) {
+				evaluations.incrementAndGet();
+				return input.charAt(0)=='?' ? null : input.charAt(0)-'0';
+			}
+		},10);
+		write(channel,"1 a");
+		try {
+			write(channel,"");
+			fail("Wrote a message the priority function fails on");
+		} catch (RegistrationException e) {
+			assertTrue(e.getCause() instanceof StringIndexOutOfBoundsException);
+		}
+		try {
+			write(channel,"? b");
+			fail("Wrote a message with no priority");
+		} catch (RegistrationException e) {}
+		for (int i=2; i<=5; i++) {
+			write(channel,i + " c");
+		}
+		assertEquals(7,evaluations.get());
+		for (int i=5; i>=1; i--) {
+			assertEquals(i,read(channel).charAt(0)-'0');
+		}
+		assertEquals(7,evaluations.get());
+		close(channel);
+		logger.trace("testBadPriority: complete");
+	}
+
+	/**
+	 * Test that a message the comparator fails on is refused, and that a comparator failing between two messages
+	 * leaves the channel working
+	 */
+	@Test
+	public void testBadComparator() {
+		PriorityChannel<Integer> channel = new PriorityChannel<Integer>(new Comparator<Integer>() {
+			public int compare(Integer first, Integer second) {
+				if (first.intValue()!=second.intValue() && (first==13 || second==13)) {
+					throw new IllegalArgumentException("Unlucky");
+				}
+				return first.compareTo(second);
+			}
+		},10);
+		write(channel,2);
+		try {
+			write(channel,null);
+			fail("Wrote a message the comparator fails on");
+		} catch (RegistrationException e) {
+			assertTrue(e.getCause() instanceof NullPointerException);
+		}
+		write(channel,13);
+		write(channel,1);
+		Set<Integer> received = new HashSet<Integer>();
+		for (int i=0; i<3; i++) {
+			received.add(read(channel));
+		}
+		assertEquals(3,received.size());
+		assertTrue(received.contains(1) && received.contains(2) && received.contains(13));
+		//And the channel is still usable
+		write(channel,5);
+		write(channel,4);
+		assertTrue(read(channel)==4);
+		assertTrue(read(channel)==5);
+		close(channel);
+		logger.trace("testBadComparator: complete");
+	}
+}
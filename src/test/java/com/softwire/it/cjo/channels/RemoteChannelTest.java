@@ -0,0 +1,208 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.RemoteChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.channels.storage.JavaMessageSerializer;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.operators.ChannelFuture;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the RemoteChannel, over the loopback interface.
+ *
+ */
+public class RemoteChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(RemoteChannelTest.class);
+
+	/**
+	 * Test that a remote channel with no capacity is synchronous
+	 */
+	@Test
+	public void testRendezvous() throws IOException {
+		final RemoteChannel<Integer> readEnd = RemoteChannel.listen(new InetSocketAddress("127.0.0.1",0),new JavaMessageSerializer<Integer>(),0);
+		final RemoteChannel<Integer> writeEnd = RemoteChannel.connect(readEnd.getLocalAddress(),new JavaMessageSerializer<Integer>());
+		final Box<Long> time = new Box<Long>(0L);
+		final Semaphore waitSem = new Semaphore(0);
+		long startTime = System.currentTimeMillis();
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(writeEnd,3);
+			time.setItem(System.currentTimeMillis());
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(1000);
+		} catch (InterruptedException e) {
+			logger.warn("testRendezvous: interrupted while waiting");
+		}
+		assertTrue(read(readEnd)==3);
+		waitSem.acquireUninterruptibly();
+		//The writer had to wait for the reader
+		assertTrue(time.getItem()-startTime>500);
+		//Many messages, with the readers waiting
+		t = new Thread(new Runnable() {public void run() {
+			for (int i=0; i<1000; i++) {
+				write(writeEnd,i);
+			}
+		}});
+		t.start();
+		for (int i=0; i<1000; i++) {
+			assertTrue(read(readEnd)==i);
+		}
+		//The ends can't be used the wrong way around
+		try {
+			write(readEnd,1);
+			fail("Wrote to the read end");
+		} catch (RegistrationException e) {}
+		try {
+			read(writeEnd);
+			fail("Read from the write end");
+		} catch (RegistrationException e) {}
+		close(readEnd);
+		logger.trace("testRendezvous: complete");
+	}
+
+	/**
+	 * Test that a buffered remote channel releases writers up to its capacity, and that closing one end closes the other
+	 */
+	@Test
+	public void testBuffered() throws IOException {
+		RemoteChannel<String> readEnd = RemoteChannel.listen(new InetSocketAddress("127.0.0.1",0),new JavaMessageSerializer<String>(),5);
+		final RemoteChannel<String> writeEnd = RemoteChannel.connect(readEnd.getLocalAddress(),new JavaMessageSerializer<String>());
+		//No one is reading yet
+		for (int i=0; i<5; i++) {
+			write(writeEnd,"message " + i);
+		}
+		final Box<Boolean> closed = new Box<Boolean>(false);
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				write(writeEnd,"message 5");
+				//Keep going until the channel closes
+				while (true) {
+					write(writeEnd,"never read");
+				}
+			} catch (ChannelClosed c) {
+				closed.setItem(true);
+			}
+			waitSem.release();
+		}});
+		t.start();
+		for (int i=0; i<6; i++) {
+			assertEquals("message " + i,read(readEnd));
+		}
+		close(readEnd);
+		waitSem.acquireUninterruptibly();
+		assertTrue(closed.getItem());
+		assertTrue(writeEnd.isClosed());
+		logger.trace("testBuffered: complete");
+	}
+
+	/**
+	 * Test that messages too big for one frame together are sent in several, and that a message too big for any frame is refused
+	 */
+	@Test
+	public void testLargeMessages() throws IOException {
+		final int processes = 6;
+		final int size = 16*1024*1024;
+		MessageSerializer<byte[]> serializer = new MessageSerializer<byte[]>() {
+			public byte[] serialize(byte[] message) {
+				return message;
+			}
+			public byte[] deserialize(byte[] bytes) {
+				return bytes;
+			}
+		};
+		RemoteChannel<byte[]> readEnd = RemoteChannel.listen(new InetSocketAddress("127.0.0.1",0),serializer,processes);
+		final RemoteChannel<byte[]> writeEnd = RemoteChannel.connect(readEnd.getLocalAddress(),serializer);
+		//Far more than one frame's worth, all waiting at once
+		final Semaphore waitSem = new Semaphore(0);
+		for (int i=0; i<processes; i++) {
+			final byte[] message = new byte[size];
+			message[0] = (byte)i;
+			new Thread(new Runnable() {public void run() {
+				write(writeEnd,message);
+				waitSem.release();
+			}}).start();
+		}
+		waitSem.acquireUninterruptibly(processes);
+		boolean[] received = new boolean[processes];
+		for (int i=0; i<processes; i++) {
+			byte[] message = read(readEnd);
+			assertEquals(size,message.length);
+			received[message[0]] = true;
+		}
+		for (int i=0; i<processes; i++) {
+			assertTrue(received[i]);
+		}
+		assertFalse(readEnd.isClosed());
+		//This can never be sent
+		try {
+			write(writeEnd,new byte[64*1024*1024]);
+			fail("Wrote a message too big to send");
+		} catch (RegistrationException e) {}
+		close(writeEnd);
+		logger.trace("testLargeMessages: complete");
+	}
+
+	/**
+	 * Test that a write whose message has already been sent is reported as written, even if it then runs out of time
+	 */
+	@Test
+	public void testSentWritesCannotBeWithdrawn() throws IOException, InterruptedException {
+		RemoteChannel<Integer> readEnd = RemoteChannel.listen(new InetSocketAddress("127.0.0.1",0),new JavaMessageSerializer<Integer>(),0);
+		RemoteChannel<Integer> writeEnd = RemoteChannel.connect(readEnd.getLocalAddress(),new JavaMessageSerializer<Integer>());
+		//A reader asks for a message and gives up, leaving the write end with credit
+		ChannelFuture<Integer> future = readAsync(readEnd);
+		Thread.sleep(500);
+		assertTrue(future.cancel(false));
+		//So the message goes straight away, but no one is there to take it
+		assertTrue(tryWrite(writeEnd,1));
+		assertTrue(read(readEnd)==1);
+		//The same goes for a timed write
+		future = readAsync(readEnd);
+		Thread.sleep(500);
+		assertTrue(future.cancel(false));
+		assertTrue(write(writeEnd,2,100));
+		assertTrue(read(readEnd)==2);
+		close(readEnd);
+		logger.trace("testSentWritesCannotBeWithdrawn: complete");
+	}
+
+	/**
+	 * Test that the read end's metrics follow messages arriving over the network, without anyone using the read end
+	 */
+	@Test
+	public void testMetrics() throws IOException {
+		RemoteChannel<Integer> readEnd = RemoteChannel.listen(new InetSocketAddress("127.0.0.1",0),new JavaMessageSerializer<Integer>(),5);
+		RemoteChannel<Integer> writeEnd = RemoteChannel.connect(readEnd.getLocalAddress(),new JavaMessageSerializer<Integer>());
+		ChannelMetrics metrics = readEnd.enableMetrics("remoteChannelTestMetrics");
+		for (int i=0; i<3; i++) {
+			write(writeEnd,i); //returns once buffered at the read end
+		}
+		assertEquals(3,metrics.getBufferedMessages());
+		assertTrue(read(readEnd)==0);
+		assertEquals(2,metrics.getBufferedMessages());
+		readEnd.disableMetrics();
+		close(readEnd);
+		logger.trace("testMetrics: complete");
+	}
+}
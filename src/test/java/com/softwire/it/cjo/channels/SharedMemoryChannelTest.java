@@ -0,0 +1,115 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.SharedMemoryChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.exceptions.RegistrationException;
+import mjb.dev.cjo.channels.storage.JavaMessageSerializer;
+import mjb.dev.cjo.operators.ChannelReader;
+import mjb.dev.cjo.operators.ChannelWriter;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the SharedMemoryChannel.<br>
+ * Two channels on the same file stand in for the two JVMs - they only share the file.
+ *
+ */
+public class SharedMemoryChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(SharedMemoryChannelTest.class);
+
+	/**
+	 * @return - a fresh file for a ring
+	 */
+	private static File makeFile() throws IOException {
+		File file = File.createTempFile("cjo-shared",null);
+		file.delete();
+		file.deleteOnExit();
+		return file;
+	}
+
+	/**
+	 * Test that messages pass between the two sides in order, whoever arrives first
+	 */
+	@Test
+	public void testTransfer() throws IOException {
+		File file = makeFile();
+		final ChannelWriter<Integer> writer = new SharedMemoryChannel<Integer>(file,new JavaMessageSerializer<Integer>(),4,128).getWriter();
+		ChannelReader<Integer> reader = new SharedMemoryChannel<Integer>(file,new JavaMessageSerializer<Integer>(),4,128).getReader();
+		//Writing is asynchronous until the ring is full
+		write(writer,1);
+		write(writer,2);
+		assertTrue(read(reader)==1);
+		assertTrue(read(reader)==2);
+		//Now with the reader waiting first, and more messages than slots
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				logger.warn("testTransfer: interrupted while waiting");
+			}
+			for (int i=0; i<100; i++) {
+				write(writer,i);
+			}
+		}});
+		t.start();
+		for (int i=0; i<100; i++) {
+			assertTrue(read(reader)==i);
+		}
+		closeWriteEnd(writer);
+		logger.trace("testTransfer: complete");
+	}
+
+	/**
+	 * Test that writers wait for a full ring, and that closing one side closes the other
+	 */
+	@Test
+	public void testFullAndClose() throws IOException {
+		File file = makeFile();
+		final SharedMemoryChannel<Integer> writeSide = new SharedMemoryChannel<Integer>(file,new JavaMessageSerializer<Integer>(),1,128);
+		SharedMemoryChannel<Integer> readSide = new SharedMemoryChannel<Integer>(file,new JavaMessageSerializer<Integer>(),1,128);
+		write(writeSide,1);
+		final Box<Boolean> closed = new Box<Boolean>(false);
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				for (int i=2; ; i++) {
+					write(writeSide,i);
+				}
+			} catch (ChannelClosed c) {
+				closed.setItem(true);
+			}
+			waitSem.release();
+		}});
+		t.start();
+		assertTrue(read(readSide)==1);
+		assertTrue(read(readSide)==2);
+		//The writer carries on until the ring is full, and is then stuck until we close (however far it got)
+		close(readSide);
+		waitSem.acquireUninterruptibly();
+		assertTrue(closed.getItem());
+		assertTrue(writeSide.isClosed());
+		//Messages that don't fit are refused
+		SharedMemoryChannel<String> small = new SharedMemoryChannel<String>(makeFile(),new JavaMessageSerializer<String>(),1,8);
+		try {
+			write(small,"far too long for eight bytes");
+			fail("Wrote an oversized message");
+		} catch (RegistrationException e) {}
+		close(small);
+		logger.trace("testFullAndClose: complete");
+	}
+}
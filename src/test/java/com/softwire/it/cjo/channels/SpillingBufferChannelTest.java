@@ -0,0 +1,186 @@
+package com.softwire.it.cjo.channels;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mjb.dev.cjo.channels.SpillingBufferChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.channels.storage.JavaMessageSerializer;
+import mjb.dev.cjo.channels.storage.MessageSerializer;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the correctness of the SpillingBufferChannel.<br>
+ * Messages should come out in order regardless of where they were kept.
+ *
+ */
+public class SpillingBufferChannelTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(SpillingBufferChannelTest.class);
+
+	/**
+	 * Test that messages beyond the memory capacity go to disk and come back in order
+	 */
+	@Test
+	public void testSpill() throws IOException {
+		SpillingBufferChannel<Integer> channel = new SpillingBufferChannel<Integer>(2,new JavaMessageSerializer<Integer>());
+		for (int i=0; i<10; i++) {
+			write(channel,i);
+		}
+		assertTrue(channel.getMessagesOnDisk()==8);
+		assertTrue(channel.getTotalSpilledMessages()==8);
+		assertTrue(channel.getBytesOnDisk()>0);
+		assertTrue(channel.getBytesOnDisk()==channel.getTotalSpilledBytes());
+		for (int i=0; i<5; i++) {
+			assertTrue(read(channel)==i);
+		}
+		//Writing now must not overtake the spilled messages
+		write(channel,10);
+		for (int i=5; i<11; i++) {
+			assertTrue(read(channel)==i);
+		}
+		assertTrue(channel.getMessagesOnDisk()==0);
+		assertTrue(channel.getBytesOnDisk()==0);
+		close(channel);
+		logger.trace("testSpill: complete");
+	}
+
+	/**
+	 * Test that a channel with no memory capacity still works
+	 */
+	@Test
+	public void testNoMemory() throws IOException {
+		SpillingBufferChannel<String> channel = new SpillingBufferChannel<String>(0,new JavaMessageSerializer<String>());
+		write(channel,"a");
+		write(channel,"b");
+		assertEquals("a",read(channel));
+		assertEquals("b",read(channel));
+		assertTrue(channel.getTotalSpilledMessages()==2);
+		close(channel);
+		logger.trace("testNoMemory: complete");
+	}
+
+	/**
+	 * Test that writers wait once the disk capacity runs out, and that they are told when the channel closes
+	 */
+	@Test
+	public void testDiskCapacity() throws IOException {
+		final SpillingBufferChannel<Integer> channel = new SpillingBufferChannel<Integer>(1,1,new JavaMessageSerializer<Integer>(),null);
+		write(channel,1); //in memory
+		final Box<Boolean> wrote = new Box<Boolean>(false);
+		final Box<Boolean> closed = new Box<Boolean>(false);
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				write(channel,2); //can't fit in one byte of disk
+				wrote.setItem(true);
+				write(channel,3);
+			} catch (ChannelClosed c) {
+				closed.setItem(true);
+			}
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(500);
+		} catch (InterruptedException e) {
+			logger.warn("testDiskCapacity: interrupted while waiting");
+		}
+		assertFalse(wrote.getItem());
+		assertTrue(read(channel)==1);
+		assertTrue(read(channel)==2);
+		try {
+			Thread.sleep(500);
+		} catch (InterruptedException e) {
+			logger.warn("testDiskCapacity: interrupted while waiting");
+		}
+		assertTrue(wrote.getItem());
+		close(channel);
+		waitSem.acquireUninterruptibly();
+		logger.trace("testDiskCapacity: complete");
+	}
+
+	/**
+	 * Test that a message which cannot be serialized is only tried once, however often the channel updates
+	 */
+	@Test
+	public void testUnserializable() throws IOException {
+		final AtomicInteger attempts = new AtomicInteger(0);
+		MessageSerializer<Integer> serializer = new JavaMessageSerializer<Integer>() {
+			@Override
+			public byte[] serialize(Integer message) throws IOException {
+				attempts.incrementAndGet();
+				if (message<0) {
+					throw new IOException("Cannot serialize: " + message);
+				}
+				return super.serialize(message);
+			}
+		};
+		final SpillingBufferChannel<Integer> channel = new SpillingBufferChannel<Integer>(1,serializer);
+		write(channel,1); //in memory
+		final Semaphore waitSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(channel,-1); //has to wait for room in memory
+			waitSem.release();
+		}});
+		t.start();
+		try {
+			Thread.sleep(500);
+		} catch (InterruptedException e) {
+			logger.warn("testUnserializable: interrupted while waiting");
+		}
+		//Every one of these updates the channel, but can't overtake the waiting writer
+		for (int i=0; i<10; i++) {
+			assertFalse(tryWrite(channel,2));
+		}
+		assertEquals(1,attempts.get());
+		assertTrue(read(channel)==1);
+		waitSem.acquireUninterruptibly();
+		assertTrue(read(channel)==-1);
+		close(channel);
+		logger.trace("testUnserializable: complete");
+	}
+
+	/**
+	 * Test that the spill files are only created once the channel spills, and are deleted when it closes
+	 */
+	@Test
+	public void testSpillFilesCreatedLazily() throws IOException {
+		File directory = Files.createTempDirectory("cjo-spill-test").toFile();
+		try {
+			SpillingBufferChannel<Integer> channel = new SpillingBufferChannel<Integer>(2,Long.MAX_VALUE,new JavaMessageSerializer<Integer>(),directory);
+			write(channel,1);
+			write(channel,2);
+			assertEquals(0,directory.list().length);
+			write(channel,3);
+			assertEquals(1,directory.list().length);
+			close(channel);
+			assertEquals(0,directory.list().length);
+			//Nor are they created for a channel that never spills
+			channel = new SpillingBufferChannel<Integer>(2,Long.MAX_VALUE,new JavaMessageSerializer<Integer>(),directory);
+			close(channel);
+			assertEquals(0,directory.list().length);
+		} finally {
+			directory.delete();
+		}
+		try {
+			new SpillingBufferChannel<Integer>(2,Long.MAX_VALUE,new JavaMessageSerializer<Integer>(),new File(directory,"missing"));
+			fail("Constructed a channel spilling into a missing directory");
+		} catch (IOException e) {}
+		logger.trace("testSpillFilesCreatedLazily: complete");
+	}
+}
@@ -0,0 +1,162 @@
+package com.softwire.it.cjo.flow;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mjb.dev.cjo.channels.BufferManyChannel;
+import mjb.dev.cjo.channels.OneManyChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.flow.ChannelPublisher;
+import mjb.dev.cjo.flow.ChannelSubscriber;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the reactive stream adapters.
+ *
+ */
+public class FlowAdaptersTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(FlowAdaptersTest.class);
+
+	/**
+	 * Test that the publisher only reads what is asked for, in order, and completes when the channel closes
+	 */
+	@Test
+	public void testPublisher() throws InterruptedException {
+		BufferManyChannel<Integer> channel = new BufferManyChannel<Integer>(10);
+		for (int i=0; i<10; i++) {
+			write(channel,i);
+		}
+		final List<Integer> received = new ArrayList<Integer>();
+		final CountDownLatch firstBatch = new CountDownLatch(3);
+		final CountDownLatch all = new CountDownLatch(11);
+		final CountDownLatch completed = new CountDownLatch(1);
+		final List<Flow.Subscription> subscriptions = new ArrayList<Flow.Subscription>();
+		new ChannelPublisher<Integer>(channel.getReader()).subscribe(new Flow.Subscriber<Integer>() {
+			public void onSubscribe(Flow.Subscription subscription) {
+				synchronized (subscriptions) {
+					subscriptions.add(subscription);
+				}
+				subscription.request(3);
+			}
+			public void onNext(Integer message) {
+				synchronized (received) {
+					received.add(message);
+				}
+				firstBatch.countDown();
+				all.countDown();
+			}
+			public void onError(Throwable error) {
+				logger.error("testPublisher: unexpected error " + error);
+			}
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+		assertTrue(firstBatch.await(10,TimeUnit.SECONDS));
+		//Only what was asked for left the channel
+		Thread.sleep(100);
+		synchronized (received) {
+			assertEquals(3,received.size());
+		}
+		synchronized (subscriptions) {
+			subscriptions.get(0).request(Long.MAX_VALUE);
+		}
+		write(channel,10);
+		assertTrue(all.await(10,TimeUnit.SECONDS));
+		close(channel);
+		assertTrue(completed.await(10,TimeUnit.SECONDS));
+		synchronized (received) {
+			assertEquals(11,received.size());
+			for (int i=0; i<11; i++) {
+				assertTrue(received.get(i)==i);
+			}
+		}
+		logger.trace("testPublisher: complete");
+	}
+
+	/**
+	 * Test that the subscriber writes everything in order and closes the channel at the end
+	 */
+	@Test
+	public void testSubscriber() {
+		OneManyChannel<Integer> channel = new OneManyChannel<Integer>();
+		SubmissionPublisher<Integer> publisher = new SubmissionPublisher<Integer>();
+		publisher.subscribe(new ChannelSubscriber<Integer>(channel.getWriter()));
+		for (int i=0; i<100; i++) {
+			publisher.submit(i);
+		}
+		publisher.close();
+		for (int i=0; i<100; i++) {
+			assertTrue(read(channel)==i);
+		}
+		try {
+			read(channel);
+			fail("Read from a channel whose publisher completed");
+		} catch (ChannelClosed e) {}
+		logger.trace("testSubscriber: complete");
+	}
+
+	/**
+	 * Test that a subscriber to a buffered channel asks for just enough to fill the buffer
+	 */
+	@Test
+	public void testBufferedSubscriber() {
+		BufferManyChannel<Integer> channel = new BufferManyChannel<Integer>(3);
+		final AtomicLong requested = new AtomicLong(0);
+		new ChannelSubscriber<Integer>(channel).onSubscribe(new Flow.Subscription() {
+			public void request(long n) {
+				requested.addAndGet(n);
+			}
+			public void cancel() {}
+		});
+		assertEquals(4,requested.get());
+		//And it still works end to end
+		channel = new BufferManyChannel<Integer>(3);
+		SubmissionPublisher<Integer> publisher = new SubmissionPublisher<Integer>();
+		publisher.subscribe(new ChannelSubscriber<Integer>(channel));
+		for (int i=0; i<100; i++) {
+			publisher.submit(i);
+		}
+		publisher.close();
+		for (int i=0; i<100; i++) {
+			assertTrue(read(channel)==i);
+		}
+		logger.trace("testBufferedSubscriber: complete");
+	}
+
+	/**
+	 * Test a publisher feeding a subscriber, to cross from one channel to another
+	 */
+	@Test
+	public void testBridge() {
+		BufferManyChannel<Integer> from = new BufferManyChannel<Integer>(4);
+		OneManyChannel<Integer> to = new OneManyChannel<Integer>();
+		new ChannelPublisher<Integer>(from.getReader()).subscribe(new ChannelSubscriber<Integer>(to.getWriter()));
+		for (int i=0; i<50; i++) {
+			write(from,i);
+			assertTrue(read(to)==i);
+		}
+		close(from);
+		try {
+			read(to);
+			fail("Read from a channel whose publisher completed");
+		} catch (ChannelClosed e) {}
+		logger.trace("testBridge: complete");
+	}
+}
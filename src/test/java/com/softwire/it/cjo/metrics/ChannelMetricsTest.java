@@ -0,0 +1,136 @@
+package com.softwire.it.cjo.metrics;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Semaphore;
+
+import javax.management.MBeanServer;
+
+import mjb.dev.cjo.channels.BufferManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.metrics.ChannelMetrics;
+import mjb.dev.cjo.metrics.ChannelMetricsRegistry;
+import mjb.dev.cjo.metrics.Histogram;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the channel metrics, their registry and the histogram.
+ *
+ */
+public class ChannelMetricsTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(ChannelMetricsTest.class);
+
+	/**
+	 * Test the histogram on its own
+	 */
+	@Test
+	public void testHistogram() {
+		Histogram histogram = new Histogram();
+		assertTrue(histogram.getCount()==0 && histogram.getPercentile(99)==0);
+		for (int i=1; i<=100; i++) {
+			histogram.record(i);
+		}
+		histogram.record(10000);
+		assertTrue(histogram.getCount()==101);
+		assertTrue(histogram.getMax()==10000);
+		//The median is 51, which lives in the bucket for 32 to 63
+		assertTrue(histogram.getPercentile(50)==63);
+		assertTrue(histogram.getPercentile(100)==10000);
+		assertEquals((5050+10000)/101.0,histogram.getMean(),0.001);
+		histogram.reset();
+		assertTrue(histogram.getCount()==0 && histogram.getMax()==0);
+		logger.trace("testHistogram: complete");
+	}
+
+	/**
+	 * Test that a buffered channel records transfers, its buffer and its waiting readers
+	 */
+	@Test
+	public void testChannelMetrics() throws Exception {
+		final BufferManyChannel<Integer> channel = new BufferManyChannel<Integer>(5);
+		assertNull(channel.getMetrics());
+		ChannelMetrics metrics = channel.enableMetrics("testChannelMetrics");
+		assertTrue(ChannelMetricsRegistry.INSTANCE.get("testChannelMetrics")==metrics);
+		for (int i=0; i<3; i++) {
+			write(channel,i);
+		}
+		assertTrue(metrics.getBufferedMessages()==3);
+		for (int i=0; i<3; i++) {
+			assertTrue(read(channel)==i);
+		}
+		assertTrue(metrics.getMessagesTransferred()==3);
+		assertTrue(metrics.getBufferedMessages()==0 && metrics.getPeakBufferedMessages()==3);
+		assertTrue(metrics.getWriterQueueTimes().getCount()==3);
+		//Now make a reader wait
+		final Semaphore readSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			read(channel);
+			readSem.release();
+		}});
+		t.start();
+		while (metrics.getWaitingReaders()==0) {
+			Thread.sleep(10);
+		}
+		write(channel,4);
+		readSem.acquireUninterruptibly();
+		assertTrue(metrics.getMessagesTransferred()==4);
+		assertTrue(metrics.getPeakWaitingReaders()==1);
+		//(Every read passes through the queue, however briefly)
+		assertTrue(metrics.getReaderQueueTimes().getCount()==4);
+		assertTrue(metrics.getReaderBlockTimes().getCount()==1);
+		//Visible over JMX
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(4L,server.getAttribute(ChannelMetricsRegistry.makeName("testChannelMetrics"),"MessagesTransferred"));
+		//Names are unique
+		try {
+			new OneOneChannel<Integer>().enableMetrics("testChannelMetrics");
+			fail("Registered the same name twice");
+		} catch (IllegalArgumentException e) {}
+		channel.disableMetrics();
+		assertNull(channel.getMetrics());
+		assertNull(ChannelMetricsRegistry.INSTANCE.get("testChannelMetrics"));
+		assertFalse(server.isRegistered(ChannelMetricsRegistry.makeName("testChannelMetrics")));
+		//Nothing recorded any more
+		write(channel,5);
+		read(channel);
+		assertTrue(metrics.getMessagesTransferred()==4);
+		close(channel);
+		logger.trace("testChannelMetrics: complete");
+	}
+
+	/**
+	 * Test that writers blocking on a synchronous channel are seen
+	 */
+	@Test
+	public void testBlockedWriters() throws Exception {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		ChannelMetrics metrics = channel.enableMetrics("testBlockedWriters");
+		final Semaphore writeSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(channel,1);
+			writeSem.release();
+		}});
+		t.start();
+		while (metrics.getWaitingWriters()==0) {
+			Thread.sleep(10);
+		}
+		assertTrue(read(channel)==1);
+		writeSem.acquireUninterruptibly();
+		assertTrue(metrics.getPeakWaitingWriters()==1 && metrics.getWaitingWriters()==0);
+		assertTrue(metrics.getWriterBlockTimes().getCount()==1);
+		assertTrue(metrics.getMessagesTransferred()==1);
+		channel.disableMetrics();
+		close(channel);
+		logger.trace("testBlockedWriters: complete");
+	}
+}
@@ -0,0 +1,157 @@
+package com.softwire.it.cjo.metrics;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Semaphore;
+
+import javax.management.MBeanServer;
+
+import mjb.dev.cjo.channels.ManyManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.metrics.SchedulerMetrics;
+import mjb.dev.cjo.metrics.SchedulerSnapshot;
+import mjb.dev.cjo.operators.AltBuilder;
+import mjb.dev.cjo.operators.AltBuilder.ReadProcess;
+import mjb.dev.cjo.threads.ThreadScheduler;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the scheduler metrics. Other tests may leave tasks behind, so only changes are checked.
+ *
+ */
+public class SchedulerMetricsTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(SchedulerMetricsTest.class);
+
+	@Before
+	public void enableMetrics() {
+		SchedulerMetrics.INSTANCE.setEnabled(true);
+	}
+
+	@After
+	public void disableMetrics() {
+		SchedulerMetrics.INSTANCE.setEnabled(false);
+	}
+
+	/**
+	 * Test that tasks are counted as they start, block on a channel and finish
+	 */
+	@Test
+	public void testTasks() throws Exception {
+		final ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		channel.enableMetrics("schedulerMetricsTestChannel");
+		final OneOneChannel<Integer> other = new OneOneChannel<Integer>();
+		other.enableMetrics("schedulerMetricsTestOther");
+		SchedulerSnapshot before = SchedulerMetrics.INSTANCE.snapshot();
+		final Semaphore doneSem = new Semaphore(0);
+		//One reads, and one waits in an alt
+		ThreadScheduler.Task reader = ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			read(channel);
+			doneSem.release();
+		}},true);
+		final AltBuilder builder = new AltBuilder().addReadBranch(other,new ReadProcess<Integer>() {
+			public void run(Integer message) {}
+		}).addReadBranch(channel,new ReadProcess<Integer>() {
+			public void run(Integer message) {}
+		});
+		ThreadScheduler.Task alter = ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			alt(builder);
+			doneSem.release();
+		}},true);
+		assertTrue(SchedulerMetrics.INSTANCE.getTasksCreated()>=before.getTasksCreated()+2);
+		ThreadScheduler.INSTANCE.schedule(reader);
+		waitForBlocked("schedulerMetricsTestChannel");
+		ThreadScheduler.INSTANCE.schedule(alter);
+		waitForBlocked("alt[schedulerMetricsTestChannel, schedulerMetricsTestOther]"); //(the builder keeps its branches newest first)
+		SchedulerSnapshot during = SchedulerMetrics.INSTANCE.snapshot();
+		assertTrue(during.getBlockedChannels().get("schedulerMetricsTestChannel")==1);
+		assertTrue(during.getTasksBlocked()>=2);
+		assertTrue(during.getTasksRunning()>=during.getTasksBlocked());
+		//Now let them go
+		write(channel,1);
+		write(other,2);
+		doneSem.acquireUninterruptibly(2);
+		ThreadScheduler.INSTANCE.deschedule(reader);
+		ThreadScheduler.INSTANCE.deschedule(alter);
+		SchedulerSnapshot after = SchedulerMetrics.INSTANCE.snapshot();
+		assertNull(after.getBlockedChannels().get("schedulerMetricsTestChannel"));
+		assertTrue(after.getTasksFinished()>=before.getTasksFinished()+2);
+		assertTrue(SchedulerMetrics.INSTANCE.getStartLatencies().getCount()>=2);
+		assertTrue(SchedulerMetrics.INSTANCE.getLifetimes().getCount()>=2);
+		assertTrue(after.getLifetime99thPercentile()>0);
+		logger.trace("testTasks: complete");
+	}
+
+	/**
+	 * Test that the metrics can be seen over JMX
+	 */
+	@Test
+	public void testJMX() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertTrue(server.isRegistered(SchedulerMetrics.makeName()));
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		channel.enableMetrics("schedulerMetricsTestJMX");
+		final Semaphore doneSem = new Semaphore(0);
+		ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			write(channel,1);
+			doneSem.release();
+		}},true));
+		waitForBlocked("schedulerMetricsTestJMX");
+		String[] blocked = (String[])server.getAttribute(SchedulerMetrics.makeName(),"BlockedChannels");
+		boolean found = false;
+		for (String entry : blocked) {
+			found |= entry.equals("schedulerMetricsTestJMX=1");
+		}
+		assertTrue(found);
+		assertTrue((Long)server.getAttribute(SchedulerMetrics.makeName(),"TasksRunning")>=1);
+		assertTrue(read(channel)==1);
+		doneSem.acquireUninterruptibly();
+		logger.trace("testJMX: complete");
+	}
+
+	/**
+	 * Test that nothing is recorded while the metrics are disabled
+	 */
+	@Test
+	public void testDisabled() throws Exception {
+		SchedulerMetrics.INSTANCE.setEnabled(false);
+		assertFalse((Boolean)ManagementFactory.getPlatformMBeanServer().getAttribute(SchedulerMetrics.makeName(),"Enabled"));
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		channel.enableMetrics("schedulerMetricsTestDisabled");
+		long created = SchedulerMetrics.INSTANCE.getTasksCreated();
+		final Semaphore doneSem = new Semaphore(0);
+		ThreadScheduler.INSTANCE.schedule(ThreadScheduler.INSTANCE.makeTask(new Runnable() {public void run() {
+			write(channel,1);
+			doneSem.release();
+		}},true));
+		Thread.sleep(500);
+		assertEquals(created,SchedulerMetrics.INSTANCE.getTasksCreated());
+		assertFalse(SchedulerMetrics.INSTANCE.snapshot().getBlockedChannels().containsKey("schedulerMetricsTestDisabled"));
+		//Switching on part way through doesn't count the task that is already running
+		SchedulerMetrics.INSTANCE.setEnabled(true);
+		long running = SchedulerMetrics.INSTANCE.getTasksRunning();
+		assertTrue(read(channel)==1);
+		doneSem.acquireUninterruptibly();
+		assertTrue(SchedulerMetrics.INSTANCE.getTasksRunning()<=running);
+		logger.trace("testDisabled: complete");
+	}
+
+	private static void waitForBlocked(String name) throws InterruptedException {
+		long deadline = System.currentTimeMillis()+10000;
+		while (!SchedulerMetrics.INSTANCE.snapshot().getBlockedChannels().containsKey(name)) {
+			assertTrue("Nothing blocked on " + name + " in " + SchedulerMetrics.INSTANCE.snapshot(),System.currentTimeMillis()<deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.softwire.it.cjo.operators;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import mjb.dev.cjo.channels.ManyManyChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.operators.ChannelFuture;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the asynchronous reads and writes.
+ *
+ */
+public class AsyncOpsTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(AsyncOpsTest.class);
+
+	/**
+	 * Test that futures complete when the other side turns up, and on the executor they were given
+	 */
+	@Test
+	public void testReadAndWrite() throws InterruptedException, ExecutionException, TimeoutException {
+		ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		//The reader waits in the channel
+		ChannelFuture<Integer> future = readAsync(channel);
+		assertFalse(future.isDone());
+		write(channel,1);
+		assertTrue(future.get(10,TimeUnit.SECONDS)==1);
+		//The writer waits in the channel
+		ChannelFuture<Void> written = writeAsync(channel,2);
+		assertFalse(written.isDone());
+		assertTrue(read(channel)==2);
+		assertNull(written.get(10,TimeUnit.SECONDS));
+		//Futures can meet each other too
+		ChannelFuture<Integer> read = readAsync(channel);
+		written = writeAsync(channel,3);
+		assertTrue(read.get(10,TimeUnit.SECONDS)==3);
+		written.get(10,TimeUnit.SECONDS);
+		//Continuations run on the executor
+		final String name = "asyncOpsTestThread";
+		ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable,name);
+			}
+		});
+		future = readAsync(channel,executor);
+		//(Attached before the write, or it could run straight away in this thread)
+		CompletableFuture<String> thread = future.thenApply(new Function<Integer,String>() {
+			public String apply(Integer message) {
+				return Thread.currentThread().getName();
+			}
+		});
+		write(channel,4);
+		assertEquals(name,thread.get(10,TimeUnit.SECONDS));
+		executor.shutdown();
+		close(channel);
+		logger.trace("testReadAndWrite: complete");
+	}
+
+	/**
+	 * Test that cancelling withdraws from the channel, and closing fails the futures
+	 */
+	@Test
+	public void testCancelAndClose() throws InterruptedException, TimeoutException {
+		ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		ChannelFuture<Integer> future = readAsync(channel);
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		//No one is reading any more
+		assertFalse(tryWrite(channel,1));
+		ChannelFuture<Void> written = writeAsync(channel,2);
+		assertTrue(written.cancel(false));
+		assertNull(tryRead(channel));
+		//Too late to cancel
+		written = writeAsync(channel,3);
+		assertTrue(read(channel)==3);
+		assertFalse(written.cancel(false));
+		//Closing
+		future = readAsync(channel);
+		close(channel);
+		try {
+			future.get(10,TimeUnit.SECONDS);
+			fail("Read from a closed channel");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ChannelClosed);
+		}
+		assertTrue(writeAsync(channel,4).isCompletedExceptionally());
+		logger.trace("testCancelAndClose: complete");
+	}
+
+	/**
+	 * Test that a future still completes (and the channel still works) if its executor has been shut down
+	 */
+	@Test
+	public void testShutDownExecutor() throws InterruptedException, ExecutionException, TimeoutException {
+		ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		//The writer gets through, and the message is not lost
+		ChannelFuture<Integer> read = readAsync(channel,executor);
+		write(channel,1);
+		assertTrue(read.get(10,TimeUnit.SECONDS)==1);
+		ChannelFuture<Void> written = writeAsync(channel,2,executor);
+		assertTrue(read(channel)==2);
+		assertNull(written.get(10,TimeUnit.SECONDS));
+		//Closing is reported too
+		read = readAsync(channel,executor);
+		close(channel);
+		try {
+			read.get(10,TimeUnit.SECONDS);
+			fail("Read from a closed channel");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ChannelClosed);
+		}
+		logger.trace("testShutDownExecutor: complete");
+	}
+}
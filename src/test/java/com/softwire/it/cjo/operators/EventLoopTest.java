@@ -0,0 +1,227 @@
+package com.softwire.it.cjo.operators;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import mjb.dev.cjo.channels.ManyManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.operators.Channel;
+import mjb.dev.cjo.operators.ChannelFuture;
+import mjb.dev.cjo.operators.EventLoopGroup;
+import mjb.dev.cjo.operators.EventProcess;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests event processes running on event loops.
+ *
+ */
+public class EventLoopTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(EventLoopTest.class);
+
+	/**
+	 * Test a ring of many event processes on a couple of loops passing a token round
+	 */
+	@Test
+	public void testRing() throws InterruptedException {
+		final int size = 10000;
+		EventLoopGroup group = new EventLoopGroup(2);
+		@SuppressWarnings("unchecked")
+		final Channel<Integer>[] channels = (Channel<Integer>[])new Channel<?>[size];
+		for (int i=0; i<size; i++) {
+			channels[i] = new OneOneChannel<Integer>();
+		}
+		//Everyone else passes the token on, adding one
+		for (int i=1; i<size; i++) {
+			final Channel<Integer> in = channels[i-1];
+			final Channel<Integer> out = channels[i];
+			group.spawn(new EventProcess() {
+				protected void onStart() {
+					read(in,new MessageHandler<Integer>() {
+						public void onMessage(Integer message) {
+							write(out,message+1,new WriteHandler() {
+								public void onReadyToWrite() {
+									stop();
+								}
+							});
+						}
+					});
+				}
+			});
+		}
+		//The first starts it off and waits for it to come back
+		final Box<Integer> result = new Box<Integer>(-1);
+		final Semaphore doneSem = new Semaphore(0);
+		group.spawn(new EventProcess() {
+			protected void onStart() {
+				write(channels[0],0,new WriteHandler() {
+					public void onReadyToWrite() {
+						read(channels[size-1],new MessageHandler<Integer>() {
+							public void onMessage(Integer message) {
+								synchronized (result) {
+									result.setItem(message);
+								}
+								stop();
+								doneSem.release();
+							}
+						});
+					}
+				});
+			}
+		});
+		assertTrue(doneSem.tryAcquire(60,TimeUnit.SECONDS));
+		synchronized (result) {
+			assertTrue(result.getItem()==size-1);
+		}
+		//Everyone has stopped (the last of them just after writing)
+		long deadline = System.currentTimeMillis()+10000;
+		while (group.getLiveProcesses()!=0 && System.currentTimeMillis()<deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0,group.getLiveProcesses());
+		group.shutdown();
+		logger.trace("testRing: complete");
+	}
+
+	/**
+	 * Test that ordinary blocking processes and event processes share channels, and that closing a channel is heard
+	 */
+	@Test
+	public void testMixed() throws InterruptedException {
+		EventLoopGroup group = new EventLoopGroup(1);
+		final ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		final int messages = 1000;
+		final Box<Integer> sum = new Box<Integer>(0);
+		final Semaphore closedSem = new Semaphore(0);
+		group.spawn(new EventProcess() {
+			private int total = 0;
+			protected void onStart() {
+				read(channel,new MessageHandler<Integer>() {
+					public void onMessage(Integer message) {
+						total += message;
+						onStart(); //go round again
+					}
+				});
+			}
+			protected void onClosed(Channel<?> closed) {
+				assertSame(channel,closed);
+				synchronized (sum) {
+					sum.setItem(total);
+				}
+				stop();
+				closedSem.release();
+			}
+		});
+		final Semaphore writtenSem = new Semaphore(0);
+		for (int t=0; t<2; t++) {
+			new Thread(new Runnable() {public void run() {
+				for (int i=1; i<=messages; i++) {
+					write(channel,i);
+				}
+				writtenSem.release();
+			}}).start();
+		}
+		writtenSem.acquireUninterruptibly(2);
+		close(channel);
+		assertTrue(closedSem.tryAcquire(10,TimeUnit.SECONDS));
+		synchronized (sum) {
+			assertTrue(sum.getItem()==messages*(messages+1));
+		}
+		assertEquals(0,group.getLiveProcesses());
+		group.shutdown();
+		logger.trace("testMixed: complete");
+	}
+
+	/**
+	 * Test that stopping a process withdraws what it was waiting for
+	 */
+	@Test
+	public void testStop() throws Exception {
+		EventLoopGroup group = new EventLoopGroup(1);
+		final ManyManyChannel<Integer> first = new ManyManyChannel<Integer>();
+		final ManyManyChannel<Integer> second = new ManyManyChannel<Integer>();
+		final Semaphore stoppedSem = new Semaphore(0);
+		EventProcess process = new EventProcess() {
+			protected void onStart() {
+				read(first,new MessageHandler<Integer>() {
+					public void onMessage(Integer message) {
+						stop();
+						stoppedSem.release();
+					}
+				});
+				read(second,new MessageHandler<Integer>() {
+					public void onMessage(Integer message) {
+						fail("Read after stopping");
+					}
+				});
+			}
+		};
+		group.spawn(process);
+		try {
+			group.spawn(process);
+			fail("Spawned a process twice");
+		} catch (IllegalStateException e) {}
+		write(first,1);
+		assertTrue(stoppedSem.tryAcquire(10,TimeUnit.SECONDS));
+		assertEquals(0,group.getLiveProcesses());
+		//No one is reading the second channel any more
+		ChannelFuture<Void> written = writeAsync(second,2);
+		Thread.sleep(200);
+		assertFalse(written.isDone());
+		assertTrue(read(second)==2);
+		written.get(10,TimeUnit.SECONDS);
+		group.shutdown();
+		logger.trace("testStop: complete");
+	}
+
+	/**
+	 * Test that an interrupt reaching a loop's thread does not leave it spinning
+	 */
+	@Test
+	public void testInterrupted() throws Exception {
+		EventLoopGroup group = new EventLoopGroup(1);
+		final ManyManyChannel<Integer> channel = new ManyManyChannel<Integer>();
+		final Box<Thread> loopThread = new Box<Thread>(null);
+		final Semaphore startedSem = new Semaphore(0);
+		final Semaphore readSem = new Semaphore(0);
+		group.spawn(new EventProcess() {
+			protected void onStart() {
+				loopThread.setItem(Thread.currentThread());
+				Thread.currentThread().interrupt(); //a careless callback
+				read(channel,new MessageHandler<Integer>() {
+					public void onMessage(Integer message) {
+						readSem.release();
+					}
+				});
+				startedSem.release();
+			}
+		});
+		assertTrue(startedSem.tryAcquire(10,TimeUnit.SECONDS));
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled()) {
+			//The loop has nothing to do, so should be asleep
+			long before = threads.getThreadCpuTime(loopThread.getItem().getId());
+			Thread.sleep(500);
+			long used = threads.getThreadCpuTime(loopThread.getItem().getId())-before;
+			assertTrue("The idle loop used " + used + "ns of CPU",used<TimeUnit.MILLISECONDS.toNanos(100));
+		}
+		//And still wakes up for events
+		write(channel,1);
+		assertTrue(readSem.tryAcquire(10,TimeUnit.SECONDS));
+		group.shutdown();
+		logger.trace("testInterrupted: complete");
+	}
+}
@@ -0,0 +1,154 @@
+package com.softwire.it.cjo.operators;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import mjb.dev.cjo.channels.ManyManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.operators.ProcessGroup;
+import mjb.dev.cjo.operators.exceptions.ParallelException;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests parallel composition and process groups.
+ *
+ */
+public class ParTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(ParTest.class);
+
+	/**
+	 * Test that processes really run at the same time, and par waits for all of them
+	 */
+	@Test
+	public void testPar() {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		final Box<Integer> sum = new Box<Integer>(0);
+		final Box<Thread> consumer = new Box<Thread>(null);
+		par(new Runnable() {public void run() {
+			for (int i=1; i<=100; i++) {
+				write(channel,i);
+			}
+			close(channel);
+		}},new Runnable() {public void run() {
+			consumer.setItem(Thread.currentThread());
+			int total = 0;
+			try {
+				while (true) {
+					total += read(channel);
+				}
+			} catch (Exception e) {}
+			sum.setItem(total);
+		}});
+		assertTrue(sum.getItem()==5050);
+		//The last process ran in this thread
+		assertSame(Thread.currentThread(),consumer.getItem());
+		par(); //nothing to do
+		logger.trace("testPar: complete");
+	}
+
+	/**
+	 * Test that a process stopping because its channel closed has not failed, and does not shut the group down
+	 */
+	@Test
+	public void testChannelClosed() {
+		ProcessGroup group = new ProcessGroup();
+		final OneOneChannel<Integer> channel = group.addChannel(new OneOneChannel<Integer>());
+		final ManyManyChannel<Integer> other = group.addChannel(new ManyManyChannel<Integer>());
+		final Box<Integer> sum = new Box<Integer>(0);
+		group.add(new Runnable() {public void run() {
+			for (int i=1; i<=100; i++) {
+				write(channel,i);
+			}
+			close(channel);
+		}},new Runnable() {public void run() {
+			//Lets the channel closed exception end it
+			while (true) {
+				sum.setItem(sum.getItem()+read(channel));
+			}
+		}});
+		group.run();
+		assertTrue(sum.getItem()==5050);
+		assertFalse(group.isClosed());
+		assertFalse(other.isClosed());
+		assertTrue(group.getExceptions().isEmpty());
+		logger.trace("testChannelClosed: complete");
+	}
+
+	/**
+	 * Test that a failure closes the group's channels, so the rest of the network stops, and every real failure is reported
+	 */
+	@Test
+	public void testFailure() {
+		ProcessGroup group = new ProcessGroup();
+		final ManyManyChannel<Integer> channel = group.addChannel(new ManyManyChannel<Integer>());
+		//Waits forever unless the channel closes
+		Runnable reader = new Runnable() {public void run() {
+			read(channel);
+		}};
+		group.add(reader,reader,new Runnable() {public void run() {
+			throw new IllegalStateException("first");
+		}},reader);
+		try {
+			group.run();
+			fail("The group did not report the failure");
+		} catch (ParallelException e) {
+			assertEquals(1,e.getExceptions().size());
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(group.isClosed());
+		assertTrue(channel.isClosed());
+		try {
+			group.run();
+			fail("Ran a group twice");
+		} catch (IllegalStateException e) {}
+		//Several failures
+		try {
+			par(new Runnable() {public void run() {
+				throw new IllegalStateException("one");
+			}},new Runnable() {public void run() {
+				throw new IllegalArgumentException("two");
+			}});
+			fail("Par did not report the failures");
+		} catch (ParallelException e) {
+			assertEquals(2,e.getExceptions().size());
+			assertEquals(1,e.getSuppressed().length);
+		}
+		logger.trace("testFailure: complete");
+	}
+
+	/**
+	 * Test closing a group from outside
+	 */
+	@Test
+	public void testClose() throws InterruptedException {
+		final ProcessGroup group = new ProcessGroup();
+		final OneOneChannel<Integer> channel = group.addChannel(new OneOneChannel<Integer>());
+		group.add(new Runnable() {public void run() {
+			read(channel);
+		}});
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				logger.warn("testClose: interrupted while waiting");
+			}
+			group.close();
+		}});
+		t.start();
+		group.run(); //the channel closing is not a failure
+		t.join();
+		//Channels added later are closed straight away
+		OneOneChannel<Integer> late = group.addChannel(new OneOneChannel<Integer>());
+		assertTrue(late.isClosed());
+		logger.trace("testClose: complete");
+	}
+}
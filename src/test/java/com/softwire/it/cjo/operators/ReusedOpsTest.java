@@ -0,0 +1,196 @@
+package com.softwire.it.cjo.operators;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import mjb.dev.cjo.channels.ChannelFIFOQueue;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.channels.WaitingReader;
+import mjb.dev.cjo.channels.WaitingWriter;
+import mjb.dev.cjo.operators.Read;
+import mjb.dev.cjo.operators.Write;
+import mjb.dev.cjo.operators.exceptions.ProcessInterruptedException;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the reads and writes that each thread reuses in Ops, and that their waiting copes with
+ * interrupts and with being woken for no reason.
+ *
+ */
+public class ReusedOpsTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(ReusedOpsTest.class);
+
+	/**
+	 * Test that each thread keeps the same read and write from one operation to the next
+	 */
+	@Test
+	public void testReused() throws InterruptedException {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		Read<?> read = threadRead();
+		Write<?> write = threadWrite();
+		assertSame(read,threadRead());
+		assertSame(write,threadWrite());
+		new Thread(new Runnable() {public void run() {
+			for (int i=0; i<100; i++) {
+				write(channel,i);
+			}
+		}}).start();
+		for (int i=0; i<100; i++) {
+			assertTrue(read(channel)==i);
+		}
+		new Thread(new Runnable() {public void run() {
+			for (int i=0; i<100; i++) {
+				read(channel);
+			}
+		}}).start();
+		for (int i=0; i<100; i++) {
+			write(channel,i);
+		}
+		assertSame(read,threadRead());
+		assertSame(write,threadWrite());
+		//But another thread has its own
+		final Box<Read<?>> otherRead = new Box<Read<?>>(null);
+		Thread other = new Thread(new Runnable() {public void run() {
+			otherRead.setItem(threadRead());
+		}});
+		other.start();
+		other.join();
+		assertNotNull(otherRead.getItem());
+		assertNotSame(read,otherRead.getItem());
+		logger.trace("testReused: complete");
+	}
+
+	/**
+	 * Test that a cached read or write still queued somewhere is replaced rather than reused
+	 */
+	@Test
+	public void testQueuedReplaced() {
+		@SuppressWarnings("unchecked")
+		Read<Object> read = (Read<Object>)threadRead();
+		@SuppressWarnings("unchecked")
+		Write<Object> write = (Write<Object>)threadWrite();
+		//As if a channel forgot to remove them
+		new ChannelFIFOQueue<WaitingReader<Object>>().enqueue(read);
+		new ChannelFIFOQueue<WaitingWriter<Object>>().enqueue(write);
+		Read<?> freshRead = threadRead();
+		Write<?> freshWrite = threadWrite();
+		assertNotSame(read,freshRead);
+		assertNotSame(write,freshWrite);
+		assertSame(freshRead,threadRead());
+		assertSame(freshWrite,threadWrite());
+		logger.trace("testQueuedReplaced: complete");
+	}
+
+	/**
+	 * Test that waking a waiting reader for no reason leaves it waiting, and that it still gets its message
+	 */
+	@Test
+	public void testSpuriousWakeUps() throws InterruptedException {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		final Box<Integer> result = new Box<Integer>(-1);
+		final Semaphore readSem = new Semaphore(0);
+		Thread reader = new Thread(new Runnable() {public void run() {
+			int message = read(channel);
+			synchronized (result) {
+				result.setItem(message);
+			}
+			readSem.release();
+		}});
+		reader.start();
+		for (int i=0; i<100; i++) {
+			LockSupport.unpark(reader);
+			Thread.sleep(1);
+		}
+		assertFalse(readSem.tryAcquire(100,TimeUnit.MILLISECONDS));
+		write(channel,42);
+		assertTrue(readSem.tryAcquire(10,TimeUnit.SECONDS));
+		synchronized (result) {
+			assertTrue(result.getItem()==42);
+		}
+		logger.trace("testSpuriousWakeUps: complete");
+	}
+
+	/**
+	 * Test that an interrupted read gives up cleanly, and that the thread's next read works as normal
+	 */
+	@Test
+	public void testInterrupted() throws InterruptedException {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		final Box<Boolean> interrupted = new Box<Boolean>(false);
+		final Box<Integer> result = new Box<Integer>(-1);
+		final Semaphore waitingSem = new Semaphore(0);
+		final Semaphore readSem = new Semaphore(0);
+		Thread reader = new Thread(new Runnable() {public void run() {
+			waitingSem.release();
+			try {
+				read(channel);
+			} catch (ProcessInterruptedException e) {
+				//The interrupt is kept going, so clear it before reading again
+				synchronized (interrupted) {
+					interrupted.setItem(Thread.interrupted());
+				}
+			}
+			waitingSem.release();
+			int message = read(channel);
+			synchronized (result) {
+				result.setItem(message);
+			}
+			readSem.release();
+		}});
+		reader.start();
+		waitingSem.acquireUninterruptibly();
+		Thread.sleep(100);
+		reader.interrupt();
+		assertTrue(waitingSem.tryAcquire(10,TimeUnit.SECONDS));
+		synchronized (interrupted) {
+			assertTrue(interrupted.getItem());
+		}
+		//The interrupted read left the channel, so this goes to the second read
+		write(channel,7);
+		assertTrue(readSem.tryAcquire(10,TimeUnit.SECONDS));
+		synchronized (result) {
+			assertTrue(result.getItem()==7);
+		}
+		logger.trace("testInterrupted: complete");
+	}
+
+	/*
+	 * The current thread's read (the method is only visible to Ops)
+	 */
+	private static Read<?> threadRead() {
+		try {
+			Method method = Read.class.getDeclaredMethod("forThisThread");
+			method.setAccessible(true);
+			return (Read<?>)method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not get the thread's read",e);
+		}
+	}
+
+	/*
+	 * The current thread's write (the method is only visible to Ops)
+	 */
+	private static Write<?> threadWrite() {
+		try {
+			Method method = Write.class.getDeclaredMethod("forThisThread");
+			method.setAccessible(true);
+			return (Write<?>)method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not get the thread's write",e);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.softwire.it.cjo.operators;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the tuner deciding how long readers and writers spin. The tuner is only visible to the operators,
+ * so it is driven through reflection.
+ *
+ */
+public class SpinTunerTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(SpinTunerTest.class);
+
+	/**
+	 * Test that the budget follows twice the spins it took when spinning worked, within the limits
+	 */
+	@Test
+	public void testSucceeded() {
+		Object tuner = makeTuner(4096);
+		assertEquals(512,getBudget(tuner)); //starts in the middle
+		for (int i=0; i<100; i++) {
+			spinSucceeded(tuner,10);
+		}
+		int budget = getBudget(tuner);
+		assertTrue("Budget: " + budget,budget>=20 && budget<=21);
+		//Never above the largest budget
+		for (int i=0; i<100; i++) {
+			spinSucceeded(tuner,100000);
+		}
+		assertEquals(4096,getBudget(tuner));
+		//Nor below the least
+		for (int i=0; i<100; i++) {
+			spinSucceeded(tuner,0);
+		}
+		assertEquals(16,getBudget(tuner));
+		logger.trace("testSucceeded: complete");
+	}
+
+	/**
+	 * Test that the budget halves when spinning fails, but keeps probing
+	 */
+	@Test
+	public void testFailed() {
+		Object tuner = makeTuner(4096);
+		spinFailed(tuner);
+		assertEquals(256,getBudget(tuner));
+		spinFailed(tuner);
+		assertEquals(128,getBudget(tuner));
+		for (int i=0; i<10; i++) {
+			spinFailed(tuner);
+		}
+		assertEquals(16,getBudget(tuner));
+		//And recovers once spinning works again
+		for (int i=0; i<100; i++) {
+			spinSucceeded(tuner,200);
+		}
+		assertTrue(getBudget(tuner)>=400);
+		logger.trace("testFailed: complete");
+	}
+
+	/**
+	 * Test that the largest budget comes from mjb.dev.cjo.spin.max, and caps the tuner
+	 */
+	@Test
+	public void testMax() {
+		Properties properties = new Properties();
+		assertEquals(4096,getMaxSpins(4,properties));
+		properties.setProperty("mjb.dev.cjo.spin.max","100");
+		assertEquals(100,getMaxSpins(4,properties));
+		properties.setProperty("mjb.dev.cjo.spin.max","-5");
+		assertEquals(0,getMaxSpins(4,properties));
+		properties.setProperty("mjb.dev.cjo.spin.max","lots");
+		assertEquals(4096,getMaxSpins(4,properties));
+		Object tuner = makeTuner(100);
+		for (int i=0; i<100; i++) {
+			spinSucceeded(tuner,100000);
+		}
+		assertEquals(100,getBudget(tuner));
+		logger.trace("testMax: complete");
+	}
+
+	/**
+	 * Test that spinning is switched off by mjb.dev.cjo.spin=false, and on a single processor
+	 */
+	@Test
+	public void testOff() {
+		Properties properties = new Properties();
+		properties.setProperty("mjb.dev.cjo.spin","false");
+		assertEquals(0,getMaxSpins(4,properties));
+		properties.setProperty("mjb.dev.cjo.spin","true");
+		assertEquals(4096,getMaxSpins(4,properties));
+		assertEquals(0,getMaxSpins(1,properties));
+		//A tuner with nothing to spend never spins
+		Object tuner = makeTuner(0);
+		assertEquals(0,getBudget(tuner));
+		spinSucceeded(tuner,50);
+		assertEquals(0,getBudget(tuner));
+		spinFailed(tuner);
+		assertEquals(0,getBudget(tuner));
+		logger.trace("testOff: complete");
+	}
+
+	/*
+	 * The rest reach into the tuner
+	 */
+	private static Class<?> tunerClass() throws ClassNotFoundException {
+		return Class.forName("mjb.dev.cjo.operators.SpinTuner");
+	}
+
+	private static Object makeTuner(int maxSpins) {
+		try {
+			Constructor<?> constructor = tunerClass().getDeclaredConstructor(int.class);
+			constructor.setAccessible(true);
+			return constructor.newInstance(maxSpins);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not make a tuner",e);
+		}
+	}
+
+	private static int getBudget(Object tuner) {
+		return (Integer)invoke(tuner,"getBudget",new Class<?>[0]);
+	}
+
+	private static void spinSucceeded(Object tuner, int spins) {
+		invoke(tuner,"spinSucceeded",new Class<?>[] {int.class},spins);
+	}
+
+	private static void spinFailed(Object tuner) {
+		invoke(tuner,"spinFailed",new Class<?>[0]);
+	}
+
+	private static int getMaxSpins(int processors, Properties properties) {
+		return (Integer)invoke(null,"getMaxSpins",new Class<?>[] {int.class,Properties.class},processors,properties);
+	}
+
+	private static Object invoke(Object tuner, String name, Class<?>[] types, Object... arguments) {
+		try {
+			Method method = tunerClass().getDeclaredMethod(name,types);
+			method.setAccessible(true);
+			return method.invoke(tuner,arguments);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("The tuner failed in: " + name,e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not call: " + name,e);
+		}
+	}
+}
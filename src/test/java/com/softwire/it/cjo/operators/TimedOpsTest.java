@@ -0,0 +1,146 @@
+package com.softwire.it.cjo.operators;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.BufferManyChannel;
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.channels.exceptions.ChannelClosed;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the non-blocking and timed reads and writes.
+ *
+ */
+public class TimedOpsTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(TimedOpsTest.class);
+
+	/**
+	 * Test that trying only succeeds when someone is ready, and leaves nothing behind when it fails
+	 */
+	@Test
+	public void testTry() {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		assertNull(tryRead(channel));
+		assertFalse(tryWrite(channel,1));
+		//Neither left anything behind, so this still has to wait...
+		assertNull(tryRead(channel));
+		//Now with a writer waiting
+		final Semaphore writeSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			write(channel,2);
+			writeSem.release();
+		}});
+		t.start();
+		Box<Integer> message = null;
+		while (message==null) {
+			message = tryRead(channel);
+		}
+		assertTrue(message.getItem()==2);
+		writeSem.acquireUninterruptibly();
+		//Buffered channels take writes until they are full
+		BufferManyChannel<Integer> buffer = new BufferManyChannel<Integer>(2);
+		assertTrue(tryWrite(buffer,1));
+		assertTrue(tryWrite(buffer,2));
+		assertFalse(tryWrite(buffer,3));
+		assertTrue(tryRead(buffer).getItem()==1);
+		assertTrue(tryRead(buffer).getItem()==2);
+		assertNull(tryRead(buffer));
+		close(buffer);
+		try {
+			tryRead(buffer);
+			fail("Tried to read from a closed channel");
+		} catch (ChannelClosed e) {}
+		try {
+			tryWrite(buffer,1);
+			fail("Tried to write to a closed channel");
+		} catch (ChannelClosed e) {}
+		close(channel);
+		logger.trace("testTry: complete");
+	}
+
+	/**
+	 * Test that timed operations give up in time, and succeed if someone turns up in time
+	 */
+	@Test
+	public void testTimed() {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		long start = System.currentTimeMillis();
+		assertNull(read(channel,100));
+		assertFalse(write(channel,1,100));
+		long taken = System.currentTimeMillis()-start;
+		assertTrue(taken>=190 && taken<2000);
+		//Now with a partner who turns up late (but not too late)
+		final Semaphore doneSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				logger.warn("testTimed: interrupted while waiting");
+			}
+			write(channel,3);
+			assertTrue(read(channel)==4);
+			doneSem.release();
+		}});
+		t.start();
+		Box<Integer> message = read(channel,10000);
+		assertTrue(message!=null && message.getItem()==3);
+		assertTrue(write(channel,4,10000));
+		doneSem.acquireUninterruptibly();
+		//Closing wakes up a timed wait
+		t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				logger.warn("testTimed: interrupted while waiting");
+			}
+			close(channel);
+		}});
+		t.start();
+		try {
+			read(channel,10000);
+			fail("Read from a closed channel");
+		} catch (ChannelClosed e) {}
+		logger.trace("testTimed: complete");
+	}
+
+	/**
+	 * Test that huge timeouts wait as long as they need to (rather than overflowing into tiny ones)
+	 */
+	@Test
+	public void testHugeTimeouts() {
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		//In nanoseconds, this overflows to under a millisecond
+		final long huge = 18446744073710L;
+		final Semaphore doneSem = new Semaphore(0);
+		Thread t = new Thread(new Runnable() {public void run() {
+			try {
+				Thread.sleep(100);
+				write(channel,5);
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				logger.warn("testHugeTimeouts: interrupted while waiting");
+			}
+			Box<Integer> message = read(channel,Long.MAX_VALUE);
+			assertTrue(message!=null && message.getItem()==6);
+			doneSem.release();
+		}});
+		t.start();
+		Box<Integer> message = read(channel,huge);
+		assertTrue(message!=null && message.getItem()==5);
+		assertTrue(write(channel,6,huge));
+		doneSem.acquireUninterruptibly();
+		logger.trace("testHugeTimeouts: complete");
+	}
+}
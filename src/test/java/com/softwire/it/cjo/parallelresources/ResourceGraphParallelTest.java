@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import mjb.dev.cjo.parallelresources.Resource;
 import mjb.dev.cjo.parallelresources.ResourceGraph;
@@ -363,4 +365,85 @@ public class ResourceGraphParallelTest {
 		//Done!!
 		logger.trace("testStress: completed");
 	}
+	
+	/**
+	 * This test forces a process to restart until it declares itself old, and checks the statistics see it: the restarts,
+	 * the old process, the gate shutting and someone waiting at the gate.
+	 * Whoever holds the resource the process wants keeps moving it to a new representative, and hands it on to a new
+	 * holder already queued for the new representative (so the process, queued behind, never gets there first).
+	 */
+	@Test
+	public void testOldProcess() throws InterruptedException {
+		Logger logger = Logger.getLogger(ResourceGraphParallelTest.class);
+		ResourceManipulator manipulator = GRAPH.getManipulator();
+		final Resource resource = manipulator.addResource();
+		final Resource other = manipulator.addResource();
+		manipulator.releaseResources();
+		long restarts = GRAPH.getRestarts();
+		long oldProcesses = GRAPH.getOldProcesses();
+		long gateEngagements = GRAPH.getGateEngagements();
+		long gateWaits = GRAPH.getGateWaits();
+		ResourceManipulator held = GRAPH.acquireResource(resource);
+		//The process
+		final Semaphore acquiredSem = new Semaphore(0);
+		final Semaphore releaseSem = new Semaphore(0);
+		final Thread process = new Thread(new Runnable() {public void run() {
+			ResourceManipulator manipulator = GRAPH.acquireResource(resource);
+			acquiredSem.release();
+			releaseSem.acquireUninterruptibly();
+			manipulator.releaseResources();
+		}});
+		process.start();
+		Object blocker = waitUntilBlocked(process,null);
+		for (int i=0; i<100 && GRAPH.getOldProcesses()==oldProcesses; i++) {
+			//Move the resource to a new (larger) representative, and queue the next holder on it
+			held.addDependency(resource,held.addResource());
+			final Box<ResourceManipulator> next = new Box<ResourceManipulator>(null);
+			final Semaphore nextSem = new Semaphore(0);
+			Thread holder = new Thread(new Runnable() {public void run() {
+				next.setItem(GRAPH.acquireResource(resource));
+				nextSem.release();
+			}});
+			holder.start();
+			waitUntilBlocked(holder,null);
+			held.releaseResources();
+			nextSem.acquireUninterruptibly();
+			held = next.getItem();
+			//The process must restart, and queue up again
+			blocker = waitUntilBlocked(process,blocker);
+		}
+		assertTrue(GRAPH.getOldProcesses()>oldProcesses);
+		assertTrue(GRAPH.getRestarts()>restarts+10);
+		assertTrue(GRAPH.getGateEngagements()>gateEngagements);
+		//Anyone else has to wait at the gate until the old process is done
+		final Semaphore otherSem = new Semaphore(0);
+		new Thread(new Runnable() {public void run() {
+			GRAPH.acquireResource(other).releaseResources();
+			otherSem.release();
+		}}).start();
+		long deadline = System.currentTimeMillis()+10000;
+		while (GRAPH.getGateWaits()==gateWaits && System.currentTimeMillis()<deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(GRAPH.getGateWaits()>gateWaits);
+		assertFalse(otherSem.tryAcquire(100,TimeUnit.MILLISECONDS));
+		held.releaseResources();
+		acquiredSem.acquireUninterruptibly();
+		releaseSem.release();
+		assertTrue(otherSem.tryAcquire(10,TimeUnit.SECONDS));
+		logger.trace("testOldProcess: completed");
+	}
+	
+	/*
+	 * Wait until a thread is stuck on something other than what it was stuck on before, and return what it is stuck on now
+	 */
+	private static Object waitUntilBlocked(Thread thread, Object previousBlocker) {
+		while (true) {
+			Object blocker = LockSupport.getBlocker(thread);
+			if (blocker!=null && blocker!=previousBlocker && thread.getState()==Thread.State.WAITING) {
+				return blocker;
+			}
+			Thread.yield();
+		}
+	}
 }
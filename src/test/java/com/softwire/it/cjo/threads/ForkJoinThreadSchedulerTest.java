@@ -0,0 +1,101 @@
+package com.softwire.it.cjo.threads;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.operators.AltBuilder;
+import mjb.dev.cjo.operators.AltBuilder.ReadProcess;
+import mjb.dev.cjo.threads.ForkJoinThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This tests that processes waiting on each other in a fork join pool cannot starve it.
+ *
+ */
+public class ForkJoinThreadSchedulerTest {
+	//Our logger
+	private static final Logger logger = Logger.getLogger(ForkJoinThreadSchedulerTest.class);
+
+	/**
+	 * Test a pipeline of far more waiting processes than the pool has threads
+	 */
+	@Test
+	public void testPipeline() {
+		final ForkJoinThreadScheduler scheduler = new ForkJoinThreadScheduler(2);
+		final int processes = 100;
+		@SuppressWarnings("unchecked")
+		final OneOneChannel<Integer>[] channels = (OneOneChannel<Integer>[])new OneOneChannel<?>[processes+1];
+		for (int i=0; i<=processes; i++) {
+			channels[i] = new OneOneChannel<Integer>();
+		}
+		Task last = null;
+		for (int i=0; i<processes; i++) {
+			final OneOneChannel<Integer> in = channels[i];
+			final OneOneChannel<Integer> out = channels[i+1];
+			final boolean useAlt = i%2==0;
+			last = scheduler.makeTask(new Runnable() {public void run() {
+				for (int j=0; j<10; j++) {
+					if (useAlt) {
+						final Box<Integer> message = new Box<Integer>(0);
+						alt(new AltBuilder().addReadBranch(in,new ReadProcess<Integer>() {
+							public void run(Integer read) {
+								message.setItem(read);
+							}
+						}));
+						write(out,message.getItem()+1);
+					} else {
+						write(out,read(in)+1);
+					}
+				}
+			}});
+			scheduler.schedule(last);
+		}
+		//Everyone is waiting for this thread
+		for (int j=0; j<10; j++) {
+			write(channels[0],j);
+			assertTrue(read(channels[processes])==j+processes);
+		}
+		scheduler.deschedule(last);
+		//The pool made up for its waiting threads
+		assertTrue(scheduler.getPoolSize()>scheduler.getParallelism());
+		logger.trace("testPipeline: complete");
+	}
+
+	/**
+	 * Test that interrupts and descheduling work as with any other scheduler
+	 */
+	@Test
+	public void testInterruption() {
+		ForkJoinThreadScheduler scheduler = new ForkJoinThreadScheduler(1);
+		final Semaphore finishedSemaphore = new Semaphore(0);
+		final OneOneChannel<Integer> channel = new OneOneChannel<Integer>();
+		Task task = scheduler.makeTask(new Runnable() {public void run() {
+			try {
+				read(channel);
+				fail("testInterruption: Was not interrupted");
+			} catch (RuntimeException e) {
+				finishedSemaphore.release();
+			}
+		}});
+		scheduler.schedule(task);
+		while (!finishedSemaphore.tryAcquire()) {
+			scheduler.interrupt(task);
+			Thread.yield();
+		}
+		scheduler.deschedule(task);
+		close(channel);
+		logger.trace("testInterruption: complete");
+	}
+}
@@ -0,0 +1,115 @@
+package com.softwire.it.cjo.threads;
+
+import static org.junit.Assert.*;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.threads.PooledThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This tests that the pooled scheduler reuses its threads without tasks noticing.
+ *
+ */
+public class PooledThreadSchedulerTest {
+	//Our logger
+	private static final Logger logger = Logger.getLogger(PooledThreadSchedulerTest.class);
+
+	/**
+	 * Test that finished threads are reused, and let go once idle for long enough
+	 */
+	@Test
+	public void testReuse() throws InterruptedException {
+		PooledThreadScheduler scheduler = new PooledThreadScheduler(500);
+		final Box<Thread> first = new Box<Thread>(null);
+		final Box<Thread> second = new Box<Thread>(null);
+		Task task = scheduler.makeTask(new Runnable() {public void run() {
+			first.setItem(Thread.currentThread());
+		}},true);
+		scheduler.schedule(task);
+		scheduler.deschedule(task);
+		//Wait for the thread to become idle
+		while (scheduler.getIdleThreads()==0) {
+			Thread.sleep(1);
+		}
+		task = scheduler.makeTask(new Runnable() {public void run() {
+			second.setItem(Thread.currentThread());
+		}},true);
+		scheduler.schedule(task);
+		scheduler.deschedule(task);
+		assertSame(first.getItem(),second.getItem());
+		//Non daemon tasks need a thread of their own
+		task = scheduler.makeTask(new Runnable() {public void run() {
+			assertFalse(Thread.currentThread().isDaemon());
+			second.setItem(Thread.currentThread());
+		}},false);
+		scheduler.schedule(task);
+		scheduler.deschedule(task);
+		assertNotSame(first.getItem(),second.getItem());
+		//Everyone is let go eventually
+		long start = System.currentTimeMillis();
+		while (scheduler.getIdleThreads()>0 && System.currentTimeMillis()-start<5000) {
+			Thread.sleep(10);
+		}
+		assertEquals(0,scheduler.getIdleThreads());
+		logger.trace("testReuse: complete");
+	}
+
+	/**
+	 * Test that interrupts and exceptions stay with the task they belong to
+	 */
+	@Test
+	public void testIsolation() throws InterruptedException {
+		PooledThreadScheduler scheduler = new PooledThreadScheduler(5000);
+		final Semaphore startedSemaphore = new Semaphore(0);
+		final Semaphore handledSemaphore = new Semaphore(0);
+		//Leave an interrupt behind
+		Task task = scheduler.makeTask(new Runnable() {public void run() {
+			startedSemaphore.release();
+			while (!Thread.currentThread().isInterrupted()) {
+				Thread.yield();
+			}
+			throw new Error("woah!");
+		}},true,new UncaughtExceptionHandler() {
+			public void uncaughtException(Thread t, Throwable e) {
+				assertTrue(e instanceof Error);
+				handledSemaphore.release();
+			}
+		});
+		scheduler.schedule(task);
+		startedSemaphore.acquireUninterruptibly();
+		scheduler.interrupt(task);
+		handledSemaphore.acquireUninterruptibly();
+		scheduler.deschedule(task);
+		scheduler.interrupt(task); //has finished - should do nothing
+		while (scheduler.getIdleThreads()==0) {
+			Thread.sleep(1);
+		}
+		//The thread survived, and the next task was not interrupted
+		final Box<Boolean> wasInterrupted = new Box<Boolean>(true);
+		task = scheduler.makeTask(new Runnable() {public void run() {
+			try {
+				Thread.sleep(100);
+				wasInterrupted.setItem(false);
+			} catch (InterruptedException e) {}
+		}},true);
+		scheduler.schedule(task);
+		scheduler.deschedule(task);
+		assertFalse(wasInterrupted.getItem());
+		try {
+			scheduler.schedule(task);
+			fail("Managed to schedule a task twice");
+		} catch (IllegalThreadStateException e) {}
+		logger.trace("testIsolation: complete");
+	}
+}
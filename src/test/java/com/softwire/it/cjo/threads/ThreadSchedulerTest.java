@@ -2,6 +2,7 @@ package com.softwire.it.cjo.threads;
 
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import mjb.dev.cjo.threads.ThreadScheduler;
 import mjb.dev.cjo.threads.ThreadScheduler.Task;
@@ -181,4 +182,75 @@ public class ThreadSchedulerTest {
 		endTime = System.currentTimeMillis();
 		assertTrue(endTime-startTime<1500);
 	}
+	
+	/**
+	 * This tests the timed deschedule and cancel
+	 */
+	@Test
+	public void testTimedDeschedule() {
+		final Semaphore stuckSemaphore = new Semaphore(0);
+		//A task that ignores interrupts
+		Task stuck = scheduler.makeTask(new Runnable() {public void run() {
+			stuckSemaphore.acquireUninterruptibly();
+		}},true);
+		scheduler.schedule(stuck);
+		long startTime = System.currentTimeMillis();
+		assertFalse(scheduler.deschedule(stuck,200,TimeUnit.MILLISECONDS));
+		assertFalse(scheduler.cancel(stuck,200,TimeUnit.MILLISECONDS));
+		assertTrue(System.currentTimeMillis()-startTime<5000);
+		stuckSemaphore.release();
+		assertTrue(scheduler.deschedule(stuck,10,TimeUnit.SECONDS));
+		//A task that listens to interrupts
+		Task sleeper = scheduler.makeTask(new Runnable() {public void run() {
+			try {
+				Thread.sleep(60000);
+			} catch (InterruptedException e) {
+				logger.trace("testTimedDeschedule: interrupted as expected");
+			}
+		}},true);
+		scheduler.schedule(sleeper);
+		startTime = System.currentTimeMillis();
+		assertTrue(scheduler.cancel(sleeper,10,TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis()-startTime<10000);
+		//Not scheduled
+		try {
+			scheduler.deschedule(scheduler.makeTask(new Runnable() {public void run() {}}),1,TimeUnit.SECONDS);
+			fail("Descheduled a task never scheduled");
+		} catch (IllegalThreadStateException e) {}
+		logger.trace("testTimedDeschedule: complete");
+	}
+	
+	/**
+	 * This tests the completion callbacks
+	 */
+	@Test
+	public void testWhenFinished() {
+		final Semaphore goSemaphore = new Semaphore(0);
+		final Semaphore calledSemaphore = new Semaphore(0);
+		Runnable callback = new Runnable() {public void run() {
+			calledSemaphore.release();
+		}};
+		Task task = scheduler.makeTask(new Runnable() {public void run() {
+			goSemaphore.acquireUninterruptibly();
+			throw new RuntimeException("testWhenFinished: expected");
+		}},true,new UncaughtExceptionHandler() {
+			public void uncaughtException(Thread t, Throwable e) {}
+		});
+		scheduler.whenFinished(task,callback);
+		scheduler.schedule(task);
+		scheduler.whenFinished(task,callback);
+		assertFalse(calledSemaphore.tryAcquire());
+		goSemaphore.release();
+		scheduler.deschedule(task);
+		//Called even though the task failed (just after it finished, so maybe just after the deschedule)
+		try {
+			assertTrue(calledSemaphore.tryAcquire(2,10,TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for the callbacks");
+		}
+		//Once finished, called straight away
+		scheduler.whenFinished(task,callback);
+		assertTrue(calledSemaphore.tryAcquire());
+		logger.trace("testWhenFinished: complete");
+	}
 }
@@ -0,0 +1,65 @@
+package com.softwire.it.cjo.threads;
+
+import static mjb.dev.cjo.operators.Ops.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.util.concurrent.Semaphore;
+
+import mjb.dev.cjo.channels.OneOneChannel;
+import mjb.dev.cjo.threads.VirtualThreadScheduler;
+import mjb.dev.cjo.threads.ThreadScheduler.Task;
+import mjb.dev.cjo.utilities.Box;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This tests processes running in virtual threads (skipped before Java 21).
+ *
+ */
+public class VirtualThreadSchedulerTest {
+	//Our logger
+	private static final Logger logger = Logger.getLogger(VirtualThreadSchedulerTest.class);
+
+	/**
+	 * Test a ring of many more processes than would be sensible with platform threads
+	 */
+	@Test
+	public void testRing() {
+		assumeTrue(VirtualThreadScheduler.isSupported());
+		VirtualThreadScheduler scheduler = new VirtualThreadScheduler();
+		final int processes = 10000;
+		@SuppressWarnings("unchecked")
+		final OneOneChannel<Integer>[] channels = (OneOneChannel<Integer>[])new OneOneChannel<?>[processes];
+		for (int i=0; i<processes; i++) {
+			channels[i] = new OneOneChannel<Integer>();
+		}
+		final Box<String> name = new Box<String>(null);
+		final Semaphore doneSemaphore = new Semaphore(0);
+		for (int i=1; i<processes; i++) {
+			final OneOneChannel<Integer> in = channels[i];
+			final OneOneChannel<Integer> out = channels[(i+1)%processes];
+			Task task = scheduler.makeTask(new Runnable() {public void run() {
+				synchronized (name) {
+					name.setItem(Thread.currentThread().getName());
+				}
+				write(out,read(in)+1);
+				doneSemaphore.release();
+			}},false);
+			scheduler.schedule(task);
+		}
+		write(channels[1],0);
+		assertTrue(read(channels[0])==processes-1);
+		doneSemaphore.acquireUninterruptibly(processes-1);
+		synchronized (name) {
+			assertTrue(name.getItem().startsWith("cjo-virtual-"));
+		}
+		logger.trace("testRing: complete");
+	}
+}
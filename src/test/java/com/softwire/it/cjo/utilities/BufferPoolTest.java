@@ -0,0 +1,78 @@
+package com.softwire.it.cjo.utilities;
+
+import static org.junit.Assert.*;
+
+import mjb.dev.cjo.utilities.BufferPool;
+import mjb.dev.cjo.utilities.PooledBuffer;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+/**
+ * ****************<br>
+ * Date: 19/10/2026<br>
+ * Author:  michael<br>
+ * ****************<br>
+ * <br>
+ * This class tests the BufferPool - that buffers are reused, and that leaks are found.
+ *
+ */
+public class BufferPoolTest {
+	//The logger for these tests
+	private final Logger logger = Logger.getLogger(BufferPoolTest.class);
+
+	/**
+	 * Test that released buffers are handed out again
+	 */
+	@Test
+	public void testReuse() {
+		BufferPool pool = new BufferPool(64,2);
+		PooledBuffer first = pool.acquire();
+		assertTrue(first.getBuffer().isDirect());
+		assertTrue(first.getBuffer().capacity()==64);
+		first.getBuffer().put((byte)1);
+		first.release();
+		assertTrue(first.isReleased());
+		try {
+			first.getBuffer();
+			fail("Used a released buffer");
+		} catch (IllegalStateException e) {}
+		try {
+			first.release();
+			fail("Released a buffer twice");
+		} catch (IllegalStateException e) {}
+		PooledBuffer second = pool.acquire();
+		assertTrue(second.getBuffer().position()==0);
+		assertTrue(pool.getAllocatedBuffers()==1);
+		assertTrue(pool.getOutstandingBuffers()==1);
+		//Don't keep more than the maximum
+		PooledBuffer third = pool.acquire();
+		PooledBuffer fourth = pool.acquire();
+		second.release();
+		third.release();
+		fourth.release();
+		assertTrue(pool.getPooledBuffers()==2);
+		assertTrue(pool.getOutstandingBuffers()==0);
+		logger.trace("testReuse: complete");
+	}
+
+	/**
+	 * Test that forgotten buffers are reported
+	 */
+	@Test
+	public void testLeak() throws InterruptedException {
+		BufferPool pool = new BufferPool(64,2);
+		pool.acquire(); //forgotten immediately
+		for (int i=0; i<50 && pool.getLeakedBuffers()==0; i++) {
+			System.gc();
+			Thread.sleep(20);
+			pool.checkForLeaks();
+		}
+		assertTrue(pool.getLeakedBuffers()==1);
+		assertTrue(pool.getOutstandingBuffers()==0);
+		//Leaked memory is not reused
+		pool.acquire().release();
+		assertTrue(pool.getAllocatedBuffers()==2);
+		logger.trace("testLeak: complete");
+	}
+}